@@ -0,0 +1,237 @@
+package com.gabizou.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the implementations of abstract {@code @MutableData} and
+ * {@code @ImmutableData} manipulators, along with their builders.
+ *
+ * <p>The generated classes store every key as a plain field and dispatch
+ * on the index of the key through a {@code switch}, so there's no reflection
+ * and no registration at startup, and every accessor can be inlined.</p>
+ */
+@SupportedAnnotationTypes({DataManipulatorProcessor.MUTABLE_DATA, DataManipulatorProcessor.IMMUTABLE_DATA})
+public class DataManipulatorProcessor extends AbstractProcessor {
+
+    static final String MUTABLE_DATA = "com.gabizou.annotation.MutableData";
+    static final String IMMUTABLE_DATA = "com.gabizou.annotation.ImmutableData";
+    static final String VALUE_KEY = "com.gabizou.annotation.ValueKey";
+    static final String METHOD_IMPLEMENTATION = "com.gabizou.annotation.MethodImplementation";
+    static final String DATA_MANIPULATOR = "org.spongepowered.api.data.manipulator.DataManipulator";
+    static final String IMMUTABLE_DATA_MANIPULATOR = "org.spongepowered.api.data.manipulator.ImmutableDataManipulator";
+    static final String VALUE = "org.spongepowered.api.data.value.mutable.Value";
+    static final String IMMUTABLE_VALUE = "org.spongepowered.api.data.value.immutable.ImmutableValue";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            final boolean mutable = annotation.getQualifiedName().contentEquals(MUTABLE_DATA);
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                // The annotations are inherited, which would include our own generated classes
+                if (element.getKind() != ElementKind.CLASS || findAnnotation(element, annotation.getQualifiedName().toString()) == null) {
+                    continue;
+                }
+                try {
+                    generate((TypeElement) element, mutable);
+                } catch (InvalidManipulatorException e) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+                } catch (IOException e) {
+                    this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write the generated sources: " + e, element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement element, boolean mutable) throws IOException {
+        if (!this.generated.add(element.getQualifiedName().toString())) {
+            return;
+        }
+        final ManipulatorModel model = readModel(element, mutable);
+        final TypeElement pairElement = findPair(element, mutable);
+        final ManipulatorModel pair = readModel(pairElement, !mutable);
+        for (KeyModel key : model.keys) {
+            final int index = pair.indexOf(key.keyReference);
+            if (index == -1) {
+                throw new InvalidManipulatorException(pairElement, pair.simpleName + " is missing a @ValueKey method for " + key.keyReference);
+            }
+            if (pair.keys.get(index).type != key.type) {
+                throw new InvalidManipulatorException(element, model.simpleName + " and " + pair.simpleName + " disagree on the type of " + key.keyReference);
+            }
+        }
+        if (pair.keys.size() != model.keys.size()) {
+            throw new InvalidManipulatorException(element, model.simpleName + " and " + pair.simpleName + " must declare the same keys");
+        }
+        final ManipulatorWriter writer = new ManipulatorWriter(model, pair);
+        write(model.qualifiedImplName(), element, mutable ? writer.writeMutable() : writer.writeImmutable());
+        write(model.qualifiedBuilderName(), element, mutable ? writer.writeMutableBuilder() : writer.writeImmutableBuilder());
+    }
+
+    private void write(String name, TypeElement origin, String source) throws IOException {
+        final JavaFileObject file = this.processingEnv.getFiler().createSourceFile(name, origin);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source);
+        }
+    }
+
+    private ManipulatorModel readModel(TypeElement element, boolean mutable) {
+        if (!element.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new InvalidManipulatorException(element, element.getSimpleName() + " must be abstract to be generated");
+        }
+        final List<KeyModel> keys = new ArrayList<>();
+        final Set<String> implemented = new HashSet<>();
+        for (Element enclosed : element.getEnclosedElements()) {
+            if (enclosed.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            final ExecutableElement method = (ExecutableElement) enclosed;
+            final AnnotationMirror valueKey = findAnnotation(method, VALUE_KEY);
+            if (findAnnotation(method, METHOD_IMPLEMENTATION) != null) {
+                if (valueKey != null || method.getModifiers().contains(Modifier.ABSTRACT)) {
+                    throw new InvalidManipulatorException(method, "@MethodImplementation methods must be implemented and can't be @ValueKey methods");
+                }
+                final String signature = signature(method);
+                if (ManipulatorWriter.alwaysGenerates(signature, mutable)) {
+                    throw new InvalidManipulatorException(method, signature + " is always generated and can't be a @MethodImplementation");
+                }
+                implemented.add(signature);
+            } else if (valueKey != null) {
+                keys.add(readKey(method, valueKey, mutable));
+            } else if (method.getModifiers().contains(Modifier.ABSTRACT)) {
+                throw new InvalidManipulatorException(method, "Only @ValueKey methods may be left abstract");
+            }
+        }
+        final String packageName = this.processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+        return new ManipulatorModel(element, mutable, packageName, keys, implemented);
+    }
+
+    private String signature(ExecutableElement method) {
+        final List<? extends VariableElement> parameters = method.getParameters();
+        final String[] parameterTypes = new String[parameters.size()];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            parameterTypes[i] = this.processingEnv.getTypeUtils().erasure(parameters.get(i).asType()).toString();
+        }
+        return ManipulatorModel.signature(method.getSimpleName().toString(), parameterTypes);
+    }
+
+    private KeyModel readKey(ExecutableElement method, AnnotationMirror valueKey, boolean mutable) {
+        if (!method.getParameters().isEmpty() || !method.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new InvalidManipulatorException(method, "@ValueKey methods must be abstract and take no parameters");
+        }
+        final String expectedValue = mutable ? VALUE : IMMUTABLE_VALUE;
+        final TypeMirror returnType = method.getReturnType();
+        if (returnType.getKind() != TypeKind.DECLARED
+            || !((TypeElement) ((DeclaredType) returnType).asElement()).getQualifiedName().contentEquals(expectedValue)) {
+            throw new InvalidManipulatorException(method, "@ValueKey methods must return " + expectedValue);
+        }
+        final List<? extends TypeMirror> typeArguments = ((DeclaredType) returnType).getTypeArguments();
+        final KeyModel.FieldType type = typeArguments.size() == 1 ? KeyModel.FieldType.of(typeArguments.get(0).toString()) : null;
+        if (type == null) {
+            throw new InvalidManipulatorException(method, "Unsupported value type " + returnType
+                                                          + ", only Boolean, Integer, Long, Double and String values can be generated");
+        }
+
+        final AnnotationMirror keyReference = (AnnotationMirror) getValue(valueKey, "value");
+        final TypeElement container = (TypeElement) ((DeclaredType) getValue(keyReference, "container")).asElement();
+        final String keyName = normalize((String) getValue(keyReference, "keyName"));
+        for (Element enclosed : container.getEnclosedElements()) {
+            if (enclosed.getKind() == ElementKind.FIELD && enclosed.getModifiers().contains(Modifier.STATIC)
+                && normalize(enclosed.getSimpleName().toString()).equals(keyName)) {
+                final String reference = container.getQualifiedName() + "." + enclosed.getSimpleName();
+                return new KeyModel(method.getSimpleName().toString(), reference, type);
+            }
+        }
+        throw new InvalidManipulatorException(method, "Could not find the key " + keyName + " in " + container.getQualifiedName());
+    }
+
+    private TypeElement findPair(TypeElement element, boolean mutable) {
+        final String supertype = mutable ? DATA_MANIPULATOR : IMMUTABLE_DATA_MANIPULATOR;
+        for (TypeMirror mirror : element.getInterfaces()) {
+            final DeclaredType type = (DeclaredType) mirror;
+            if (((TypeElement) type.asElement()).getQualifiedName().contentEquals(supertype)) {
+                final List<? extends TypeMirror> arguments = type.getTypeArguments();
+                if (arguments.size() != 2 || !this.processingEnv.getTypeUtils().isSameType(arguments.get(0), element.asType())) {
+                    break;
+                }
+                final TypeElement pair = (TypeElement) ((DeclaredType) arguments.get(1)).asElement();
+                if (findAnnotation(pair, mutable ? IMMUTABLE_DATA : MUTABLE_DATA) == null) {
+                    throw new InvalidManipulatorException(element, "The paired manipulator " + pair.getSimpleName() + " must be marked with @"
+                                                                   + (mutable ? "ImmutableData" : "MutableData"));
+                }
+                return pair;
+            }
+        }
+        throw new InvalidManipulatorException(element, element.getSimpleName() + " must directly implement " + supertype + "<"
+                                                       + element.getSimpleName() + ", ?>");
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror mirror, String name) {
+        final Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+            this.processingEnv.getElementUtils().getElementValuesWithDefaults(mirror);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+        throw new IllegalStateException("Missing annotation value " + name + " on " + mirror);
+    }
+
+    // Key names are the field name, to lowercase, optionally without underscores
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ENGLISH);
+    }
+
+    private static final class InvalidManipulatorException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        final Element element;
+
+        InvalidManipulatorException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+    }
+
+}
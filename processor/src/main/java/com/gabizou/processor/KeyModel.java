@@ -0,0 +1,58 @@
+package com.gabizou.processor;
+
+/**
+ * A single {@code @ValueKey} method of a manipulator, along with the key
+ * constant it refers to and the type of field storing its element.
+ */
+final class KeyModel {
+
+    final String methodName;
+    final String keyReference;
+    final FieldType type;
+
+    KeyModel(String methodName, String keyReference, FieldType type) {
+        this.methodName = methodName;
+        this.keyReference = keyReference;
+        this.type = type;
+    }
+
+    /**
+     * The element types supported by generated manipulators, all of which
+     * can be read from a {@code DataView} directly.
+     */
+    enum FieldType {
+        BOOLEAN("java.lang.Boolean", "boolean", "Boolean", "false", "getBoolean"),
+        INT("java.lang.Integer", "int", "Integer", "0", "getInt"),
+        LONG("java.lang.Long", "long", "Long", "0L", "getLong"),
+        DOUBLE("java.lang.Double", "double", "Double", "0.0D", "getDouble"),
+        STRING("java.lang.String", "String", "String", "\"\"", "getString");
+
+        final String elementName;
+        final String fieldType;
+        final String boxedType;
+        final String defaultValue;
+        final String viewGetter;
+
+        FieldType(String elementName, String fieldType, String boxedType, String defaultValue, String viewGetter) {
+            this.elementName = elementName;
+            this.fieldType = fieldType;
+            this.boxedType = boxedType;
+            this.defaultValue = defaultValue;
+            this.viewGetter = viewGetter;
+        }
+
+        boolean isPrimitive() {
+            return this != STRING;
+        }
+
+        static FieldType of(String elementName) {
+            for (FieldType type : values()) {
+                if (type.elementName.equals(elementName)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+}
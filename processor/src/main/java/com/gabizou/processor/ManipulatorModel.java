@@ -0,0 +1,88 @@
+package com.gabizou.processor;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.lang.model.element.TypeElement;
+
+/**
+ * Everything needed to generate the implementation and builder of a single
+ * {@code @MutableData} or {@code @ImmutableData} class.
+ */
+final class ManipulatorModel {
+
+    final TypeElement element;
+    final boolean mutable;
+    final String packageName;
+    final String simpleName;
+    final List<KeyModel> keys;
+    // The signature of every @MethodImplementation method, see signature()
+    final Set<String> implementedMethods;
+
+    ManipulatorModel(TypeElement element, boolean mutable, String packageName, List<KeyModel> keys, Set<String> implementedMethods) {
+        this.element = element;
+        this.mutable = mutable;
+        this.packageName = packageName;
+        this.simpleName = element.getSimpleName().toString();
+        this.keys = keys;
+        this.implementedMethods = implementedMethods;
+    }
+
+    String qualifiedName() {
+        return this.element.getQualifiedName().toString();
+    }
+
+    String implName() {
+        return this.simpleName + "Impl";
+    }
+
+    String qualifiedImplName() {
+        return qualify(implName());
+    }
+
+    String builderName() {
+        return this.simpleName + "Builder";
+    }
+
+    String qualifiedBuilderName() {
+        return qualify(builderName());
+    }
+
+    boolean implementsMethod(String name, String... parameterTypes) {
+        return this.implementedMethods.contains(signature(name, parameterTypes));
+    }
+
+    /**
+     * Gets the signature of a method, its name followed by the qualified names
+     * of its erased parameter types, for example
+     * {@code fill(org.spongepowered.api.data.DataHolder)}.
+     *
+     * @param name The method name
+     * @param parameterTypes The qualified names of the erased parameter types
+     * @return The signature
+     */
+    static String signature(String name, String... parameterTypes) {
+        return name + "(" + String.join(",", parameterTypes) + ")";
+    }
+
+    /**
+     * Gets the index of the key in this model, used to match up the fields of
+     * the mutable and immutable variants.
+     *
+     * @param keyReference The key reference
+     * @return The index, or -1 if not found
+     */
+    int indexOf(String keyReference) {
+        for (int i = 0; i < this.keys.size(); i++) {
+            if (this.keys.get(i).keyReference.equals(keyReference)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String qualify(String name) {
+        return this.packageName.isEmpty() ? name : this.packageName + "." + name;
+    }
+
+}
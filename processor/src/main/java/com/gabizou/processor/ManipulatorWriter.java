@@ -0,0 +1,627 @@
+package com.gabizou.processor;
+
+import static com.gabizou.processor.ManipulatorModel.signature;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes the sources of the implementation and builder of a
+ * {@link ManipulatorModel}. The {@code pair} is the model of the opposite
+ * variant, used for {@code asImmutable()} and {@code asMutable()}.
+ */
+final class ManipulatorWriter {
+
+    private static final String HEADER = "// Generated by com.gabizou.processor.DataManipulatorProcessor, do not edit.\n";
+
+    private static final String OBJECT = "java.lang.Object";
+    private static final String KEY = "org.spongepowered.api.data.key.Key";
+    private static final String BASE_VALUE = "org.spongepowered.api.data.value.BaseValue";
+    private static final String DATA_HOLDER = "org.spongepowered.api.data.DataHolder";
+    private static final String MERGE_FUNCTION = "org.spongepowered.api.data.merge.MergeFunction";
+    private static final String DATA_CONTAINER = "org.spongepowered.api.data.DataContainer";
+
+    // The signatures of the methods that are always generated, which can't be implemented by hand
+    private static final Set<String> COMMON_METHODS = signatures(
+        signature("get", KEY),
+        signature("getOrNull", KEY),
+        signature("getOrElse", KEY, OBJECT),
+        signature("getValue", KEY),
+        signature("supports", KEY),
+        signature("supports", BASE_VALUE),
+        signature("getKeys"),
+        signature("getValues"),
+        signature("copy"),
+        signature("hashCode"),
+        signature("equals", OBJECT));
+    private static final Set<String> MUTABLE_METHODS = signatures(
+        signature("set", KEY, OBJECT),
+        signature("set", BASE_VALUE),
+        signature("set", BASE_VALUE + "[]"),
+        signature("set", "java.lang.Iterable"),
+        signature("transform", KEY, "com.google.common.base.Function"),
+        signature("asImmutable"));
+    private static final Set<String> IMMUTABLE_METHODS = signatures(
+        signature("with", KEY, OBJECT),
+        signature("with", BASE_VALUE),
+        signature("asMutable"));
+
+    private static Set<String> signatures(String... signatures) {
+        return Collections.unmodifiableSet(new HashSet<>(Arrays.asList(signatures)));
+    }
+
+    /**
+     * Gets whether the method of the given signature is always generated, in
+     * which case it can't be implemented by hand.
+     *
+     * @param signature The signature, see {@link ManipulatorModel#signature}
+     * @param mutable Whether the manipulator is the mutable variant
+     * @return True if the method is always generated
+     */
+    static boolean alwaysGenerates(String signature, boolean mutable) {
+        return COMMON_METHODS.contains(signature) || (mutable ? MUTABLE_METHODS : IMMUTABLE_METHODS).contains(signature);
+    }
+
+    private final ManipulatorModel model;
+    private final ManipulatorModel pair;
+    private final List<KeyModel> keys;
+    private final StringBuilder builder = new StringBuilder();
+
+    ManipulatorWriter(ManipulatorModel model, ManipulatorModel pair) {
+        this.model = model;
+        this.pair = pair;
+        this.keys = model.keys;
+    }
+
+    String writeMutable() {
+        final String type = this.model.simpleName;
+        final String impl = this.model.implName();
+        header();
+        line("import static com.google.common.base.Preconditions.checkNotNull;");
+        line("");
+        line("import com.gabizou.data.DataInstrumentation;");
+        line("import com.gabizou.data.DataValues;");
+        line("import com.gabizou.data.KeyRegistry;");
+        line("import com.google.common.base.Function;");
+        line("import com.google.common.base.Optional;");
+        line("import com.google.common.collect.ComparisonChain;");
+        line("import com.google.common.collect.ImmutableSet;");
+        line("import org.spongepowered.api.data.DataContainer;");
+        line("import org.spongepowered.api.data.DataHolder;");
+        line("import org.spongepowered.api.data.MemoryDataContainer;");
+        line("import org.spongepowered.api.data.key.Key;");
+        line("import org.spongepowered.api.data.merge.MergeFunction;");
+        line("import org.spongepowered.api.data.value.BaseValue;");
+        line("import org.spongepowered.api.data.value.immutable.ImmutableValue;");
+        line("import org.spongepowered.api.data.value.mutable.Value;");
+        line("");
+        line("import java.util.Set;");
+        line("");
+        line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        line("public final class " + impl + " extends " + type + " {");
+        line("");
+        statics();
+        for (KeyModel key : this.keys) {
+            line("    private " + key.type.fieldType + " " + key.methodName + ";");
+        }
+        if (!this.keys.isEmpty()) {
+            line("");
+        }
+        constructors(impl);
+        valueMethods("Value", "");
+
+        line("    @Override");
+        line("    public <E> " + type + " set(Key<? extends BaseValue<E>> key, E value) {");
+        line("        checkNotNull(value);");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            final KeyModel key = this.keys.get(i);
+            line("            case " + i + ":");
+            line("                this." + key.methodName + " = (" + key.type.boxedType + ") value;");
+            line("                return this;");
+        }
+        line("            default:");
+        line("                throw new IllegalArgumentException(\"This data manipulator doesn't support the following key: \" + key);");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + type + " set(BaseValue<?> value) {");
+        line("        return set((Key) value.getKey(), value.get());");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + type + " set(BaseValue<?>... values) {");
+        line("        for (BaseValue<?> value : checkNotNull(values)) {");
+        line("            if (supports(value)) {");
+        line("                set(value);");
+        line("            }");
+        line("        }");
+        line("        return this;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + type + " set(Iterable<? extends BaseValue<?>> values) {");
+        line("        for (BaseValue<?> value : checkNotNull(values)) {");
+        line("            if (supports(value)) {");
+        line("                set(value);");
+        line("            }");
+        line("        }");
+        line("        return this;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public <E> " + type + " transform(Key<? extends BaseValue<E>> key, Function<E, E> function) {");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            final KeyModel key = this.keys.get(i);
+            line("            case " + i + ":");
+            line("                this." + key.methodName + " = (" + key.type.boxedType + ") checkNotNull(function.apply((E) (Object) this."
+                 + key.methodName + "));");
+            line("                return this;");
+        }
+        line("            default:");
+        line("                throw new IllegalArgumentException(\"This data manipulator doesn't support the following key: \" + key);");
+        line("        }");
+        line("    }");
+        line("");
+        if (!this.model.implementsMethod("fill", DATA_HOLDER)) {
+            line("    @Override");
+            line("    public Optional<" + type + "> fill(DataHolder dataHolder) {");
+            line("        return fill(dataHolder, MergeFunction.IGNORE_ALL);");
+            line("    }");
+            line("");
+        }
+        if (!this.model.implementsMethod("fill", DATA_HOLDER, MERGE_FUNCTION)) {
+            line("    @Override");
+            line("    public Optional<" + type + "> fill(DataHolder dataHolder, MergeFunction overlap) {");
+            line("        return Optional.absent();");
+            line("    }");
+            line("");
+        }
+        if (!this.model.implementsMethod("from", DATA_CONTAINER)) {
+            line("    @Override");
+            line("    public Optional<" + type + "> from(DataContainer container) {");
+            if (!this.keys.isEmpty()) {
+                line("        if (" + missingQueries("container") + ") {");
+                line("            return Optional.absent();");
+                line("        }");
+            }
+            for (KeyModel key : this.keys) {
+                line("        this." + key.methodName + " = container." + key.type.viewGetter + "(" + key.keyReference + ".getQuery()).get();");
+            }
+            line("        return Optional.<" + type + ">of(this);");
+            line("    }");
+            line("");
+        }
+        line("    @Override");
+        line("    public " + type + " copy() {");
+        line("        DataInstrumentation.recordCopy(" + impl + ".class);");
+        line("        return new " + impl + "(" + arguments(this.model, "this.") + ");");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + this.pair.qualifiedName() + " asImmutable() {");
+        line("        return new " + this.pair.qualifiedImplName() + "(" + arguments(this.pair, "this.") + ");");
+        line("    }");
+        line("");
+        commonMethods(impl);
+        line("}");
+        return this.builder.toString();
+    }
+
+    String writeImmutable() {
+        final String type = this.model.simpleName;
+        final String impl = this.model.implName();
+        header();
+        line("import static com.google.common.base.Preconditions.checkNotNull;");
+        line("");
+        line("import com.gabizou.data.DataInstrumentation;");
+        line("import com.gabizou.data.DataValues;");
+        line("import com.gabizou.data.KeyRegistry;");
+        line("import com.google.common.base.Optional;");
+        line("import com.google.common.collect.ComparisonChain;");
+        line("import com.google.common.collect.ImmutableSet;");
+        line("import org.spongepowered.api.data.DataContainer;");
+        line("import org.spongepowered.api.data.MemoryDataContainer;");
+        line("import org.spongepowered.api.data.key.Key;");
+        line("import org.spongepowered.api.data.value.BaseValue;");
+        line("import org.spongepowered.api.data.value.immutable.ImmutableValue;");
+        line("");
+        line("import java.util.Set;");
+        line("");
+        line("@SuppressWarnings({\"unchecked\", \"rawtypes\"})");
+        line("public final class " + impl + " extends " + type + " {");
+        line("");
+        statics();
+        for (KeyModel key : this.keys) {
+            line("    private final " + key.type.fieldType + " " + key.methodName + ";");
+        }
+        if (!this.keys.isEmpty()) {
+            line("");
+        }
+        constructors(impl);
+        valueMethods("ImmutableValue", ".asImmutable()");
+
+        line("    @Override");
+        line("    public <E> Optional<" + type + "> with(Key<? extends BaseValue<E>> key, E value) {");
+        line("        checkNotNull(value);");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            final KeyModel key = this.keys.get(i);
+            final StringBuilder arguments = new StringBuilder();
+            for (KeyModel other : this.keys) {
+                if (arguments.length() > 0) {
+                    arguments.append(", ");
+                }
+                arguments.append(other == key ? "(" + key.type.boxedType + ") value" : "this." + other.methodName);
+            }
+            line("            case " + i + ":");
+            line("                return Optional.<" + type + ">of(new " + impl + "(" + arguments + "));");
+        }
+        line("            default:");
+        line("                return Optional.absent();");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Optional<" + type + "> with(BaseValue<?> value) {");
+        line("        return with((Key) value.getKey(), value.get());");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + type + " copy() {");
+        line("        return this;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public " + this.pair.qualifiedName() + " asMutable() {");
+        line("        return new " + this.pair.qualifiedImplName() + "(" + arguments(this.pair, "this.") + ");");
+        line("    }");
+        line("");
+        commonMethods(impl);
+        line("}");
+        return this.builder.toString();
+    }
+
+    String writeMutableBuilder() {
+        final String type = this.model.simpleName;
+        final String immutable = this.pair.qualifiedName();
+        header();
+        line("import com.gabizou.data.DataInstrumentation;");
+        line("import com.google.common.base.Optional;");
+        line("import org.spongepowered.api.data.DataHolder;");
+        line("import org.spongepowered.api.data.DataView;");
+        line("import org.spongepowered.api.data.manipulator.DataManipulatorBuilder;");
+        line("import org.spongepowered.api.service.persistence.InvalidDataException;");
+        line("");
+        line("public final class " + this.model.builderName() + " implements DataManipulatorBuilder<" + type + ", " + immutable + "> {");
+        line("");
+        line("    @Override");
+        line("    public " + type + " create() {");
+        line("        return new " + this.model.implName() + "();");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Optional<" + type + "> createFrom(DataHolder dataHolder) {");
+        line("        return Optional.absent();");
+        line("    }");
+        line("");
+        buildMethod(type);
+        line("}");
+        return this.builder.toString();
+    }
+
+    String writeImmutableBuilder() {
+        final String type = this.model.simpleName;
+        final String mutable = this.pair.qualifiedName();
+        header();
+        line("import com.gabizou.data.DataInstrumentation;");
+        line("import com.google.common.base.Optional;");
+        line("import org.spongepowered.api.data.DataHolder;");
+        line("import org.spongepowered.api.data.DataView;");
+        line("import org.spongepowered.api.data.ImmutableDataHolder;");
+        line("import org.spongepowered.api.data.manipulator.ImmutableDataManipulatorBuilder;");
+        line("import org.spongepowered.api.service.persistence.InvalidDataException;");
+        line("");
+        line("public final class " + this.model.builderName() + " implements ImmutableDataManipulatorBuilder<" + type + ", " + mutable + "> {");
+        line("");
+        line("    @Override");
+        line("    public " + type + " createImmutable() {");
+        line("        return new " + this.model.implName() + "();");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Optional<" + type + "> createFrom(DataHolder dataHolder) {");
+        line("        return Optional.absent();");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Optional<" + type + "> createFrom(ImmutableDataHolder<?> dataHolder) {");
+        line("        return Optional.absent();");
+        line("    }");
+        line("");
+        buildMethod(type);
+        line("}");
+        return this.builder.toString();
+    }
+
+    private void header() {
+        this.builder.setLength(0);
+        this.builder.append(HEADER);
+        if (!this.model.packageName.isEmpty()) {
+            line("package " + this.model.packageName + ";");
+            line("");
+        }
+    }
+
+    private void statics() {
+        final StringBuilder keys = new StringBuilder();
+        for (KeyModel key : this.keys) {
+            if (keys.length() > 0) {
+                keys.append(", ");
+            }
+            keys.append(key.keyReference);
+        }
+        line("    private static final Key<?>[] KEYS = {" + keys + "};");
+        line("    private static final int[] SLOTS = KeyRegistry.createSlotTable(KEYS);");
+        line("    private static final Set<Key<?>> KEY_SET = ImmutableSet.copyOf(KEYS);");
+        line("");
+    }
+
+    private void constructors(String impl) {
+        line("    public " + impl + "() {");
+        if (!this.keys.isEmpty()) {
+            final StringBuilder defaults = new StringBuilder();
+            for (KeyModel key : this.keys) {
+                if (defaults.length() > 0) {
+                    defaults.append(", ");
+                }
+                defaults.append(key.type.defaultValue);
+            }
+            line("        this(" + defaults + ");");
+        }
+        line("    }");
+        line("");
+        if (this.keys.isEmpty()) {
+            return;
+        }
+        final StringBuilder parameters = new StringBuilder();
+        for (KeyModel key : this.keys) {
+            if (parameters.length() > 0) {
+                parameters.append(", ");
+            }
+            parameters.append(key.type.fieldType).append(' ').append(key.methodName);
+        }
+        line("    public " + impl + "(" + parameters + ") {");
+        for (KeyModel key : this.keys) {
+            line("        this." + key.methodName + " = " + (key.type.isPrimitive() ? key.methodName : "checkNotNull(" + key.methodName + ")") + ";");
+        }
+        line("    }");
+        line("");
+    }
+
+    private void valueMethods(String valueType, String suffix) {
+        for (KeyModel key : this.keys) {
+            line("    @Override");
+            line("    public " + valueType + "<" + key.type.boxedType + "> " + key.methodName + "() {");
+            line("        return DataValues.getBuilder().createValue(" + key.keyReference + ", this." + key.methodName + ", "
+                 + key.type.defaultValue + ")" + suffix + ";");
+            line("    }");
+            line("");
+        }
+    }
+
+    private void commonMethods(String impl) {
+        final String type = this.model.simpleName;
+        line("    @Override");
+        line("    public <E> Optional<E> get(Key<? extends BaseValue<E>> key) {");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            line("            case " + i + ":");
+            line("                return Optional.of((E) (Object) this." + this.keys.get(i).methodName + ");");
+        }
+        line("            default:");
+        line("                return Optional.absent();");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public <E> E getOrNull(Key<? extends BaseValue<E>> key) {");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            line("            case " + i + ":");
+            line("                return (E) (Object) this." + this.keys.get(i).methodName + ";");
+        }
+        line("            default:");
+        line("                return null;");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public <E> E getOrElse(Key<? extends BaseValue<E>> key, E defaultValue) {");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            line("            case " + i + ":");
+            line("                return (E) (Object) this." + this.keys.get(i).methodName + ";");
+        }
+        line("            default:");
+        line("                return checkNotNull(defaultValue);");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public <E, V extends BaseValue<E>> Optional<V> getValue(Key<V> key) {");
+        line("        switch (KeyRegistry.lookupSlot(SLOTS, key)) {");
+        for (int i = 0; i < this.keys.size(); i++) {
+            line("            case " + i + ":");
+            line("                return Optional.of((V) " + this.keys.get(i).methodName + "());");
+        }
+        line("            default:");
+        line("                return Optional.absent();");
+        line("        }");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public boolean supports(Key<?> key) {");
+        line("        return KeyRegistry.lookupSlot(SLOTS, key) != -1;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public boolean supports(BaseValue<?> baseValue) {");
+        line("        return supports(baseValue.getKey());");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public Set<Key<?>> getKeys() {");
+        line("        return KEY_SET;");
+        line("    }");
+        line("");
+        final String asImmutable = this.model.mutable ? "().asImmutable()" : "()";
+        final StringBuilder values = new StringBuilder();
+        for (KeyModel key : this.keys) {
+            if (values.length() > 0) {
+                values.append(", ");
+            }
+            values.append(key.methodName).append(asImmutable);
+        }
+        line("    @Override");
+        line("    public Set<ImmutableValue<?>> getValues() {");
+        line("        return ImmutableSet.<ImmutableValue<?>>of(" + values + ");");
+        line("    }");
+        line("");
+        if (!this.model.implementsMethod("compareTo", this.model.qualifiedName())) {
+            line("    @Override");
+            line("    public int compareTo(" + type + " o) {");
+            if (this.keys.isEmpty()) {
+                line("        return 0;");
+            } else {
+                line("        final " + impl + " other = (" + impl + ") o;");
+                line("        return ComparisonChain.start()");
+                for (KeyModel key : this.keys) {
+                    final String method = key.type == KeyModel.FieldType.BOOLEAN ? "compareFalseFirst" : "compare";
+                    line("            ." + method + "(this." + key.methodName + ", other." + key.methodName + ")");
+                }
+                line("            .result();");
+            }
+            line("    }");
+            line("");
+        }
+        if (!this.model.implementsMethod("toContainer")) {
+            line("    @Override");
+            line("    public DataContainer toContainer() {");
+            line("        final long start = DataInstrumentation.startTimer();");
+            if (this.keys.isEmpty()) {
+                line("        final DataContainer container = new MemoryDataContainer();");
+            } else {
+                line("        final DataContainer container = new MemoryDataContainer()");
+                for (int i = 0; i < this.keys.size(); i++) {
+                    final KeyModel key = this.keys.get(i);
+                    line("            .set(" + key.keyReference + ".getQuery(), this." + key.methodName + ")" + (i == this.keys.size() - 1 ? ";" : ""));
+                }
+            }
+            line("        DataInstrumentation.recordToContainer(" + impl + ".class, start);");
+            line("        return container;");
+            line("    }");
+            line("");
+        }
+        line("    @Override");
+        line("    public int hashCode() {");
+        line("        int result = 1;");
+        for (KeyModel key : this.keys) {
+            final String hash = key.type.isPrimitive() ? key.type.boxedType + ".hashCode(this." + key.methodName + ")" : "this." + key.methodName + ".hashCode()";
+            line("        result = 31 * result + " + hash + ";");
+        }
+        line("        return result;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public boolean equals(Object obj) {");
+        line("        if (this == obj) {");
+        line("            return true;");
+        line("        }");
+        line("        if (obj == null || getClass() != obj.getClass()) {");
+        line("            return false;");
+        line("        }");
+        if (this.keys.isEmpty()) {
+            line("        return true;");
+        } else {
+            line("        final " + impl + " other = (" + impl + ") obj;");
+            final StringBuilder equality = new StringBuilder();
+            for (KeyModel key : this.keys) {
+                if (equality.length() > 0) {
+                    equality.append("\n            && ");
+                }
+                switch (key.type) {
+                    case DOUBLE:
+                        equality.append("Double.compare(this.").append(key.methodName).append(", other.").append(key.methodName).append(") == 0");
+                        break;
+                    case STRING:
+                        equality.append("this.").append(key.methodName).append(".equals(other.").append(key.methodName).append(")");
+                        break;
+                    default:
+                        equality.append("this.").append(key.methodName).append(" == other.").append(key.methodName);
+                }
+            }
+            line("        return " + equality + ";");
+        }
+        line("    }");
+        line("");
+    }
+
+    private void buildMethod(String type) {
+        line("    @Override");
+        line("    public Optional<" + type + "> build(DataView container) throws InvalidDataException {");
+        line("        final long start = DataInstrumentation.startTimer();");
+        if (!this.keys.isEmpty()) {
+            line("        if (" + missingQueries("container") + ") {");
+            line("            throw new InvalidDataException(\"The container doesn't have the required keys!\");");
+            line("        }");
+        }
+        final StringBuilder arguments = new StringBuilder();
+        for (KeyModel key : this.keys) {
+            if (arguments.length() > 0) {
+                arguments.append(",\n            ");
+            }
+            arguments.append("container.").append(key.type.viewGetter).append('(').append(key.keyReference).append(".getQuery()).get()");
+        }
+        line("        final " + type + " data = new " + this.model.implName() + "(" + arguments + ");");
+        line("        DataInstrumentation.recordBuild(" + this.model.implName() + ".class, start);");
+        line("        return Optional.<" + type + ">of(data);");
+        line("    }");
+    }
+
+    private String missingQueries(String view) {
+        final StringBuilder condition = new StringBuilder();
+        for (KeyModel key : this.keys) {
+            if (condition.length() > 0) {
+                condition.append(" || ");
+            }
+            condition.append('!').append(view).append(".contains(").append(key.keyReference).append(".getQuery())");
+        }
+        return condition.toString();
+    }
+
+    /**
+     * Lists the fields of this model in the constructor order of the target
+     * model, both models declare the same keys.
+     */
+    private String arguments(ManipulatorModel target, String prefix) {
+        final StringBuilder arguments = new StringBuilder();
+        for (KeyModel key : target.keys) {
+            if (arguments.length() > 0) {
+                arguments.append(", ");
+            }
+            arguments.append(prefix).append(this.keys.get(this.model.indexOf(key.keyReference)).methodName);
+        }
+        return arguments.toString();
+    }
+
+    private void line(String line) {
+        this.builder.append(line).append('\n');
+    }
+
+}
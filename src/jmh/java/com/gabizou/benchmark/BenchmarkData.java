@@ -0,0 +1,76 @@
+package com.gabizou.benchmark;
+
+import com.gabizou.data.AbstractData;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.merge.MergeFunction;
+
+import java.util.Arrays;
+
+public final class BenchmarkData extends AbstractData<BenchmarkData, ImmutableBenchmarkData> {
+
+    private final BenchmarkShape shape;
+    final int[] values;
+
+    public BenchmarkData(BenchmarkShape shape) {
+        this(shape, new int[shape.size()]);
+    }
+
+    BenchmarkData(BenchmarkShape shape, int[] values) {
+        super(shape.mutableSchema);
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public Optional<BenchmarkData> fill(DataHolder dataHolder, MergeFunction overlap) {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<BenchmarkData> from(DataContainer container) {
+        return Optional.absent();
+    }
+
+    void clear() {
+        Arrays.fill(this.values, 0);
+    }
+
+    @Override
+    public BenchmarkData copy() {
+        return new BenchmarkData(this.shape, this.values.clone());
+    }
+
+    @Override
+    public ImmutableBenchmarkData asImmutable() {
+        return new ImmutableBenchmarkData(this.shape, this.values.clone());
+    }
+
+    @Override
+    public int compareTo(BenchmarkData o) {
+        for (int i = 0; i < this.values.length; i++) {
+            final int compare = Integer.compare(this.values[i], o.values[i]);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public DataContainer toContainer() {
+        final DataContainer container = new MemoryDataContainer();
+        for (int i = 0; i < this.values.length; i++) {
+            container.set(this.shape.keys[i].getQuery(), this.values[i]);
+        }
+        return container;
+    }
+
+    @Override
+    public String toString() {
+        return "BenchmarkData" + Arrays.toString(this.values);
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.gabizou.benchmark;
+
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.DataView;
+import org.spongepowered.api.data.manipulator.DataManipulatorBuilder;
+import org.spongepowered.api.service.persistence.InvalidDataException;
+
+public final class BenchmarkDataBuilder implements DataManipulatorBuilder<BenchmarkData, ImmutableBenchmarkData> {
+
+    private final BenchmarkShape shape;
+
+    public BenchmarkDataBuilder(BenchmarkShape shape) {
+        this.shape = shape;
+    }
+
+    @Override
+    public BenchmarkData create() {
+        return new BenchmarkData(this.shape);
+    }
+
+    @Override
+    public Optional<BenchmarkData> createFrom(DataHolder dataHolder) {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<BenchmarkData> build(DataView container) throws InvalidDataException {
+        final int[] values = new int[this.shape.size()];
+        for (int i = 0; i < values.length; i++) {
+            final Optional<Integer> value = container.getInt(this.shape.keys[i].getQuery());
+            if (!value.isPresent()) {
+                throw new InvalidDataException("The container doesn't have the required keys!");
+            }
+            values[i] = value.get();
+        }
+        return Optional.of(new BenchmarkData(this.shape, values));
+    }
+
+}
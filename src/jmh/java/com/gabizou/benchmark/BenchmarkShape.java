@@ -0,0 +1,66 @@
+package com.gabizou.benchmark;
+
+import com.gabizou.data.DataCodec;
+import com.gabizou.data.DataSchema;
+import com.gabizou.data.DataValues;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.key.KeyFactory;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.util.Map;
+
+/**
+ * The keys and schemas of a benchmark manipulator with a given number of
+ * {@code int} keys. The schemas are built the same way a hand written
+ * manipulator would, one field getter, setter and value getter per key.
+ */
+public final class BenchmarkShape {
+
+    private static final Map<Integer, BenchmarkShape> shapes = Maps.newHashMap();
+
+    public static synchronized BenchmarkShape of(int keyCount) {
+        BenchmarkShape shape = shapes.get(keyCount);
+        if (shape == null) {
+            shape = new BenchmarkShape(keyCount);
+            shapes.put(keyCount, shape);
+        }
+        return shape;
+    }
+
+    final Key<Value<Integer>>[] keys;
+    final DataSchema<BenchmarkData, Value<?>> mutableSchema;
+    final DataSchema<ImmutableBenchmarkData, ImmutableValue<?>> immutableSchema;
+    final DataCodec<BenchmarkData> codec;
+
+    @SuppressWarnings("unchecked")
+    private BenchmarkShape(int keyCount) {
+        this.keys = new Key[keyCount];
+        final DataSchema.Builder<BenchmarkData, Value<?>> mutable = DataSchema.mutable(BenchmarkData.class);
+        final DataSchema.Builder<ImmutableBenchmarkData, ImmutableValue<?>> immutable = DataSchema.immutable(ImmutableBenchmarkData.class);
+        for (int i = 0; i < keyCount; i++) {
+            final int index = i;
+            final Key<Value<Integer>> key = KeyFactory.makeSingleKey(Integer.class, (Class<Value<Integer>>) (Class) Value.class,
+                                                                     DataQuery.of("benchmark" + keyCount, "key" + i));
+            this.keys[i] = key;
+            mutable.intField(key, data -> data.values[index], (data, value) -> data.values[index] = value)
+                .value(key, data -> DataValues.getBuilder().createValue(key, data.values[index], 0));
+            immutable.intField(key, data -> data.values[index])
+                .value(key, data -> DataValues.getBuilder().createValue(key, data.values[index], 0).asImmutable());
+        }
+        this.mutableSchema = mutable.build();
+        this.immutableSchema = immutable.build();
+        this.codec = DataCodec.of(this.mutableSchema);
+    }
+
+    public int size() {
+        return this.keys.length;
+    }
+
+    public Key<Value<Integer>> getKey(int index) {
+        return this.keys[index];
+    }
+
+}
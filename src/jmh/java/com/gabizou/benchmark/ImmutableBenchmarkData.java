@@ -0,0 +1,69 @@
+package com.gabizou.benchmark;
+
+import com.gabizou.data.ImmutableAbstractData;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+
+import java.util.Arrays;
+
+public final class ImmutableBenchmarkData extends ImmutableAbstractData<ImmutableBenchmarkData, BenchmarkData> {
+
+    private final BenchmarkShape shape;
+    final int[] values;
+
+    ImmutableBenchmarkData(BenchmarkShape shape, int[] values) {
+        super(shape.immutableSchema);
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public <E> Optional<ImmutableBenchmarkData> with(Key<? extends BaseValue<E>> key, E value) {
+        final int slot = this.shape.immutableSchema.getSlot(key);
+        if (slot < 0) {
+            return Optional.absent();
+        }
+        final int[] values = this.values.clone();
+        values[slot] = (Integer) value;
+        return Optional.of(new ImmutableBenchmarkData(this.shape, values));
+    }
+
+    @Override
+    public ImmutableBenchmarkData copy() {
+        return this;
+    }
+
+    @Override
+    public BenchmarkData asMutable() {
+        return new BenchmarkData(this.shape, this.values.clone());
+    }
+
+    @Override
+    public int compareTo(ImmutableBenchmarkData o) {
+        for (int i = 0; i < this.values.length; i++) {
+            final int compare = Integer.compare(this.values[i], o.values[i]);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public DataContainer toContainer() {
+        final DataContainer container = new MemoryDataContainer();
+        for (int i = 0; i < this.values.length; i++) {
+            container.set(this.shape.keys[i].getQuery(), this.values[i]);
+        }
+        return container;
+    }
+
+    @Override
+    public String toString() {
+        return "ImmutableBenchmarkData" + Arrays.toString(this.values);
+    }
+
+}
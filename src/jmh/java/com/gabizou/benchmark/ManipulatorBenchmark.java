@@ -0,0 +1,209 @@
+package com.gabizou.benchmark;
+
+import com.gabizou.data.DataCodec;
+import com.gabizou.data.DataPatch;
+import com.gabizou.data.DataPool;
+import com.gabizou.data.DataValues;
+import com.gabizou.data.LazyData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hot paths of the manipulators: construction, key lookups,
+ * getting and setting, value creation, copying, switching between the
+ * mutable and immutable variants and serialization, through both the
+ * {@link DataContainer} and the {@link DataCodec}, each with 1, 8 and 64 keys.
+ *
+ * <p>Run with {@code gradle jmh}, which enables the GC profiler so the
+ * allocation rate per operation is reported alongside the time.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManipulatorBenchmark {
+
+    @Param({"1", "8", "64"})
+    public int keyCount;
+
+    private BenchmarkShape shape;
+    private BenchmarkData data;
+    private BenchmarkData changed;
+    private ImmutableBenchmarkData immutableData;
+    private BenchmarkDataBuilder builder;
+    private DataContainer container;
+    private ByteBuffer buffer;
+    private ByteBuffer encoded;
+    private Key<Value<Integer>> key;
+    private DataPool<BenchmarkData> pool;
+    private int counter;
+
+    @Setup
+    public void setup() {
+        DataValues.setBuilder(StubValues.valueBuilder());
+        this.shape = BenchmarkShape.of(this.keyCount);
+        this.data = new BenchmarkData(this.shape);
+        for (int i = 0; i < this.keyCount; i++) {
+            this.data.setInt(this.shape.getKey(i), i);
+        }
+        this.immutableData = this.data.asImmutable();
+        this.builder = new BenchmarkDataBuilder(this.shape);
+        this.container = this.data.toContainer();
+        this.buffer = ByteBuffer.allocate(this.shape.codec.sizeOf(this.data));
+        this.encoded = ByteBuffer.allocate(this.buffer.capacity());
+        this.shape.codec.encode(this.data, this.encoded);
+        this.encoded.flip();
+        // The last key, so the lookup isn't favoured by being first
+        this.key = this.shape.getKey(this.keyCount - 1);
+        this.changed = this.data.copy().setInt(this.key, -1);
+        this.pool = DataPool.create(() -> new BenchmarkData(this.shape), BenchmarkData::clear, 4);
+    }
+
+    @Benchmark
+    public BenchmarkData construct() {
+        return new BenchmarkData(this.shape);
+    }
+
+    @Benchmark
+    public int borrowAndRelease() {
+        final BenchmarkData borrowed = this.pool.borrow();
+        final int value = borrowed.setInt(this.key, this.counter++).getInt(this.key);
+        this.pool.release(borrowed);
+        return value;
+    }
+
+    @Benchmark
+    public Object get() {
+        return this.data.get(this.key);
+    }
+
+    @Benchmark
+    public int getInt() {
+        return this.data.getInt(this.key);
+    }
+
+    @Benchmark
+    public Object getImmutable() {
+        return this.immutableData.get(this.key);
+    }
+
+    @Benchmark
+    public BenchmarkData set() {
+        return this.data.set(this.key, this.counter++);
+    }
+
+    @Benchmark
+    public BenchmarkData setInt() {
+        return this.data.setInt(this.key, this.counter++);
+    }
+
+    @Benchmark
+    public BenchmarkData transform() {
+        return this.data.transform(this.key, value -> value + 1);
+    }
+
+    @Benchmark
+    public Object getValue() {
+        return this.data.getValue(this.key);
+    }
+
+    @Benchmark
+    public void forEachRaw(Blackhole blackhole) {
+        this.data.forEachRaw((key, value) -> blackhole.consume(value));
+    }
+
+    @Benchmark
+    public Object getValues() {
+        return this.data.getValues();
+    }
+
+    @Benchmark
+    public void getAll(Blackhole blackhole) {
+        for (Key<?> key : this.data.getKeys()) {
+            blackhole.consume(this.data.get((Key) key));
+        }
+    }
+
+    @Benchmark
+    public Object with() {
+        return this.immutableData.with(this.key, this.counter++);
+    }
+
+    @Benchmark
+    public BenchmarkData copy() {
+        return this.data.copy();
+    }
+
+    @Benchmark
+    public ImmutableBenchmarkData asImmutable() {
+        return this.data.asImmutable();
+    }
+
+    @Benchmark
+    public BenchmarkData asMutable() {
+        return this.immutableData.asMutable();
+    }
+
+    @Benchmark
+    public DataContainer toContainer() {
+        return this.data.toContainer();
+    }
+
+    @Benchmark
+    public Object build() {
+        return this.builder.build(this.container);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        this.buffer.clear();
+        this.shape.codec.encode(this.data, this.buffer);
+        return this.buffer;
+    }
+
+    @Benchmark
+    public BenchmarkData decode() {
+        this.encoded.rewind();
+        return this.shape.codec.decode(this.encoded, new BenchmarkData(this.shape));
+    }
+
+    @Benchmark
+    public Object lazyGet() {
+        this.encoded.rewind();
+        return LazyData.of(this.shape.codec, this.encoded).get(this.key);
+    }
+
+    @Benchmark
+    public DataPatch diffEqual() {
+        return this.data.diff(this.data);
+    }
+
+    @Benchmark
+    public DataPatch diffChanged() {
+        return this.data.diff(this.changed);
+    }
+
+    @Benchmark
+    public boolean compareValues() {
+        return this.data.getValues().equals(this.changed.getValues());
+    }
+
+}
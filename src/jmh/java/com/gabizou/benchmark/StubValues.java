@@ -0,0 +1,127 @@
+package com.gabizou.benchmark;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import org.spongepowered.api.Game;
+import org.spongepowered.api.GameRegistry;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.ValueBuilder;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Local stand-ins for the {@link Game}, {@link GameRegistry} and
+ * {@link ValueBuilder} so the benchmarks can run without a server.
+ *
+ * <p>These are proxies rather than implementations, the values only support
+ * what the manipulators use: getting the element, key and default, setting,
+ * transforming and switching between the mutable and immutable variants.</p>
+ */
+public final class StubValues {
+
+    private static final ValueBuilder VALUE_BUILDER = proxy(ValueBuilder.class, (proxy, method, args) -> {
+        if (method.getName().equals("createValue")) {
+            final Object defaultValue = args.length > 2 ? args[2] : args[1];
+            return value((Key<?>) args[0], args[1], defaultValue, true);
+        }
+        return objectMethod(proxy, method, args);
+    });
+
+    private static final GameRegistry REGISTRY = proxy(GameRegistry.class, (proxy, method, args) ->
+        method.getName().equals("createValueBuilder") ? VALUE_BUILDER : objectMethod(proxy, method, args));
+
+    private static final Game GAME = proxy(Game.class, (proxy, method, args) ->
+        method.getName().equals("getRegistry") ? REGISTRY : objectMethod(proxy, method, args));
+
+    private StubValues() {
+    }
+
+    public static ValueBuilder valueBuilder() {
+        return VALUE_BUILDER;
+    }
+
+    public static Game game() {
+        return GAME;
+    }
+
+    private static Object value(Key<?> key, Object element, Object defaultValue, boolean mutable) {
+        return mutable ? proxy(Value.class, new ValueHandler(key, element, defaultValue, true))
+                       : proxy(ImmutableValue.class, new ValueHandler(key, element, defaultValue, false));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StubValues.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private static Object objectMethod(Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return "Stub" + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
+
+    private static final class ValueHandler implements InvocationHandler {
+
+        private final Key<?> key;
+        private final Object element;
+        private final Object defaultValue;
+        private final boolean mutable;
+
+        ValueHandler(Key<?> key, Object element, Object defaultValue, boolean mutable) {
+            this.key = key;
+            this.element = element;
+            this.defaultValue = defaultValue;
+            this.mutable = mutable;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "get":
+                    return this.element;
+                case "getKey":
+                    return this.key;
+                case "getDefault":
+                    return this.defaultValue;
+                case "exists":
+                    return true;
+                case "getDirect":
+                    return Optional.of(this.element);
+                case "set":
+                case "with":
+                    return value(this.key, args[0], this.defaultValue, this.mutable);
+                case "transform":
+                    return value(this.key, ((Function<Object, Object>) args[0]).apply(this.element), this.defaultValue, this.mutable);
+                case "asImmutable":
+                    return value(this.key, this.element, this.defaultValue, false);
+                case "asMutable":
+                    return value(this.key, this.element, this.defaultValue, true);
+                case "hashCode":
+                    return Objects.hashCode(this.key, this.element);
+                case "equals":
+                    return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                           && Proxy.getInvocationHandler(args[0]) instanceof ValueHandler
+                           && this.key.equals(((ValueHandler) Proxy.getInvocationHandler(args[0])).key)
+                           && this.element.equals(((ValueHandler) Proxy.getInvocationHandler(args[0])).element);
+                case "toString":
+                    return "StubValue{" + this.key + "=" + this.element + "}";
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+
+}
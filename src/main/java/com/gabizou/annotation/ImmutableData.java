@@ -1,11 +1,18 @@
 package com.gabizou.annotation;
 
+import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+/**
+ * Marks a class as being a specific {@link ImmutableDataManipulator} that is
+ * to be auto-generated. The annotation processor generates a final
+ * {@code <Name>Impl} class and a {@code <Name>Builder} in the same package.
+ */
 @Inherited
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
@@ -0,0 +1,19 @@
+package com.gabizou.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a {@link MutableData} or {@link ImmutableData} class that
+ * is implemented by hand, the generated implementation won't override it.
+ * Only {@code fill}, {@code from}, {@code compareTo} and {@code toContainer}
+ * may be implemented by hand, matched on their full signature, the other
+ * methods are always generated.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.SOURCE)
+public @interface MethodImplementation {
+
+}
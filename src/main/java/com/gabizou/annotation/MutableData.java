@@ -10,7 +10,9 @@ import java.lang.annotation.Target;
 
 /**
  * Marks a class as being a specific {@link DataManipulator} that is to be
- * auto-generated
+ * auto-generated. The annotation processor generates a final {@code <Name>Impl}
+ * class and a {@code <Name>Builder} in the same package, the paired immutable
+ * manipulator must be marked with {@link ImmutableData}.
  */
 @Inherited
 @Target(ElementType.TYPE)
@@ -0,0 +1,24 @@
+package com.gabizou.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an abstract method of a {@link MutableData} or {@link ImmutableData}
+ * class as returning the value for a key. The generated implementation will
+ * store the element of the value as a field.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ValueKey {
+
+    /**
+     * The {@link KeyReference} to the key to gather
+     * type information from.
+     *
+     * @return The key reference
+     */
+    KeyReference value();
+}
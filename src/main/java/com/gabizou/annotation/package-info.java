@@ -0,0 +1,2 @@
+
+@org.spongepowered.api.util.annotation.NonnullByDefault package com.gabizou.annotation;
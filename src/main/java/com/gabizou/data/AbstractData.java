@@ -3,13 +3,14 @@ package com.gabizou.data;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.gabizou.util.GetterFunction;
-import com.gabizou.util.SetterFunction;
+import com.gabizou.util.KeyValueConsumer;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Maps;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import org.spongepowered.api.data.DataHolder;
 import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.manipulator.DataManipulator;
@@ -17,80 +18,213 @@ import org.spongepowered.api.data.merge.MergeFunction;
 import org.spongepowered.api.data.value.BaseValue;
 import org.spongepowered.api.data.value.immutable.ImmutableValue;
 import org.spongepowered.api.data.value.mutable.Value;
+import org.spongepowered.api.service.persistence.InvalidDataException;
 
-import java.util.Map;
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 
 @SuppressWarnings("unchecked")
 public abstract class AbstractData<M extends AbstractData<M, I>, I extends ImmutableAbstractData<I, M>> implements DataManipulator<M, I> {
 
-    private final Class<M> manipulatorClass;
+    private final DataSchema<M, Value<?>> schema;
+    // The immutable values handed out by getValues(), by slot. Created on the
+    // first read and cleared per slot whenever that field is set.
+    @Nullable private ImmutableValue<?>[] valueCache;
+    // The slots changed since the manipulator was created or last cleared,
+    // created on the first change
+    @Nullable private BitSet dirty;
+    // Whether this manipulator is in the free list of a DataPool, to catch
+    // manipulators released twice
+    boolean pooled;
 
-    private final Map<Key<?>, GetterFunction<Value<?>>> keyValueMap = Maps.newHashMap();
-    private final Map<Key<?>, GetterFunction<?>> keyFieldGetters = Maps.newHashMap();
-    private final Map<Key<?>, SetterFunction<Object>> keyFieldSetters = Maps.newHashMap();
+    /**
+     * Creates a new manipulator sharing the given {@link DataSchema}. The
+     * schema should be built once per manipulator class and kept as a
+     * constant, as it is never modified by any instance.
+     *
+     * @param schema The schema for the manipulator class
+     */
+    protected AbstractData(DataSchema<M, Value<?>> schema) {
+        this.schema = checkNotNull(schema);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            metrics.onCreate(schema.getHolderClass());
+        }
+    }
 
-    public AbstractData(Class<M> manipulatorClass) {
-        this.manipulatorClass = checkNotNull(manipulatorClass);
-        registerGettersAndSetters();
+    protected final DataSchema<M, Value<?>> getSchema() {
+        return this.schema;
     }
 
     /**
-     * This is intentionally left abstract and is called in the constructure. Due
-     * to object limitations of the game,
+     * Marks the field of the given {@link Key} as changed, dropping its cached
+     * {@link ImmutableValue} and marking it dirty. All of the setters of this
+     * class do this already, but a public setter of the manipulator itself,
+     * which is called directly rather than through {@link #set(Key, Object)},
+     * must call this after changing its field. The setters registered in the
+     * {@link DataSchema} must not, see {@link DataSchema.Builder#field}.
+     *
+     * @param key The key of which the field was changed
      */
-    protected abstract void registerGettersAndSetters();
+    protected final void markChanged(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        if (slot != DataSchema.NO_SLOT) {
+            markChanged(slot);
+        }
+    }
+
+    // Package-private for the bulk operations, which set the fields through the schema.
+    // Every change of a single field passes through here, so the sets are reported here.
+    final void markChanged(int slot) {
+        if (this.valueCache != null) {
+            this.valueCache[slot] = null;
+        }
+        if (this.dirty == null) {
+            this.dirty = new BitSet(this.schema.size());
+        }
+        this.dirty.set(slot);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            metrics.onSet(this.schema.getHolderClass(), this.schema.getKey(slot));
+        }
+    }
+
+    // Drops the cached values and the changed fields, once a DataPool reset
+    // the fields of this manipulator
+    void clearCaches() {
+        this.valueCache = null;
+        if (this.dirty != null) {
+            this.dirty.clear();
+        }
+    }
 
     /**
-     * Simple registration method for the keys to value return methods.
+     * Checks whether any field was changed since this manipulator was created
+     * or {@link #clearDirty()} was last called.
      *
-     * <p>Note that this is still going to be usable, but will be made simpler
-     * when Java 8 is used, as lambda expressions can refrence methods. The
-     * update won't actually change these registration methods, but the
-     * {@link DataManipulator}s calling these registration methods will
-     * become single line simplifications.</p>
+     * @return True if any field was changed
+     */
+    public final boolean isDirty() {
+        return this.dirty != null && !this.dirty.isEmpty();
+    }
+
+    public final boolean isDirty(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        return slot != DataSchema.NO_SLOT && this.dirty != null && this.dirty.get(slot);
+    }
+
+    /**
+     * Gets the {@link Key}s of which the fields were changed since this
+     * manipulator was created or {@link #clearDirty()} was last called.
      *
-     * @param key The key for the value return type
-     * @param function The function for getting the value
+     * @return The changed keys
+     */
+    public final Set<Key<?>> getDirtyKeys() {
+        if (this.dirty == null) {
+            return ImmutableSet.of();
+        }
+        final ImmutableSet.Builder<Key<?>> builder = ImmutableSet.builder();
+        for (int slot = this.dirty.nextSetBit(0); slot >= 0; slot = this.dirty.nextSetBit(slot + 1)) {
+            builder.add(this.schema.getKey(slot));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Marks all of the fields as unchanged, usually after the manipulator
+     * was saved or synchronized.
      */
-    protected final void registerKeyValue(Key<?> key, GetterFunction<Value<?>> function) {
-        this.keyValueMap.put(checkNotNull(key), checkNotNull(function));
+    public final void clearDirty() {
+        if (this.dirty != null) {
+            this.dirty.clear();
+        }
     }
 
     /**
-     * Simple registration method for the keys to field getter methods.
+     * Gets the exact number of bytes {@link #writeDelta(DataCodec, ByteBuffer)}
+     * will write.
      *
-     * <p>Note that this is still going to be usable, but will be made simpler
-     * when Java 8 is used, as lambda expressions can refrence methods. The
-     * update won't actually change these registration methods, but the
-     * {@link DataManipulator}s calling these registration methods will
-     * become single line simplifications.</p>
+     * @param codec The codec of this manipulator class
+     * @return The number of bytes
+     */
+    public final int sizeOfDelta(DataCodec<M> codec) {
+        checkCodec(codec);
+        return codec.sizeOfDelta((M) this, this.dirty == null ? new BitSet() : this.dirty);
+    }
+
+    /**
+     * Writes the fields changed since this manipulator was created or
+     * {@link #clearDirty()} was last called to the buffer. The changes stay
+     * marked, call {@link #clearDirty()} once the delta is stored.
      *
-     * @param key The key for the value return type
-     * @param function The function for getting the field
+     * @param codec The codec of this manipulator class
+     * @param buffer The buffer to write to
      */
-    protected final void registerFieldGetter(Key<?> key, GetterFunction<?> function) {
-        this.keyFieldGetters.put(checkNotNull(key), checkNotNull(function));
+    public final void writeDelta(DataCodec<M> codec, ByteBuffer buffer) {
+        checkCodec(codec);
+        codec.encodeDelta((M) this, this.dirty == null ? new BitSet() : this.dirty, buffer);
     }
 
     /**
-     * Simple registration method for the keys to field setter methods.
+     * Reads a delta written by {@link #writeDelta(DataCodec, ByteBuffer)}
+     * from the buffer and sets the changed fields on this manipulator, which
+     * marks them as changed here as well.
      *
-     * <p>Note that this is still going to be usable, but will be made simpler
-     * when Java 8 is used, as lambda expressions can refrence methods. The
-     * update won't actually change these registration methods, but the
-     * {@link DataManipulator}s calling these registration methods will
-     * become single line simplifications.</p>
+     * @param codec The codec of this manipulator class
+     * @param buffer The buffer to read from
+     * @return This manipulator, for chaining
+     * @throws InvalidDataException If the delta was written by a different
+     *     schema, or is malformed
+     */
+    public final M applyDelta(DataCodec<M> codec, ByteBuffer buffer) throws InvalidDataException {
+        checkCodec(codec);
+        // The codec marks the fields it decodes as changed
+        codec.decodeDelta(buffer, (M) this);
+        return (M) this;
+    }
+
+    /**
+     * Finds the fields that differ between this manipulator and the given
+     * one, see {@link DataPatch#diff(DataSchema, Object, Object)}.
      *
-     * @param key The key for the value return type
-     * @param function The function for setting the field
+     * @param other The changed manipulator
+     * @return The differing fields, with the values of the given manipulator
      */
-    protected final void registerFieldSetter(Key<?> key, SetterFunction<Object> function) {
-        this.keyFieldSetters.put(checkNotNull(key), checkNotNull(function));
+    public final DataPatch diff(M other) {
+        return DataPatch.diff(this.schema, (M) this, other);
     }
 
+    /**
+     * Sets the fields of the given {@link DataPatch} on this manipulator,
+     * marking them as changed. All of the keys of the patch are checked
+     * before any field is set, so a patch with an unsupported key leaves
+     * this manipulator unchanged.
+     *
+     * @param patch The patch
+     * @return This manipulator, for chaining
+     * @throws IllegalArgumentException If the patch contains a key that isn't
+     *     supported
+     */
+    public final M patch(DataPatch patch) {
+        final int[] slots = new int[patch.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = patch.getSlot(this.schema, i);
+        }
+        for (int i = 0; i < slots.length; i++) {
+            this.schema.set((M) this, slots[i], patch.getValue(i));
+            markChanged(slots[i]);
+        }
+        return (M) this;
+    }
+
+    private void checkCodec(DataCodec<M> codec) {
+        checkArgument(codec.getSchema() == this.schema, "The codec is for a different schema than the one of %s", this.schema.getHolderClass());
+    }
 
     // Beyond this point is all implementation with the getter/setter functions!
 
@@ -101,106 +235,432 @@ public abstract class AbstractData<M extends AbstractData<M, I>, I extends Immut
 
     @Override
     public <E> M set(Key<? extends BaseValue<E>> key, E value) {
-        checkArgument(supports(key), "This data manipulator doesn't support the following key: " + key.toString());
-        this.keyFieldSetters.get(key).set(value);
+        final int slot = checkSlot(key);
+        this.schema.set((M) this, slot, value);
+        markChanged(slot);
         return (M) this;
     }
 
     @Override
     public M set(BaseValue<?> value) {
-        checkArgument(supports(value), "This data manipulator doesn't support the following key: " + value.getKey().toString());
-        this.keyFieldSetters.get(value.getKey()).set(value.get());
+        final int slot = checkSlot(value.getKey());
+        this.schema.set((M) this, slot, value.get());
+        markChanged(slot);
         return (M) this;
     }
 
+    /**
+     * Sets the supported values, ignoring the others. See
+     * {@link #setAll(Iterable, BatchResult.Mode)} to find out which values
+     * weren't supported.
+     */
     @Override
     public M set(BaseValue<?>... values) {
-        for (BaseValue<?> value : checkNotNull(values)) {
-            try {
-                set(value);
-            } catch (IllegalArgumentException e) {
-                e.printStackTrace();
-            }
-        }
+        setAll(values, BatchResult.Mode.BEST_EFFORT);
         return (M) this;
     }
 
+    /**
+     * Sets the supported values, ignoring the others. See
+     * {@link #setAll(Iterable, BatchResult.Mode)} to find out which values
+     * weren't supported.
+     */
     @Override
     public M set(Iterable<? extends BaseValue<?>> values) {
-        for (BaseValue<?> value : checkNotNull(values)) {
-            try {
-                set(value);
-            } catch (IllegalArgumentException e) {
-                e.printStackTrace();
+        setAll(values, BatchResult.Mode.BEST_EFFORT);
+        return (M) this;
+    }
+
+    /**
+     * Sets all of the given values at once. The {@link Key}s of all of the
+     * values are checked first, then the supported values are set, unless
+     * any value is unsupported in {@link BatchResult.Mode#ALL_OR_NOTHING}.
+     *
+     * <p>In {@link BatchResult.Mode#ALL_OR_NOTHING}, a setter throwing part
+     * way through the batch also puts back the fields set before it, after
+     * which the exception is rethrown, with any failure to put a field back
+     * suppressed by it. The fields are only marked as changed once all of
+     * them were set. In {@link BatchResult.Mode#BEST_EFFORT} the fields set
+     * before it are kept.</p>
+     *
+     * @param values The values
+     * @param mode How to handle unsupported values
+     * @return The result, describing the unsupported values
+     */
+    public final BatchResult setAll(Iterable<? extends BaseValue<?>> values, BatchResult.Mode mode) {
+        return setAll(Iterables.toArray(checkNotNull(values), BaseValue.class), mode);
+    }
+
+    /**
+     * Sets all of the given values at once, see
+     * {@link #setAll(Iterable, BatchResult.Mode)}.
+     *
+     * @param values The values
+     * @param mode How to handle unsupported values
+     * @return The result, describing the unsupported values
+     */
+    public final BatchResult setAll(BaseValue<?>[] values, BatchResult.Mode mode) {
+        checkNotNull(mode);
+        final int[] slots = new int[values.length];
+        List<Key<?>> rejected = ImmutableList.of();
+        for (int i = 0; i < values.length; i++) {
+            final Key<?> key = checkNotNull(values[i], "value").getKey();
+            slots[i] = this.schema.getSlot(key);
+            if (slots[i] == DataSchema.NO_SLOT) {
+                if (rejected.isEmpty()) {
+                    rejected = Lists.newArrayList();
+                }
+                rejected.add(key);
+                recordRejected(key);
             }
         }
-        return (M) this;
+        if (mode == BatchResult.Mode.ALL_OR_NOTHING) {
+            if (!rejected.isEmpty()) {
+                return BatchResult.of(0, rejected);
+            }
+            setAllOrNothing(values, slots);
+            return BatchResult.of(values.length, rejected);
+        }
+        int applied = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (slots[i] != DataSchema.NO_SLOT) {
+                this.schema.set((M) this, slots[i], values[i].get());
+                markChanged(slots[i]);
+                applied++;
+            }
+        }
+        return BatchResult.of(applied, rejected);
+    }
+
+    private void setAllOrNothing(BaseValue<?>[] values, int[] slots) {
+        final Object[] previous = new Object[values.length];
+        // The number of fields of which the previous value was read, which
+        // are all put back if anything throws
+        int captured = 0;
+        try {
+            for (int i = 0; i < values.length; i++) {
+                previous[i] = this.schema.get((M) this, slots[i]);
+                captured++;
+                this.schema.set((M) this, slots[i], values[i].get());
+            }
+        } catch (RuntimeException e) {
+            // Put back in reverse, so a key given twice gets its original
+            // value, including the field of the setter that threw
+            for (int i = captured - 1; i >= 0; i--) {
+                try {
+                    this.schema.set((M) this, slots[i], previous[i]);
+                } catch (RuntimeException rollback) {
+                    e.addSuppressed(rollback);
+                }
+            }
+            throw e;
+        }
+        // Only marked once every field was set, so a failed batch leaves the
+        // dirty fields and the reported sets as they were
+        for (int slot : slots) {
+            markChanged(slot);
+        }
     }
 
     @Override
     public <E> M transform(Key<? extends BaseValue<E>> key, Function<E, E> function) {
-        checkArgument(supports(key));
-        this.keyFieldSetters.get(key).set(checkNotNull(function.apply((E) this.keyFieldGetters.get(key).get())));
+        final int slot = checkSlot(key);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            metrics.onTransform(this.schema.getHolderClass(), key);
+        }
+        this.schema.set((M) this, slot, checkNotNull(function.apply((E) this.schema.get((M) this, slot))));
+        markChanged(slot);
         return (M) this;
     }
 
     @Override
     public <E> Optional<E> get(Key<? extends BaseValue<E>> key) {
-        if (!supports(key)) {
+        final int slot = this.schema.getSlot(key);
+        recordRead(slot, key);
+        if (slot == DataSchema.NO_SLOT) {
             return Optional.absent();
         }
-        return Optional.of((E) this.keyFieldGetters.get(key).get());
+        return Optional.of((E) this.schema.get((M) this, slot));
     }
 
+    // getOrNull and getOrElse read the field directly instead of going through
+    // get(Key), so no Optional is created on either path.
     @Nullable
     @Override
     public <E> E getOrNull(Key<? extends BaseValue<E>> key) {
-        return get(key).orNull();
+        final int slot = this.schema.getSlot(key);
+        recordRead(slot, key);
+        return slot == DataSchema.NO_SLOT ? null : (E) this.schema.get((M) this, slot);
     }
 
     @Override
     public <E> E getOrElse(Key<? extends BaseValue<E>> key, E defaultValue) {
-        return get(key).or(checkNotNull(defaultValue));
+        checkNotNull(defaultValue);
+        final int slot = this.schema.getSlot(key);
+        recordRead(slot, key);
+        if (slot == DataSchema.NO_SLOT) {
+            return defaultValue;
+        }
+        final E value = (E) this.schema.get((M) this, slot);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Gets the {@code boolean} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#booleanField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final boolean getBoolean(Key<? extends BaseValue<Boolean>> key) {
+        return this.schema.getBoolean((M) this, readSlot(key));
+    }
+
+    /**
+     * Sets the {@code boolean} value for the given {@link Key}. The value isn't
+     * boxed, provided the field was registered with
+     * {@link DataSchema.Builder#booleanField}.
+     *
+     * @param key The key
+     * @param value The value
+     * @return This manipulator, for chaining
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final M setBoolean(Key<? extends BaseValue<Boolean>> key, boolean value) {
+        final int slot = checkSlot(key);
+        this.schema.setBoolean((M) this, slot, value);
+        markChanged(slot);
+        return (M) this;
+    }
+
+    /**
+     * Gets the {@code int} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#intField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final int getInt(Key<? extends BaseValue<Integer>> key) {
+        return this.schema.getInt((M) this, readSlot(key));
+    }
+
+    /**
+     * Sets the {@code int} value for the given {@link Key}. The value isn't
+     * boxed, provided the field was registered with
+     * {@link DataSchema.Builder#intField}.
+     *
+     * @param key The key
+     * @param value The value
+     * @return This manipulator, for chaining
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final M setInt(Key<? extends BaseValue<Integer>> key, int value) {
+        final int slot = checkSlot(key);
+        this.schema.setInt((M) this, slot, value);
+        markChanged(slot);
+        return (M) this;
+    }
+
+    /**
+     * Gets the {@code long} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#longField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final long getLong(Key<? extends BaseValue<Long>> key) {
+        return this.schema.getLong((M) this, readSlot(key));
+    }
+
+    /**
+     * Sets the {@code long} value for the given {@link Key}. The value isn't
+     * boxed, provided the field was registered with
+     * {@link DataSchema.Builder#longField}.
+     *
+     * @param key The key
+     * @param value The value
+     * @return This manipulator, for chaining
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final M setLong(Key<? extends BaseValue<Long>> key, long value) {
+        final int slot = checkSlot(key);
+        this.schema.setLong((M) this, slot, value);
+        markChanged(slot);
+        return (M) this;
+    }
+
+    /**
+     * Gets the {@code double} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#doubleField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final double getDouble(Key<? extends BaseValue<Double>> key) {
+        return this.schema.getDouble((M) this, readSlot(key));
+    }
+
+    /**
+     * Sets the {@code double} value for the given {@link Key}. The value isn't
+     * boxed, provided the field was registered with
+     * {@link DataSchema.Builder#doubleField}.
+     *
+     * @param key The key
+     * @param value The value
+     * @return This manipulator, for chaining
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final M setDouble(Key<? extends BaseValue<Double>> key, double value) {
+        final int slot = checkSlot(key);
+        this.schema.setDouble((M) this, slot, value);
+        markChanged(slot);
+        return (M) this;
+    }
+
+    private int checkSlot(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        if (slot == DataSchema.NO_SLOT) {
+            recordRejected(key);
+        }
+        checkArgument(slot != DataSchema.NO_SLOT, "This data manipulator doesn't support the following key: %s", key);
+        return slot;
+    }
+
+    private int readSlot(Key<?> key) {
+        final int slot = checkSlot(key);
+        recordRead(slot, key);
+        return slot;
+    }
+
+    // Reports a read of the given key to the metrics, if any are installed
+    private void recordRead(int slot, Key<?> key) {
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            if (slot == DataSchema.NO_SLOT) {
+                metrics.onRejected(this.schema.getHolderClass(), key);
+            } else {
+                metrics.onGet(this.schema.getHolderClass(), key);
+            }
+        }
+    }
+
+    private void recordRejected(Key<?> key) {
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            metrics.onRejected(this.schema.getHolderClass(), key);
+        }
     }
 
     @Override
     public <E, V extends BaseValue<E>> Optional<V> getValue(Key<V> key) {
-        if (!this.keyValueMap.containsKey(key)) {
-            return Optional.absent();
+        final int slot = this.schema.getSlot(key);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            if (slot == DataSchema.NO_SLOT) {
+                metrics.onRejected(this.schema.getHolderClass(), key);
+            } else {
+                metrics.onGetValue(this.schema.getHolderClass(), key);
+            }
         }
-        return Optional.of((V) checkNotNull(this.keyValueMap.get(key).get()));
+        final Value<?> value = slot == DataSchema.NO_SLOT ? null : this.schema.getValue((M) this, slot);
+        return Optional.fromNullable((V) value);
     }
 
     @Override
     public boolean supports(Key<?> key) {
-        return this.keyFieldSetters.containsKey(checkNotNull(key));
+        return this.schema.supports(key);
     }
 
     @Override
     public boolean supports(BaseValue<?> baseValue) {
-        return this.keyFieldSetters.containsKey(checkNotNull(baseValue.getKey()));
+        return this.schema.supports(checkNotNull(baseValue).getKey());
     }
 
     @Override
     public Set<Key<?>> getKeys() {
-        return ImmutableSet.copyOf(this.keyFieldSetters.keySet());
+        return this.schema.getKeys();
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s to the given consumer, in the
+     * order they were registered, without creating a collection.
+     *
+     * @param consumer The consumer
+     */
+    public final void forEachKey(Consumer<? super Key<?>> consumer) {
+        this.schema.forEachKey(checkNotNull(consumer));
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s and their field values to the
+     * given consumer, in the order they were registered, without creating a
+     * collection or any {@link BaseValue}s.
+     *
+     * @param consumer The consumer
+     */
+    public final void forEachRaw(KeyValueConsumer consumer) {
+        this.schema.forEachRaw((M) this, checkNotNull(consumer));
     }
 
     @Override
     public Set<ImmutableValue<?>> getValues() {
         ImmutableSet.Builder<ImmutableValue<?>> builder = ImmutableSet.builder();
-        for (GetterFunction<Value<?>> function : this.keyValueMap.values()) {
-            builder.add(checkNotNull(function.get()).asImmutable());
+        for (int slot = 0; slot < this.schema.size(); slot++) {
+            final ImmutableValue<?> value = getImmutableValue(slot);
+            if (value != null) {
+                builder.add(value);
+            }
         }
         return builder.build();
     }
 
+    // Only the immutable values are cached, the mutable values returned by
+    // getValue(Key) may be changed by the caller so a new one is created for
+    // every call.
+    @Nullable
+    private ImmutableValue<?> getImmutableValue(int slot) {
+        ImmutableValue<?>[] cache = this.valueCache;
+        if (cache == null) {
+            cache = this.valueCache = new ImmutableValue<?>[this.schema.size()];
+        }
+        ImmutableValue<?> value = cache[slot];
+        if (value == null) {
+            final Value<?> mutable = this.schema.getValue((M) this, slot);
+            if (mutable != null) {
+                value = cache[slot] = mutable.asImmutable();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Hashes the values of all of the fields registered in the
+     * {@link DataSchema}. As the manipulator is mutable, the hash is computed
+     * on every call.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.manipulatorClass);
+        int hash = this.schema.getHolderClass().hashCode();
+        for (int slot = 0; slot < this.schema.size(); slot++) {
+            hash = 31 * hash + Objects.hashCode(this.schema.get((M) this, slot));
+        }
+        return hash;
     }
 
-    @SuppressWarnings("rawtypes")
+    /**
+     * Checks whether the given object is a manipulator of the same class of
+     * which the values of all of the fields registered in the
+     * {@link DataSchema} are equal.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -209,8 +669,13 @@ public abstract class AbstractData<M extends AbstractData<M, I>, I extends Immut
         if (obj == null || getClass() != obj.getClass()) {
             return false;
         }
-        final AbstractData other = (AbstractData) obj;
-        return Objects.equal(this.manipulatorClass, other.manipulatorClass);
+        final AbstractData<?, ?> other = (AbstractData<?, ?>) obj;
+        for (int slot = 0; slot < this.schema.size(); slot++) {
+            if (!Objects.equal(this.schema.get((M) this, slot), this.schema.get((M) other, slot))) {
+                return false;
+            }
+        }
+        return true;
     }
 
 }
@@ -0,0 +1,286 @@
+package com.gabizou.data;
+
+import static org.objectweb.asm.Opcodes.ACC_FINAL;
+import static org.objectweb.asm.Opcodes.ACC_PUBLIC;
+import static org.objectweb.asm.Opcodes.ACC_SUPER;
+import static org.objectweb.asm.Opcodes.ACC_SYNTHETIC;
+import static org.objectweb.asm.Opcodes.ALOAD;
+import static org.objectweb.asm.Opcodes.ARETURN;
+import static org.objectweb.asm.Opcodes.CHECKCAST;
+import static org.objectweb.asm.Opcodes.ILOAD;
+import static org.objectweb.asm.Opcodes.INVOKEINTERFACE;
+import static org.objectweb.asm.Opcodes.INVOKESPECIAL;
+import static org.objectweb.asm.Opcodes.INVOKESTATIC;
+import static org.objectweb.asm.Opcodes.INVOKEVIRTUAL;
+import static org.objectweb.asm.Opcodes.RETURN;
+import static org.objectweb.asm.Opcodes.V1_8;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
+
+import java.io.Serializable;
+import java.lang.invoke.MethodHandleInfo;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.SerializedLambda;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+/**
+ * Spins a {@link SchemaAccessor} subclass for a {@link DataSchema} at runtime.
+ *
+ * <p>Every registered function that is a plain method reference to a public
+ * method of the holder, such as {@code FooData::getFoo}, is resolved through
+ * its {@link SerializedLambda}, and the generated accessor calls that method
+ * directly from a {@code tableswitch} on the slot. Anything else, such as
+ * capturing lambdas, falls back to calling the registered function.</p>
+ */
+final class AccessorGenerator {
+
+    private static final String ACCESSOR = Type.getInternalName(SchemaAccessor.class);
+    private static final String GET_DESCRIPTOR = "(Ljava/lang/Object;I)Ljava/lang/Object;";
+    private static final String SET_DESCRIPTOR = "(Ljava/lang/Object;ILjava/lang/Object;)V";
+    private static final AtomicInteger counter = new AtomicInteger();
+
+    private AccessorGenerator() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <H> SchemaAccessor<H> generate(DataSchema<H, ?> schema) {
+        final Class<H> holderClass = schema.getHolderClass();
+        final int size = schema.size();
+        final Target[] getters = new Target[size];
+        final Target[] setters = new Target[size];
+        final Target[] values = new Target[size];
+        for (int slot = 0; slot < size; slot++) {
+            getters[slot] = resolve(holderClass, first(schema.getPrimitiveGetter(slot), schema.getFieldGetter(slot)), 0);
+            setters[slot] = resolve(holderClass, first(schema.getPrimitiveSetter(slot), schema.getFieldSetter(slot)), 1);
+            values[slot] = resolve(holderClass, schema.getValueGetter(slot), 0);
+        }
+
+        final String name = "com/gabizou/data/generated/" + holderClass.getSimpleName() + "Accessor" + counter.incrementAndGet();
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+        writer.visit(V1_8, ACC_PUBLIC | ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, ACCESSOR, null);
+
+        final MethodVisitor constructor = writer.visitMethod(ACC_PUBLIC, "<init>", "(L" + Type.getInternalName(DataSchema.class) + ";)V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(ALOAD, 0);
+        constructor.visitVarInsn(ALOAD, 1);
+        constructor.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "<init>", "(L" + Type.getInternalName(DataSchema.class) + ";)V", false);
+        constructor.visitInsn(RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        writeGetter(writer, "get", getters);
+        writeGetter(writer, "getValue", values);
+        writeSetter(writer, setters);
+        writer.visitEnd();
+
+        try {
+            final Class<?> accessorClass = new GeneratedClassLoader(holderClass.getClassLoader()).define(name.replace('/', '.'), writer.toByteArray());
+            return (SchemaAccessor<H>) accessorClass.getConstructor(DataSchema.class).newInstance(schema);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to generate the accessor for " + holderClass, e);
+        }
+    }
+
+    private static void writeGetter(ClassWriter writer, String methodName, Target[] targets) {
+        final MethodVisitor method = writer.visitMethod(ACC_PUBLIC, methodName, GET_DESCRIPTOR, null, null);
+        method.visitCode();
+        final Label fallback = new Label();
+        final Label[] labels = switchOn(method, targets, fallback);
+        for (int slot = 0; slot < targets.length; slot++) {
+            final Target target = targets[slot];
+            if (target == null) {
+                continue;
+            }
+            method.visitLabel(labels[slot]);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitTypeInsn(CHECKCAST, target.owner);
+            target.invoke(method);
+            box(method, target.valueType);
+            method.visitInsn(ARETURN);
+        }
+        method.visitLabel(fallback);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ILOAD, 2);
+        method.visitMethodInsn(INVOKESPECIAL, ACCESSOR, methodName, GET_DESCRIPTOR, false);
+        method.visitInsn(ARETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static void writeSetter(ClassWriter writer, Target[] targets) {
+        final MethodVisitor method = writer.visitMethod(ACC_PUBLIC, "set", SET_DESCRIPTOR, null, null);
+        method.visitCode();
+        final Label fallback = new Label();
+        final Label[] labels = switchOn(method, targets, fallback);
+        for (int slot = 0; slot < targets.length; slot++) {
+            final Target target = targets[slot];
+            if (target == null) {
+                continue;
+            }
+            method.visitLabel(labels[slot]);
+            method.visitVarInsn(ALOAD, 1);
+            method.visitTypeInsn(CHECKCAST, target.owner);
+            method.visitVarInsn(ALOAD, 3);
+            unbox(method, target.valueType);
+            target.invoke(method);
+            method.visitInsn(RETURN);
+        }
+        method.visitLabel(fallback);
+        method.visitVarInsn(ALOAD, 0);
+        method.visitVarInsn(ALOAD, 1);
+        method.visitVarInsn(ILOAD, 2);
+        method.visitVarInsn(ALOAD, 3);
+        method.visitMethodInsn(INVOKESPECIAL, ACCESSOR, "set", SET_DESCRIPTOR, false);
+        method.visitInsn(RETURN);
+        method.visitMaxs(0, 0);
+        method.visitEnd();
+    }
+
+    private static Label[] switchOn(MethodVisitor method, Target[] targets, Label fallback) {
+        final Label[] labels = new Label[targets.length];
+        for (int slot = 0; slot < targets.length; slot++) {
+            labels[slot] = targets[slot] == null ? fallback : new Label();
+        }
+        if (targets.length > 0) {
+            method.visitVarInsn(ILOAD, 2);
+            method.visitTableSwitchInsn(0, targets.length - 1, fallback, labels);
+        }
+        return labels;
+    }
+
+    private static void box(MethodVisitor method, Class<?> type) {
+        if (type.isPrimitive()) {
+            final Type primitive = Type.getType(type);
+            final String wrapper = wrapper(type);
+            method.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + primitive.getDescriptor() + ")L" + wrapper + ";", false);
+        }
+    }
+
+    private static void unbox(MethodVisitor method, Class<?> type) {
+        if (type.isPrimitive()) {
+            final String wrapper = wrapper(type);
+            method.visitTypeInsn(CHECKCAST, wrapper);
+            method.visitMethodInsn(INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + Type.getType(type).getDescriptor(), false);
+        } else if (type != Object.class) {
+            method.visitTypeInsn(CHECKCAST, Type.getInternalName(type));
+        }
+    }
+
+    private static String wrapper(Class<?> primitive) {
+        switch (Type.getType(primitive).getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + primitive);
+        }
+    }
+
+    @Nullable
+    private static Object first(@Nullable Object primitive, @Nullable Object function) {
+        return primitive != null ? primitive : function;
+    }
+
+    @Nullable
+    private static Target resolve(Class<?> holderClass, @Nullable Object function, int parameterCount) {
+        final SerializedLambda lambda = serialize(function);
+        if (lambda == null || lambda.getCapturedArgCount() != 0) {
+            return null;
+        }
+        final int kind = lambda.getImplMethodKind();
+        if (kind != MethodHandleInfo.REF_invokeVirtual && kind != MethodHandleInfo.REF_invokeInterface) {
+            return null;
+        }
+        try {
+            final ClassLoader loader = holderClass.getClassLoader();
+            final Class<?> owner = Class.forName(lambda.getImplClass().replace('/', '.'), false, loader);
+            if (!Modifier.isPublic(owner.getModifiers()) || !owner.isAssignableFrom(holderClass)) {
+                return null;
+            }
+            final MethodType type = MethodType.fromMethodDescriptorString(lambda.getImplMethodSignature(), loader);
+            if (type.parameterCount() != parameterCount) {
+                return null;
+            }
+            // Only public methods are found, the generated class lives in its own class loader
+            final Method method = owner.getMethod(lambda.getImplMethodName(), type.parameterArray());
+            final Class<?> valueType = parameterCount == 0 ? method.getReturnType() : method.getParameterTypes()[0];
+            return new Target(lambda.getImplClass(), method.getName(), lambda.getImplMethodSignature(), owner.isInterface(), valueType);
+        } catch (ClassNotFoundException | NoSuchMethodException | TypeNotPresentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static SerializedLambda serialize(@Nullable Object function) {
+        if (!(function instanceof Serializable)) {
+            return null;
+        }
+        try {
+            final Method writeReplace = function.getClass().getDeclaredMethod("writeReplace");
+            writeReplace.setAccessible(true);
+            final Object replacement = writeReplace.invoke(function);
+            return replacement instanceof SerializedLambda ? (SerializedLambda) replacement : null;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static final class Target {
+
+        final String owner;
+        final String name;
+        final String descriptor;
+        final boolean isInterface;
+        final Class<?> valueType;
+
+        Target(String owner, String name, String descriptor, boolean isInterface, Class<?> valueType) {
+            this.owner = owner;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.isInterface = isInterface;
+            this.valueType = valueType;
+        }
+
+        void invoke(MethodVisitor method) {
+            method.visitMethodInsn(this.isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL, this.owner, this.name, this.descriptor, this.isInterface);
+        }
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+
+}
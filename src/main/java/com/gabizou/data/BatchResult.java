@@ -0,0 +1,79 @@
+package com.gabizou.data;
+
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.data.key.Key;
+
+import java.util.List;
+
+/**
+ * The result of setting several values at once with
+ * {@link AbstractData#setAll(Iterable, Mode)}.
+ */
+public final class BatchResult {
+
+    /**
+     * How unsupported {@link Key}s are handled by a batch.
+     */
+    public enum Mode {
+        /**
+         * The supported values are set, the others are rejected.
+         */
+        BEST_EFFORT,
+        /**
+         * No value is set if any of the values is rejected, or if setting
+         * any of them throws.
+         */
+        ALL_OR_NOTHING
+    }
+
+    private static final BatchResult EMPTY = new BatchResult(0, ImmutableList.<Key<?>>of());
+
+    static BatchResult of(int applied, List<Key<?>> rejected) {
+        if (applied == 0 && rejected.isEmpty()) {
+            return EMPTY;
+        }
+        return new BatchResult(applied, ImmutableList.copyOf(rejected));
+    }
+
+    private final int applied;
+    private final ImmutableList<Key<?>> rejected;
+
+    private BatchResult(int applied, ImmutableList<Key<?>> rejected) {
+        this.applied = applied;
+        this.rejected = rejected;
+    }
+
+    /**
+     * Checks whether every value was set.
+     *
+     * @return True if no value was rejected
+     */
+    public boolean isSuccess() {
+        return this.rejected.isEmpty();
+    }
+
+    /**
+     * Gets the number of values that were set.
+     *
+     * @return The number of values
+     */
+    public int getAppliedCount() {
+        return this.applied;
+    }
+
+    /**
+     * Gets the {@link Key}s of the values that weren't supported, in the order
+     * they were given.
+     *
+     * @return The rejected keys
+     */
+    public List<Key<?>> getRejectedKeys() {
+        return this.rejected;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{applied=" + this.applied + ", rejected=" + this.rejected + "}";
+    }
+
+}
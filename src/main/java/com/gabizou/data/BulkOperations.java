@@ -0,0 +1,375 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Transforms and queries a {@link Key} across a list of manipulators of the
+ * same class, splitting the list over a {@link ForkJoinPool}.
+ *
+ * <p>The slot of the key is looked up once per operation, after which every
+ * manipulator is read and written through the {@link DataSchema} directly,
+ * the primitive fields without boxing. Lists smaller than the threshold are
+ * handled by the calling thread.</p>
+ *
+ * <p>The transformations require mutable manipulators, and mark the changed
+ * fields of {@link AbstractData}s as changed. Each manipulator must only
+ * occur once in the list, and the list must not be changed while an
+ * operation is running.</p>
+ *
+ * @param <H> The type of manipulator
+ */
+public final class BulkOperations<H> {
+
+    /**
+     * The default number of manipulators below which a list isn't split.
+     */
+    public static final int DEFAULT_THRESHOLD = 1024;
+
+    /**
+     * Creates the bulk operations for the given schema, running in the
+     * common {@link ForkJoinPool}.
+     *
+     * @param schema The schema
+     * @param <H> The type of manipulator
+     * @return The bulk operations
+     */
+    public static <H> BulkOperations<H> of(DataSchema<H, ?> schema) {
+        return new BulkOperations<>(checkNotNull(schema), ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+    }
+
+    private final DataSchema<H, ?> schema;
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private BulkOperations(DataSchema<H, ?> schema, ForkJoinPool pool, int threshold) {
+        this.schema = schema;
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Gets bulk operations running in the given pool instead.
+     *
+     * @param pool The pool
+     * @return The bulk operations
+     */
+    public BulkOperations<H> withPool(ForkJoinPool pool) {
+        return new BulkOperations<>(this.schema, checkNotNull(pool), this.threshold);
+    }
+
+    /**
+     * Gets bulk operations splitting lists down to the given number of
+     * manipulators instead.
+     *
+     * @param threshold The number of manipulators below which a list isn't split
+     * @return The bulk operations
+     */
+    public BulkOperations<H> withThreshold(int threshold) {
+        checkArgument(threshold > 0, "The threshold must be positive, but was: %s", threshold);
+        return new BulkOperations<>(this.schema, this.pool, threshold);
+    }
+
+    /**
+     * Replaces the value of the given {@link Key} of every manipulator, like
+     * {@link AbstractData#transform(Key, Function)}.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param function The function computing the new value from the old one
+     * @param <E> The type of value
+     */
+    @SuppressWarnings("unchecked")
+    public <E> void transformAll(List<? extends H> data, Key<? extends BaseValue<E>> key, Function<E, E> function) {
+        final int slot = slot(key);
+        checkNotNull(function);
+        run(data, (list, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final H holder = list.get(i);
+                this.schema.set(holder, slot, checkNotNull(function.apply((E) this.schema.get(holder, slot))));
+                changed(holder, slot);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Replaces the {@code int} value of the given {@link Key} of every
+     * manipulator, without boxing.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param function The function computing the new value from the old one
+     */
+    public void transformInts(List<? extends H> data, Key<? extends BaseValue<Integer>> key, IntUnaryOperator function) {
+        final int slot = slot(key);
+        checkNotNull(function);
+        run(data, (list, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final H holder = list.get(i);
+                this.schema.setInt(holder, slot, function.applyAsInt(this.schema.getInt(holder, slot)));
+                changed(holder, slot);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Replaces the {@code long} value of the given {@link Key} of every
+     * manipulator, without boxing.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param function The function computing the new value from the old one
+     */
+    public void transformLongs(List<? extends H> data, Key<? extends BaseValue<Long>> key, LongUnaryOperator function) {
+        final int slot = slot(key);
+        checkNotNull(function);
+        run(data, (list, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final H holder = list.get(i);
+                this.schema.setLong(holder, slot, function.applyAsLong(this.schema.getLong(holder, slot)));
+                changed(holder, slot);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Replaces the {@code double} value of the given {@link Key} of every
+     * manipulator, without boxing.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param function The function computing the new value from the old one
+     */
+    public void transformDoubles(List<? extends H> data, Key<? extends BaseValue<Double>> key, DoubleUnaryOperator function) {
+        final int slot = slot(key);
+        checkNotNull(function);
+        run(data, (list, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final H holder = list.get(i);
+                this.schema.setDouble(holder, slot, function.applyAsDouble(this.schema.getDouble(holder, slot)));
+                changed(holder, slot);
+            }
+            return null;
+        }, (left, right) -> null);
+    }
+
+    /**
+     * Gets the manipulators of which the value of the given {@link Key}
+     * matches the predicate, in the order of the list.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param predicate The predicate
+     * @param <E> The type of value
+     * @return The matching manipulators
+     */
+    @SuppressWarnings("unchecked")
+    public <E> List<H> filter(List<? extends H> data, Key<? extends BaseValue<E>> key, Predicate<? super E> predicate) {
+        final int slot = slot(key);
+        checkNotNull(predicate);
+        return run(data, (list, from, to) -> {
+            final List<H> matches = Lists.newArrayList();
+            for (int i = from; i < to; i++) {
+                final H holder = list.get(i);
+                if (predicate.test((E) this.schema.get(holder, slot))) {
+                    matches.add(holder);
+                }
+            }
+            return matches;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+    }
+
+    /**
+     * Counts the manipulators of which the value of the given {@link Key}
+     * matches the predicate.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param predicate The predicate
+     * @param <E> The type of value
+     * @return The number of matching manipulators
+     */
+    @SuppressWarnings("unchecked")
+    public <E> long count(List<? extends H> data, Key<? extends BaseValue<E>> key, Predicate<? super E> predicate) {
+        final int slot = slot(key);
+        checkNotNull(predicate);
+        return run(data, (list, from, to) -> {
+            long count = 0;
+            for (int i = from; i < to; i++) {
+                if (predicate.test((E) this.schema.get(list.get(i), slot))) {
+                    count++;
+                }
+            }
+            return count;
+        }, Long::sum);
+    }
+
+    /**
+     * Sums the {@code int} values of the given {@link Key}, into a
+     * {@code long} so the sum doesn't overflow.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @return The sum
+     */
+    public long sumInts(List<? extends H> data, Key<? extends BaseValue<Integer>> key) {
+        final int slot = slot(key);
+        return run(data, (list, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += this.schema.getInt(list.get(i), slot);
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    /**
+     * Sums the {@code long} values of the given {@link Key}. The sum
+     * overflows the same as adding the values up one by one.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @return The sum
+     */
+    public long sumLongs(List<? extends H> data, Key<? extends BaseValue<Long>> key) {
+        final int slot = slot(key);
+        return run(data, (list, from, to) -> {
+            long sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += this.schema.getLong(list.get(i), slot);
+            }
+            return sum;
+        }, Long::sum);
+    }
+
+    /**
+     * Sums the {@code double} values of the given {@link Key}. As the parts
+     * of the list are summed separately, the rounding may differ slightly
+     * from adding the values up one by one.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @return The sum
+     */
+    public double sumDoubles(List<? extends H> data, Key<? extends BaseValue<Double>> key) {
+        final int slot = slot(key);
+        return run(data, (list, from, to) -> {
+            double sum = 0;
+            for (int i = from; i < to; i++) {
+                sum += this.schema.getDouble(list.get(i), slot);
+            }
+            return sum;
+        }, Double::sum);
+    }
+
+    /**
+     * Aggregates the values of the given {@link Key} of every manipulator.
+     * Each part of the list is accumulated starting from a new identity,
+     * after which the parts are combined, so the results may be mutable
+     * containers.
+     *
+     * @param data The manipulators
+     * @param key The key
+     * @param identity Creates the initial result of every part
+     * @param accumulator The function adding a value to a result
+     * @param combiner The function combining the results of two parts
+     * @param <E> The type of value
+     * @param <R> The type of result
+     * @return The result
+     */
+    @SuppressWarnings("unchecked")
+    public <E, R> R aggregate(List<? extends H> data, Key<? extends BaseValue<E>> key, Supplier<? extends R> identity, BiFunction<R, ? super E, R> accumulator,
+        BinaryOperator<R> combiner) {
+        final int slot = slot(key);
+        checkNotNull(identity);
+        checkNotNull(accumulator);
+        checkNotNull(combiner);
+        return run(data, (list, from, to) -> {
+            R result = identity.get();
+            for (int i = from; i < to; i++) {
+                result = accumulator.apply(result, (E) this.schema.get(list.get(i), slot));
+            }
+            return result;
+        }, combiner);
+    }
+
+    private int slot(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        checkArgument(slot != DataSchema.NO_SLOT, "The manipulators don't support the following key: %s", key);
+        return slot;
+    }
+
+    private static void changed(Object holder, int slot) {
+        if (holder instanceof AbstractData) {
+            ((AbstractData<?, ?>) holder).markChanged(slot);
+        }
+    }
+
+    private <R> R run(List<? extends H> data, Range<H, R> range, BinaryOperator<R> combiner) {
+        final List<? extends H> list = data instanceof RandomAccess ? data : Lists.newArrayList(data);
+        if (list.size() <= this.threshold) {
+            return range.apply(list, 0, list.size());
+        }
+        return this.pool.invoke(new RangeTask<>(list, 0, list.size(), range, combiner));
+    }
+
+    private interface Range<H, R> {
+
+        R apply(List<? extends H> list, int from, int to);
+    }
+
+    private final class RangeTask<R> extends RecursiveTask<R> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<? extends H> list;
+        private final int from;
+        private final int to;
+        private final Range<H, R> range;
+        private final BinaryOperator<R> combiner;
+
+        RangeTask(List<? extends H> list, int from, int to, Range<H, R> range, BinaryOperator<R> combiner) {
+            this.list = list;
+            this.from = from;
+            this.to = to;
+            this.range = range;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (this.to - this.from <= BulkOperations.this.threshold) {
+                return this.range.apply(this.list, this.from, this.to);
+            }
+            final int middle = (this.from + this.to) >>> 1;
+            final RangeTask<R> left = new RangeTask<>(this.list, this.from, middle, this.range, this.combiner);
+            left.fork();
+            final R right = new RangeTask<>(this.list, middle, this.to, this.range, this.combiner).compute();
+            return this.combiner.apply(left.join(), right);
+        }
+    }
+
+}
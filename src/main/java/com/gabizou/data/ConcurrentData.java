@@ -0,0 +1,177 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.GetterFunction;
+import com.gabizou.util.SetterFunction;
+import com.google.common.collect.ImmutableSet;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * An {@link AbstractData} that can be read from any thread while it is
+ * written to by a single other thread.
+ *
+ * <p>The field values are kept in an {@link AtomicReferenceArray} rather than
+ * in fields of the manipulator class, so reading a single {@link Key} never
+ * blocks. Reading several keys consistently is done with {@link #snapshot()},
+ * which is guarded by a sequence lock: every write bumps a version before
+ * and after changing the values, and a snapshot is retried until it was
+ * taken without any write in between.</p>
+ *
+ * <p>Only a single thread, such as the main thread, may write at a time. The
+ * setters of {@link AbstractData} update the value cache and the dirty
+ * tracking outside of any lock, and {@link #transform} reads
+ * and writes the field separately, so concurrent writers may lose updates.
+ * The lock taken by every write only orders it with {@link #batch(Consumer)},
+ * and is never contended with a single writer.</p>
+ *
+ * <p>Several writes can be made visible to snapshots at once through
+ * {@link #batch(Consumer)}. The dirty tracking and the deltas of
+ * {@link AbstractData} should only be used by the writing thread, and
+ * {@link #forEachRaw} reads each field on its own, unlike a snapshot.</p>
+ *
+ * <p>The field getters and setters are registered by
+ * {@link #schema(Class, Key[])}, so only the value getters are left to the
+ * manipulator, which should read the fields through {@link #get(Key)}.</p>
+ *
+ * @param <M> The mutable manipulator type
+ * @param <I> The immutable manipulator type
+ */
+@SuppressWarnings("unchecked")
+public abstract class ConcurrentData<M extends ConcurrentData<M, I>, I extends ImmutableAbstractData<I, M>> extends AbstractData<M, I> {
+
+    /**
+     * Creates a new {@link DataSchema.Builder} with the field getters and
+     * setters for the given {@link Key}s registered, reading and writing the
+     * atomic storage. The keys are given in slot order, the same order as the
+     * values given to the constructor. No other fields should be registered.
+     *
+     * @param holderClass The manipulator class
+     * @param keys The keys, in slot order
+     * @param <M> The type of manipulator
+     * @return The new builder
+     */
+    protected static <M extends ConcurrentData<M, ?>> DataSchema.Builder<M, Value<?>> schema(Class<M> holderClass, Key<?>... keys) {
+        final DataSchema.Builder<M, Value<?>> builder = DataSchema.mutable(holderClass);
+        for (int i = 0; i < keys.length; i++) {
+            final int slot = i;
+            final GetterFunction<M, Object> getter = holder -> ((ConcurrentData<?, ?>) holder).values.get(slot);
+            final SetterFunction<M, Object> setter = (holder, value) -> ((ConcurrentData<?, ?>) holder).write(slot, value);
+            builder.field((Key<? extends BaseValue<Object>>) keys[i], getter, setter);
+        }
+        return builder;
+    }
+
+    private final AtomicReferenceArray<Object> values;
+    // Odd while a write is in progress, only changed while holding the lock
+    private volatile long version;
+    private int writeDepth;
+
+    /**
+     * Creates a new concurrent manipulator with the given initial values,
+     * which must be in the slot order of the schema.
+     *
+     * @param schema The schema for the manipulator class
+     * @param values The initial values
+     */
+    protected ConcurrentData(DataSchema<M, Value<?>> schema, Object... values) {
+        super(schema);
+        checkArgument(values.length == schema.size(), "Expected %s values, but got %s", schema.size(), values.length);
+        for (Object value : values) {
+            checkNotNull(value);
+        }
+        this.values = new AtomicReferenceArray<>(values);
+    }
+
+    private void write(int slot, Object value) {
+        checkNotNull(value);
+        synchronized (this) {
+            beginWrite();
+            try {
+                this.values.set(slot, value);
+            } finally {
+                endWrite();
+            }
+        }
+    }
+
+    private void beginWrite() {
+        if (this.writeDepth++ == 0) {
+            this.version++;
+        }
+    }
+
+    private void endWrite() {
+        if (--this.writeDepth == 0) {
+            this.version++;
+        }
+    }
+
+    /**
+     * Makes all of the changes made by the given function visible to
+     * {@link #snapshot()} at once, no snapshot sees only part of them.
+     *
+     * @param changes The function making the changes
+     * @return This manipulator, for chaining
+     */
+    public final M batch(Consumer<? super M> changes) {
+        synchronized (this) {
+            beginWrite();
+            try {
+                changes.accept((M) this);
+            } finally {
+                endWrite();
+            }
+        }
+        return (M) this;
+    }
+
+    /**
+     * Gets the values of all of the fields, in slot order, as they were at a
+     * single point in time. This never blocks, but is retried while a write
+     * is in progress.
+     *
+     * @return The values
+     */
+    public final Object[] snapshot() {
+        final Object[] snapshot = new Object[this.values.length()];
+        while (true) {
+            final long version = this.version;
+            if ((version & 1) == 0) {
+                for (int slot = 0; slot < snapshot.length; slot++) {
+                    snapshot[slot] = this.values.get(slot);
+                }
+                if (version == this.version) {
+                    return snapshot;
+                }
+            }
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Gets the values without the cache of {@link AbstractData}, as a value
+     * could otherwise be cached by a reader after a write dropped it.
+     */
+    @Override
+    public Set<ImmutableValue<?>> getValues() {
+        final DataSchema<M, Value<?>> schema = getSchema();
+        final ImmutableSet.Builder<ImmutableValue<?>> builder = ImmutableSet.builder();
+        for (int slot = 0; slot < schema.size(); slot++) {
+            final Value<?> value = schema.getValue((M) this, slot);
+            if (value != null) {
+                builder.add(value.asImmutable());
+            }
+        }
+        return builder.build();
+    }
+
+}
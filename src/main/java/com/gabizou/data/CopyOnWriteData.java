@@ -0,0 +1,146 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.GetterFunction;
+import com.gabizou.util.SetterFunction;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import javax.annotation.Nullable;
+
+/**
+ * An {@link AbstractData} of which the field values are kept in a
+ * {@link SlotStore}, shared with the {@link PersistentImmutableData}
+ * snapshots taken by {@link #asImmutable()}.
+ *
+ * <p>Taking a snapshot doesn't copy anything, the snapshot simply shares the
+ * current store. The first write after that replaces the store with a copy,
+ * so the snapshot is never affected, and every following write changes the
+ * copy in place until the store is shared again. Until the next write,
+ * {@link #asImmutable()} keeps returning the same snapshot, and
+ * {@link #copy()} shares the store as well.</p>
+ *
+ * <p>The field getters and setters are registered by
+ * {@link #schema(Class, Key[])}, so only the value getters are left to the
+ * manipulator.</p>
+ *
+ * @param <M> The mutable manipulator type
+ * @param <I> The immutable manipulator type
+ */
+@SuppressWarnings("unchecked")
+public abstract class CopyOnWriteData<M extends CopyOnWriteData<M, I>, I extends PersistentImmutableData<I, M>> extends AbstractData<M, I> {
+
+    /**
+     * Creates a new {@link DataSchema.Builder} with the field getters and
+     * setters for the given {@link Key}s registered, reading and writing the
+     * {@link SlotStore}. The keys are given in slot order, the same order as
+     * the values of the store, and the same order as the keys of the
+     * immutable manipulator. No other fields should be registered.
+     *
+     * @param holderClass The manipulator class
+     * @param keys The keys, in slot order
+     * @param <M> The type of manipulator
+     * @return The new builder
+     */
+    protected static <M extends CopyOnWriteData<M, ?>> DataSchema.Builder<M, Value<?>> schema(Class<M> holderClass, Key<?>... keys) {
+        final DataSchema.Builder<M, Value<?>> builder = DataSchema.mutable(holderClass);
+        for (int i = 0; i < keys.length; i++) {
+            final int slot = i;
+            final GetterFunction<M, Object> getter = holder -> ((CopyOnWriteData<?, ?>) holder).values.get(slot);
+            final SetterFunction<M, Object> setter = (holder, value) -> ((CopyOnWriteData<?, ?>) holder).write(slot, value);
+            builder.field((Key<? extends BaseValue<Object>>) keys[i], getter, setter);
+        }
+        return builder;
+    }
+
+    private SlotStore values;
+    // Whether the store may be referenced by anything else, such as a snapshot
+    // or a copy, in which case it is copied before the next write
+    private boolean shared;
+    // The snapshot of the current store, dropped by the next write
+    @Nullable private I snapshot;
+
+    /**
+     * Creates a new manipulator with the given values, which must be in the
+     * slot order of the schema.
+     *
+     * @param schema The schema for the manipulator class
+     * @param values The values
+     */
+    protected CopyOnWriteData(DataSchema<M, Value<?>> schema, SlotStore values) {
+        super(schema);
+        this.values = checkNotNull(values);
+        checkArgument(values.size() == schema.size(), "Expected %s values, but got %s", schema.size(), values.size());
+        // The store was given by the caller, which may still use it
+        this.shared = true;
+    }
+
+    /**
+     * Creates a new manipulator sharing the store of the given snapshot,
+     * which is returned by {@link #asImmutable()} until the first write.
+     *
+     * @param schema The schema for the manipulator class
+     * @param snapshot The immutable manipulator
+     */
+    protected CopyOnWriteData(DataSchema<M, Value<?>> schema, I snapshot) {
+        this(schema, snapshot.getStore());
+        this.snapshot = snapshot;
+    }
+
+    protected final SlotStore getStore() {
+        this.shared = true;
+        return this.values;
+    }
+
+    private void write(int slot, Object value) {
+        if (this.values.get(slot).equals(value)) {
+            return;
+        }
+        if (this.shared) {
+            this.values = this.values.copy();
+            this.shared = false;
+        }
+        this.values.set(slot, value);
+        this.snapshot = null;
+    }
+
+    /**
+     * Creates a new instance of the mutable manipulator class with the given
+     * values.
+     *
+     * @param values The values
+     * @return The new manipulator
+     */
+    protected abstract M createMutable(SlotStore values);
+
+    /**
+     * Creates a new instance of the immutable manipulator class with the
+     * given values.
+     *
+     * @param values The values
+     * @return The new manipulator
+     */
+    protected abstract I createImmutable(SlotStore values);
+
+    @Override
+    public M copy() {
+        DataInstrumentation.recordCopy(getSchema().getHolderClass());
+        this.shared = true;
+        return createMutable(this.values);
+    }
+
+    @Override
+    public I asImmutable() {
+        I snapshot = this.snapshot;
+        if (snapshot == null) {
+            this.shared = true;
+            // An interned snapshot may have another store, with equal values
+            snapshot = this.snapshot = createImmutable(this.values).intern();
+        }
+        return snapshot;
+    }
+
+}
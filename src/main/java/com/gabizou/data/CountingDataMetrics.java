@@ -0,0 +1,265 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableSet;
+import org.spongepowered.api.data.key.Key;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Counts all of the operations made on manipulators, per type and per
+ * {@link Key}, and keeps histograms of the {@code toContainer()} and build
+ * latencies per type. The counters are striped, so the counting threads
+ * don't contend with each other.
+ */
+public final class CountingDataMetrics implements DataMetrics {
+
+    // Returned for the types of which nothing was counted, never recorded into
+    private static final LatencyHistogram EMPTY_HISTOGRAM = new LatencyHistogram();
+
+    private final ConcurrentMap<Class<?>, TypeCounters> types = new ConcurrentHashMap<>();
+
+    private TypeCounters counters(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? this.types.computeIfAbsent(type, t -> new TypeCounters()) : counters;
+    }
+
+    private KeyCounters counters(Class<?> type, Key<?> key) {
+        final ConcurrentMap<Key<?>, KeyCounters> keys = counters(type).keys;
+        final KeyCounters counters = keys.get(key);
+        return counters == null ? keys.computeIfAbsent(key, k -> new KeyCounters()) : counters;
+    }
+
+    @Override
+    public void onCreate(Class<?> type) {
+        counters(type).created.increment();
+    }
+
+    @Override
+    public void onCopy(Class<?> type) {
+        counters(type).copied.increment();
+    }
+
+    @Override
+    public void onGet(Class<?> type, Key<?> key) {
+        counters(type, key).gets.increment();
+    }
+
+    @Override
+    public void onSet(Class<?> type, Key<?> key) {
+        counters(type, key).sets.increment();
+    }
+
+    @Override
+    public void onTransform(Class<?> type, Key<?> key) {
+        counters(type, key).transforms.increment();
+    }
+
+    @Override
+    public void onGetValue(Class<?> type, Key<?> key) {
+        counters(type, key).valueGets.increment();
+    }
+
+    @Override
+    public void onRejected(Class<?> type, Key<?> key) {
+        counters(type, key).rejected.increment();
+    }
+
+    @Override
+    public void onToContainer(Class<?> type, long nanos) {
+        counters(type).toContainer.record(nanos);
+    }
+
+    @Override
+    public void onBuild(Class<?> type, long nanos) {
+        counters(type).build.record(nanos);
+    }
+
+    /**
+     * Gets all of the types of which an operation was counted.
+     *
+     * @return The types
+     */
+    public Set<Class<?>> getTypes() {
+        return ImmutableSet.copyOf(this.types.keySet());
+    }
+
+    /**
+     * Gets all of the {@link Key}s of the given type of which an operation
+     * was counted, including the rejected keys.
+     *
+     * @param type The type of manipulator
+     * @return The keys
+     */
+    public Set<Key<?>> getKeys(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? ImmutableSet.<Key<?>>of() : ImmutableSet.copyOf(counters.keys.keySet());
+    }
+
+    public long getCreated(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.created.sum();
+    }
+
+    public long getCopied(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? 0 : counters.copied.sum();
+    }
+
+    public long getGets(Class<?> type, Key<?> key) {
+        final KeyCounters counters = find(type, key);
+        return counters == null ? 0 : counters.gets.sum();
+    }
+
+    public long getSets(Class<?> type, Key<?> key) {
+        final KeyCounters counters = find(type, key);
+        return counters == null ? 0 : counters.sets.sum();
+    }
+
+    public long getTransforms(Class<?> type, Key<?> key) {
+        final KeyCounters counters = find(type, key);
+        return counters == null ? 0 : counters.transforms.sum();
+    }
+
+    public long getValueGets(Class<?> type, Key<?> key) {
+        final KeyCounters counters = find(type, key);
+        return counters == null ? 0 : counters.valueGets.sum();
+    }
+
+    public long getRejected(Class<?> type, Key<?> key) {
+        final KeyCounters counters = find(type, key);
+        return counters == null ? 0 : counters.rejected.sum();
+    }
+
+    /**
+     * Gets the latencies of serializing the given type to a container. The
+     * histogram keeps being updated, unless nothing was counted for the type
+     * yet, in which case an empty histogram is returned.
+     *
+     * @param type The type of manipulator
+     * @return The latencies
+     */
+    public LatencyHistogram getToContainerLatency(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? EMPTY_HISTOGRAM : counters.toContainer;
+    }
+
+    /**
+     * Gets the latencies of building the given type from a container, see
+     * {@link #getToContainerLatency(Class)}.
+     *
+     * @param type The type of manipulator
+     * @return The latencies
+     */
+    public LatencyHistogram getBuildLatency(Class<?> type) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? EMPTY_HISTOGRAM : counters.build;
+    }
+
+    @Nullable
+    private KeyCounters find(Class<?> type, Key<?> key) {
+        final TypeCounters counters = this.types.get(type);
+        return counters == null ? null : counters.keys.get(key);
+    }
+
+    /**
+     * Drops all of the counts. The operations counted by other threads while
+     * this runs may be lost, as they may still be added to the counters being
+     * dropped.
+     */
+    public void reset() {
+        this.types.clear();
+    }
+
+    private static final class TypeCounters {
+
+        final LongAdder created = new LongAdder();
+        final LongAdder copied = new LongAdder();
+        final LatencyHistogram toContainer = new LatencyHistogram();
+        final LatencyHistogram build = new LatencyHistogram();
+        final ConcurrentMap<Key<?>, KeyCounters> keys = new ConcurrentHashMap<>();
+
+    }
+
+    private static final class KeyCounters {
+
+        final LongAdder gets = new LongAdder();
+        final LongAdder sets = new LongAdder();
+        final LongAdder transforms = new LongAdder();
+        final LongAdder valueGets = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+
+    }
+
+    /**
+     * A histogram of latencies in power of two buckets, bucket {@code i}
+     * counting the latencies from {@code 2^i} inclusive to {@code 2^(i + 1)}
+     * exclusive nanoseconds, and bucket zero also counting zero.
+     */
+    public static final class LatencyHistogram {
+
+        public static final int BUCKETS = 64;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder total = new LongAdder();
+
+        LatencyHistogram() {
+        }
+
+        void record(long nanos) {
+            final long clamped = Math.max(nanos, 1);
+            this.buckets.incrementAndGet(63 - Long.numberOfLeadingZeros(clamped));
+            this.total.add(clamped);
+        }
+
+        public long getCount() {
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += this.buckets.get(i);
+            }
+            return count;
+        }
+
+        public long getCount(int bucket) {
+            return this.buckets.get(bucket);
+        }
+
+        public long getTotalNanos() {
+            return this.total.sum();
+        }
+
+        /**
+         * Gets an upper bound of the given percentile of the latencies, the
+         * exclusive upper bound of the bucket it falls in.
+         *
+         * @param percentile The percentile, from 0 to 100
+         * @return The latency in nanoseconds, or zero if nothing was recorded
+         */
+        public long getPercentile(double percentile) {
+            checkArgument(percentile >= 0 && percentile <= 100, "The percentile must be between 0 and 100, but was: %s", percentile);
+            final long count = getCount();
+            if (count == 0) {
+                return 0;
+            }
+            // The 0th percentile is the smallest latency
+            final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += this.buckets.get(i);
+                if (seen >= rank) {
+                    return i == BUCKETS - 1 ? Long.MAX_VALUE : 1L << (i + 1);
+                }
+            }
+            return Long.MAX_VALUE;
+        }
+
+    }
+
+}
@@ -0,0 +1,611 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.BooleanGetter;
+import com.gabizou.util.DoubleGetter;
+import com.gabizou.util.IntGetter;
+import com.gabizou.util.LongGetter;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.service.persistence.InvalidDataException;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javax.annotation.Nullable;
+
+/**
+ * Writes the fields registered in a {@link DataSchema} straight into a
+ * {@link ByteBuffer}, and reads them back onto a holder, without going
+ * through a {@link DataContainer}.
+ *
+ * <p>The layout is, in order:</p>
+ * <ul>
+ *     <li>The fingerprint of the schema, an {@code int}</li>
+ *     <li>All of the {@code boolean} fields, packed eight to a byte</li>
+ *     <li>The number of other fields, a varint</li>
+ *     <li>For each of those, the slot as a varint, followed by the value</li>
+ * </ul>
+ *
+ * <p>{@code int}s and {@code long}s are written as zigzag varints, and
+ * {@code double}s as 8 bytes. Fields that weren't registered with one of the
+ * primitive getters are written with a type tag, and may be any boxed
+ * primitive or a {@link String}.</p>
+ *
+ * <p>The ids assigned by the {@link KeyRegistry} depend on the order the
+ * keys are first used in, so the slots of the schema are written instead.
+ * The fingerprint is computed from the {@link Key} queries in slot order, so
+ * that data written by a schema with different keys is rejected rather than
+ * read into the wrong fields.</p>
+ *
+ * @param <H> The type of holder
+ */
+public final class DataCodec<H> {
+
+    private static final byte BOOLEAN = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte STRING = 4;
+    // Only used for the fields without a primitive getter, which are tagged
+    private static final byte OBJECT = 5;
+
+    /**
+     * Creates a new codec for the given schema. A codec is immutable, and
+     * should be kept alongside the schema.
+     *
+     * @param schema The schema
+     * @param <H> The type of holder
+     * @return The new codec
+     */
+    public static <H> DataCodec<H> of(DataSchema<H, ?> schema) {
+        return new DataCodec<>(schema);
+    }
+
+    private final DataSchema<H, ?> schema;
+    private final byte[] types;
+    private final int[] booleanSlots;
+    // The index of each boolean slot within the packed bits, by slot
+    private final int[] booleanBits;
+    private final int[] otherSlots;
+    private final int fingerprint;
+
+    private DataCodec(DataSchema<H, ?> schema) {
+        this.schema = checkNotNull(schema);
+        this.types = new byte[schema.size()];
+        int booleans = 0;
+        int fingerprint = 1;
+        for (int slot = 0; slot < schema.size(); slot++) {
+            final Object getter = schema.getPrimitiveGetter(slot);
+            final byte type = getter instanceof BooleanGetter ? BOOLEAN
+                              : getter instanceof IntGetter ? INT
+                              : getter instanceof LongGetter ? LONG
+                              : getter instanceof DoubleGetter ? DOUBLE
+                              : OBJECT;
+            this.types[slot] = type;
+            if (type == BOOLEAN) {
+                booleans++;
+            }
+            fingerprint = 31 * fingerprint + schema.getKey(slot).getQuery().asString('.').hashCode();
+            fingerprint = 31 * fingerprint + type;
+        }
+        this.fingerprint = fingerprint;
+        this.booleanSlots = new int[booleans];
+        this.booleanBits = new int[schema.size()];
+        this.otherSlots = new int[schema.size() - booleans];
+        for (int slot = 0, b = 0, o = 0; slot < schema.size(); slot++) {
+            if (this.types[slot] == BOOLEAN) {
+                this.booleanBits[slot] = b;
+                this.booleanSlots[b++] = slot;
+            } else {
+                this.otherSlots[o++] = slot;
+            }
+        }
+    }
+
+    public DataSchema<H, ?> getSchema() {
+        return this.schema;
+    }
+
+    /**
+     * Gets the exact number of bytes {@link #encode(Object, ByteBuffer)} will
+     * write for the given holder.
+     *
+     * @param holder The holder
+     * @return The number of bytes
+     */
+    public int sizeOf(H holder) {
+        int size = 4 + (this.booleanSlots.length + 7) / 8 + varIntSize(this.otherSlots.length);
+        for (int slot : this.otherSlots) {
+            size += varIntSize(slot) + sizeOfValue(holder, slot);
+        }
+        return size;
+    }
+
+    /**
+     * Writes all of the fields of the given holder to the buffer.
+     *
+     * @param holder The holder
+     * @param buffer The buffer to write to
+     * @throws IllegalArgumentException If a field without a primitive getter
+     *     is null, or isn't a boxed primitive or a {@link String}
+     * @throws java.nio.BufferOverflowException If the buffer is too small,
+     *     see {@link #sizeOf(Object)}
+     */
+    public void encode(H holder, ByteBuffer buffer) {
+        checkNotNull(holder);
+        buffer.putInt(this.fingerprint);
+        for (int i = 0; i < this.booleanSlots.length; i += 8) {
+            int bits = 0;
+            for (int bit = 0; bit < 8 && i + bit < this.booleanSlots.length; bit++) {
+                if (this.schema.getBoolean(holder, this.booleanSlots[i + bit])) {
+                    bits |= 1 << bit;
+                }
+            }
+            buffer.put((byte) bits);
+        }
+        putVarInt(buffer, this.otherSlots.length);
+        for (int slot : this.otherSlots) {
+            putVarInt(buffer, slot);
+            putValue(buffer, holder, slot);
+        }
+    }
+
+    /**
+     * Reads the fields written by {@link #encode(Object, ByteBuffer)} from the
+     * buffer and sets them on the given holder, which must be mutable. The
+     * fields of an {@link AbstractData} holder are marked changed.
+     *
+     * <p>All of the data is read before any field is set, so data that turns
+     * out to be malformed leaves the holder unchanged. A setter of the holder
+     * rejecting a value still leaves the fields set before it.</p>
+     *
+     * @param buffer The buffer to read from
+     * @param holder The holder to set the fields on
+     * @return The holder, for chaining
+     * @throws InvalidDataException If the data was written by a different
+     *     schema, or is malformed
+     */
+    public H decode(ByteBuffer buffer, H holder) throws InvalidDataException {
+        checkNotNull(holder);
+        // Indexed by slot, null for the slots without a value
+        final Object[] values = new Object[this.types.length];
+        try {
+            final int fingerprint = buffer.getInt();
+            if (fingerprint != this.fingerprint) {
+                throw new InvalidDataException("The data was written for a different schema than the one of " + this.schema.getHolderClass());
+            }
+            for (int i = 0; i < this.booleanSlots.length; i += 8) {
+                final int bits = buffer.get();
+                for (int bit = 0; bit < 8 && i + bit < this.booleanSlots.length; bit++) {
+                    values[this.booleanSlots[i + bit]] = (bits & (1 << bit)) != 0;
+                }
+            }
+            final int count = getVarInt(buffer);
+            for (int i = 0; i < count; i++) {
+                final int slot = getVarInt(buffer);
+                if (slot < 0 || slot >= this.types.length || this.types[slot] == BOOLEAN) {
+                    throw new InvalidDataException("Unexpected slot " + slot + " for " + this.schema.getHolderClass());
+                }
+                values[slot] = readValue(buffer, slot);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidDataException("The data for " + this.schema.getHolderClass() + " is truncated", e);
+        }
+        setValues(holder, values);
+        return holder;
+    }
+
+    /**
+     * Gets the exact number of bytes
+     * {@link #encodeDelta(Object, BitSet, ByteBuffer)} will write for the
+     * given holder and slots.
+     *
+     * @param holder The holder
+     * @param slots The slots to write
+     * @return The number of bytes
+     */
+    public int sizeOfDelta(H holder, BitSet slots) {
+        int size = 4 + varIntSize(slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            size += varIntSize(slot) + (this.types[slot] == BOOLEAN ? 1 : sizeOfValue(holder, slot));
+        }
+        return size;
+    }
+
+    /**
+     * Writes only the fields of the given slots of the holder to the buffer,
+     * such as the slots changed since the holder was last saved.
+     *
+     * <p>The layout is the same as the one of {@link #encode(Object, ByteBuffer)},
+     * except that the {@code boolean} fields are written as one byte entries
+     * like the other fields, and that a delta can't be decoded as a whole and
+     * the other way around.</p>
+     *
+     * @param holder The holder
+     * @param slots The slots to write
+     * @param buffer The buffer to write to
+     * @throws IllegalArgumentException If a field without a primitive getter
+     *     is null, or isn't a boxed primitive or a {@link String}
+     * @throws java.nio.BufferOverflowException If the buffer is too small,
+     *     see {@link #sizeOfDelta(Object, BitSet)}
+     */
+    public void encodeDelta(H holder, BitSet slots, ByteBuffer buffer) {
+        checkNotNull(holder);
+        checkArgument(slots.length() <= this.types.length, "The slots exceed the size of the schema: %s", slots);
+        buffer.putInt(~this.fingerprint);
+        putVarInt(buffer, slots.cardinality());
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            putVarInt(buffer, slot);
+            if (this.types[slot] == BOOLEAN) {
+                buffer.put((byte) (this.schema.getBoolean(holder, slot) ? 1 : 0));
+            } else {
+                putValue(buffer, holder, slot);
+            }
+        }
+    }
+
+    /**
+     * Reads a delta written by {@link #encodeDelta(Object, BitSet, ByteBuffer)}
+     * from the buffer and sets its fields on the given holder, which must be
+     * mutable. The fields of an {@link AbstractData} holder are marked
+     * changed.
+     *
+     * <p>Like {@link #decode(ByteBuffer, Object)}, all of the delta is read
+     * before any field is set.</p>
+     *
+     * @param buffer The buffer to read from
+     * @param holder The holder to set the fields on
+     * @return The slots that were set
+     * @throws InvalidDataException If the delta was written by a different
+     *     schema, or is malformed
+     */
+    public BitSet decodeDelta(ByteBuffer buffer, H holder) throws InvalidDataException {
+        checkNotNull(holder);
+        final BitSet slots = new BitSet(this.types.length);
+        final Object[] values = new Object[this.types.length];
+        try {
+            if (buffer.getInt() != ~this.fingerprint) {
+                throw new InvalidDataException("The delta was written for a different schema than the one of " + this.schema.getHolderClass());
+            }
+            final int count = getVarInt(buffer);
+            for (int i = 0; i < count; i++) {
+                final int slot = getVarInt(buffer);
+                if (slot < 0 || slot >= this.types.length) {
+                    throw new InvalidDataException("Unexpected slot " + slot + " for " + this.schema.getHolderClass());
+                }
+                values[slot] = this.types[slot] == BOOLEAN ? buffer.get() != 0 : readValue(buffer, slot);
+                slots.set(slot);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidDataException("The delta for " + this.schema.getHolderClass() + " is truncated", e);
+        }
+        setValues(holder, values);
+        return slots;
+    }
+
+    // The following handle the values of every slot but the boolean slots
+
+    private int sizeOfValue(H holder, int slot) {
+        switch (this.types[slot]) {
+            case INT:
+                return varIntSize(zigzag(this.schema.getInt(holder, slot)));
+            case LONG:
+                return varLongSize(zigzag(this.schema.getLong(holder, slot)));
+            case DOUBLE:
+                return 8;
+            default:
+                return sizeOfObject(objectField(holder, slot));
+        }
+    }
+
+    private void putValue(ByteBuffer buffer, H holder, int slot) {
+        switch (this.types[slot]) {
+            case INT:
+                putVarInt(buffer, zigzag(this.schema.getInt(holder, slot)));
+                break;
+            case LONG:
+                putVarLong(buffer, zigzag(this.schema.getLong(holder, slot)));
+                break;
+            case DOUBLE:
+                buffer.putDouble(this.schema.getDouble(holder, slot));
+                break;
+            default:
+                putObject(buffer, objectField(holder, slot));
+        }
+    }
+
+    private Object objectField(H holder, int slot) {
+        final Object value = this.schema.get(holder, slot);
+        checkArgument(value != null, "Can't encode the null field of slot %s (%s) of %s", slot, this.schema.getKey(slot),
+            this.schema.getHolderClass());
+        return value;
+    }
+
+    private Object readValue(ByteBuffer buffer, int slot) {
+        switch (this.types[slot]) {
+            case INT:
+                return unzigzag(getVarInt(buffer));
+            case LONG:
+                return unzigzag(getVarLong(buffer));
+            case DOUBLE:
+                return buffer.getDouble();
+            default:
+                return getObject(buffer);
+        }
+    }
+
+    // Sets the values read by decode or decodeDelta, skipping the null slots
+    private void setValues(H holder, Object[] values) {
+        for (int slot = 0; slot < values.length; slot++) {
+            final Object value = values[slot];
+            if (value == null) {
+                continue;
+            }
+            switch (this.types[slot]) {
+                case BOOLEAN:
+                    this.schema.setBoolean(holder, slot, (Boolean) value);
+                    break;
+                case INT:
+                    this.schema.setInt(holder, slot, (Integer) value);
+                    break;
+                case LONG:
+                    this.schema.setLong(holder, slot, (Long) value);
+                    break;
+                case DOUBLE:
+                    this.schema.setDouble(holder, slot, (Double) value);
+                    break;
+                default:
+                    this.schema.set(holder, slot, value);
+            }
+            markChanged(holder, slot);
+        }
+    }
+
+    // The fields are written through the schema, which leaves marking them
+    // changed to the caller, see DataSchema.Builder#field
+    private static void markChanged(Object holder, int slot) {
+        if (holder instanceof AbstractData) {
+            ((AbstractData<?, ?>) holder).markChanged(slot);
+        }
+    }
+
+    /**
+     * Finds where the value of each slot starts in the given data, without
+     * reading any of the values. The data is read from its position, which
+     * isn't changed.
+     *
+     * @param data The data
+     * @return The absolute position of the value of each slot, or {@code -1}
+     *     for the slots without a value
+     * @throws InvalidDataException If the data was written by a different
+     *     schema, or is malformed
+     */
+    int[] index(ByteBuffer data) throws InvalidDataException {
+        final ByteBuffer buffer = data.duplicate();
+        try {
+            if (buffer.getInt() != this.fingerprint) {
+                throw new InvalidDataException("The data was written for a different schema than the one of " + this.schema.getHolderClass());
+            }
+            final int[] index = new int[this.types.length];
+            Arrays.fill(index, -1);
+            for (int slot : this.booleanSlots) {
+                index[slot] = buffer.position() + this.booleanBits[slot] / 8;
+            }
+            buffer.position(buffer.position() + (this.booleanSlots.length + 7) / 8);
+            final int count = getVarInt(buffer);
+            for (int i = 0; i < count; i++) {
+                final int slot = getVarInt(buffer);
+                if (slot < 0 || slot >= this.types.length || this.types[slot] == BOOLEAN) {
+                    throw new InvalidDataException("Unexpected slot " + slot + " for " + this.schema.getHolderClass());
+                }
+                index[slot] = buffer.position();
+                skip(buffer, this.types[slot]);
+            }
+            return index;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new InvalidDataException("The data for " + this.schema.getHolderClass() + " is truncated", e);
+        }
+    }
+
+    /**
+     * Reads the value of a single slot from the data, using the positions
+     * found by {@link #index(ByteBuffer)}.
+     *
+     * @param data The data
+     * @param index The positions of the values
+     * @param slot The slot
+     * @return The value, or null if the data has no value for the slot
+     */
+    @Nullable
+    Object read(ByteBuffer data, int[] index, int slot) throws InvalidDataException {
+        if (index[slot] < 0) {
+            return null;
+        }
+        final ByteBuffer buffer = data.duplicate();
+        buffer.position(index[slot]);
+        try {
+            switch (this.types[slot]) {
+                case BOOLEAN:
+                    return (buffer.get() & (1 << (this.booleanBits[slot] % 8))) != 0;
+                default:
+                    return readValue(buffer, slot);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new InvalidDataException("The data for " + this.schema.getHolderClass() + " is truncated", e);
+        }
+    }
+
+    private static void skip(ByteBuffer buffer, byte type) {
+        switch (type) {
+            case BOOLEAN:
+                buffer.get();
+                break;
+            case INT:
+                getVarInt(buffer);
+                break;
+            case LONG:
+                getVarLong(buffer);
+                break;
+            case DOUBLE:
+                buffer.position(buffer.position() + 8);
+                break;
+            case STRING:
+                final int length = getVarInt(buffer);
+                buffer.position(buffer.position() + length);
+                break;
+            case OBJECT:
+                final byte tag = buffer.get();
+                if (tag == OBJECT) {
+                    throw new InvalidDataException("Unknown type tag: " + tag);
+                }
+                skip(buffer, tag);
+                break;
+            default:
+                throw new InvalidDataException("Unknown type tag: " + type);
+        }
+    }
+
+    private static int sizeOfObject(Object value) {
+        if (value instanceof Boolean) {
+            return 2;
+        } else if (value instanceof Integer) {
+            return 1 + varIntSize(zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            return 1 + varLongSize(zigzag((Long) value));
+        } else if (value instanceof Double) {
+            return 9;
+        } else if (value instanceof String) {
+            final int length = ((String) value).getBytes(StandardCharsets.UTF_8).length;
+            return 1 + varIntSize(length) + length;
+        }
+        throw new IllegalArgumentException("Can't encode a value of " + value.getClass());
+    }
+
+    private static void putObject(ByteBuffer buffer, Object value) {
+        if (value instanceof Boolean) {
+            buffer.put(BOOLEAN);
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+        } else if (value instanceof Integer) {
+            buffer.put(INT);
+            putVarInt(buffer, zigzag((Integer) value));
+        } else if (value instanceof Long) {
+            buffer.put(LONG);
+            putVarLong(buffer, zigzag((Long) value));
+        } else if (value instanceof Double) {
+            buffer.put(DOUBLE);
+            buffer.putDouble((Double) value);
+        } else if (value instanceof String) {
+            final byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+            buffer.put(STRING);
+            putVarInt(buffer, bytes.length);
+            buffer.put(bytes);
+        } else {
+            throw new IllegalArgumentException("Can't encode a value of " + value.getClass());
+        }
+    }
+
+    private static Object getObject(ByteBuffer buffer) {
+        final byte type = buffer.get();
+        switch (type) {
+            case BOOLEAN:
+                return buffer.get() != 0;
+            case INT:
+                return unzigzag(getVarInt(buffer));
+            case LONG:
+                return unzigzag(getVarLong(buffer));
+            case DOUBLE:
+                return buffer.getDouble();
+            case STRING:
+                final int length = getVarInt(buffer);
+                if (length < 0 || length > buffer.remaining()) {
+                    throw new InvalidDataException("Invalid string length: " + length);
+                }
+                final byte[] bytes = new byte[length];
+                buffer.get(bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            default:
+                throw new InvalidDataException("Unknown type tag: " + type);
+        }
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varIntSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    static void putVarInt(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static int getVarInt(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            final byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new InvalidDataException("Malformed varint");
+    }
+
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new InvalidDataException("Malformed varint");
+    }
+
+}
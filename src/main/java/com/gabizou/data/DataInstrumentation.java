@@ -0,0 +1,87 @@
+package com.gabizou.data;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the {@link DataMetrics} receiving the operations made on
+ * manipulators. No metrics are installed by default, in which case every
+ * operation only costs a single read of a field.
+ *
+ * <p>{@link AbstractData} and {@link ImmutableAbstractData} report their
+ * operations themselves. The copies, {@code toContainer()} calls and builds
+ * are implemented by the manipulators and builders, which report them with
+ * the helpers here:</p>
+ *
+ * <pre>
+ * final long start = DataInstrumentation.startTimer();
+ * final DataContainer container = ...;
+ * DataInstrumentation.recordToContainer(MyData.class, start);
+ * return container;
+ * </pre>
+ */
+public final class DataInstrumentation {
+
+    // Read directly by the manipulators, so disabled metrics cost one read
+    @Nullable static volatile DataMetrics metrics;
+
+    private DataInstrumentation() {
+    }
+
+    @Nullable
+    public static DataMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Installs the metrics receiving all of the operations from now on.
+     *
+     * @param dataMetrics The metrics, or null to disable the instrumentation
+     */
+    public static void setMetrics(@Nullable DataMetrics dataMetrics) {
+        metrics = dataMetrics;
+    }
+
+    /**
+     * Gets the start time of an operation to be recorded, or zero if no
+     * metrics are installed, so the clock isn't read for nothing.
+     *
+     * @return The start time, in nanoseconds
+     */
+    public static long startTimer() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    public static void recordCopy(Class<?> type) {
+        final DataMetrics current = metrics;
+        if (current != null) {
+            current.onCopy(type);
+        }
+    }
+
+    /**
+     * Records a {@code toContainer()} call started at the given time.
+     *
+     * @param type The type of manipulator
+     * @param start The time returned by {@link #startTimer()}
+     */
+    public static void recordToContainer(Class<?> type, long start) {
+        final DataMetrics current = metrics;
+        if (current != null && start != 0) {
+            current.onToContainer(type, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records a build of a manipulator started at the given time.
+     *
+     * @param type The type of manipulator
+     * @param start The time returned by {@link #startTimer()}
+     */
+    public static void recordBuild(Class<?> type, long start) {
+        final DataMetrics current = metrics;
+        if (current != null && start != 0) {
+            current.onBuild(type, System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.gabizou.data;
+
+import org.spongepowered.api.data.key.Key;
+
+/**
+ * Receives the operations made on manipulators, once installed with
+ * {@link DataInstrumentation#setMetrics(DataMetrics)}. The types are the
+ * manipulator classes registered in their {@link DataSchema}s, or the classes
+ * given to the {@link DataInstrumentation} helpers.
+ *
+ * <p>Every method may be called by any thread, and is called on the hot paths
+ * of the manipulators, so implementations should be quick and thread safe.
+ * All of the methods do nothing by default. See {@link CountingDataMetrics}
+ * for an implementation counting all of the operations.</p>
+ */
+public interface DataMetrics {
+
+    default void onCreate(Class<?> type) {
+    }
+
+    default void onCopy(Class<?> type) {
+    }
+
+    default void onGet(Class<?> type, Key<?> key) {
+    }
+
+    /**
+     * Called whenever the field of the given {@link Key} was changed, through
+     * any of the setters, transforms, patches or bulk operations.
+     *
+     * @param type The type of manipulator
+     * @param key The key of the changed field
+     */
+    default void onSet(Class<?> type, Key<?> key) {
+    }
+
+    /**
+     * Called whenever the field of the given {@link Key} was transformed. The
+     * changed field is then also reported to {@link #onSet(Class, Key)}, so
+     * a transform is counted as a set as well.
+     *
+     * @param type The type of manipulator
+     * @param key The key of the transformed field
+     */
+    default void onTransform(Class<?> type, Key<?> key) {
+    }
+
+    default void onGetValue(Class<?> type, Key<?> key) {
+    }
+
+    /**
+     * Called when a manipulator was asked to set or read a {@link Key} it
+     * doesn't support.
+     *
+     * @param type The type of manipulator
+     * @param key The unsupported key
+     */
+    default void onRejected(Class<?> type, Key<?> key) {
+    }
+
+    default void onToContainer(Class<?> type, long nanos) {
+    }
+
+    default void onBuild(Class<?> type, long nanos) {
+    }
+
+}
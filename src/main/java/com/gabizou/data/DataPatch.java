@@ -0,0 +1,150 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.BooleanGetter;
+import com.gabizou.util.DoubleGetter;
+import com.gabizou.util.IntGetter;
+import com.gabizou.util.LongGetter;
+import com.google.common.base.Objects;
+import org.spongepowered.api.data.key.Key;
+
+import javax.annotation.Nullable;
+
+/**
+ * The fields that differ between two manipulators of the same class, as
+ * found by {@link #diff(DataSchema, Object, Object)}, along with their new
+ * values.
+ *
+ * <p>The fields are compared through the getters registered in the
+ * {@link DataSchema}, without creating any values, and the primitive fields
+ * without boxing. Comparing two equal manipulators allocates nothing.</p>
+ *
+ * <p>A patch can be applied to a manipulator of the same class, or of the
+ * mutable or immutable counterpart, see {@link AbstractData#patch(DataPatch)}
+ * and {@link ImmutableAbstractData#patch(DataPatch)}.</p>
+ */
+public final class DataPatch {
+
+    /**
+     * Finds the fields that differ between the given manipulators.
+     *
+     * @param schema The schema of the manipulators
+     * @param from The original manipulator
+     * @param to The changed manipulator
+     * @param <H> The type of manipulator
+     * @return The fields of which the values differ, with the values of
+     *     {@code to}
+     */
+    public static <H> DataPatch diff(DataSchema<H, ?> schema, H from, H to) {
+        checkNotNull(from);
+        checkNotNull(to);
+        int[] slots = null;
+        Object[] values = null;
+        int size = 0;
+        for (int slot = 0; slot < schema.size(); slot++) {
+            if (differs(schema, from, to, slot)) {
+                if (slots == null) {
+                    slots = new int[schema.size() - slot];
+                    values = new Object[slots.length];
+                }
+                slots[size] = slot;
+                values[size] = schema.get(to, slot);
+                size++;
+            }
+        }
+        return slots == null ? EMPTY : new DataPatch(schema, slots, values, size);
+    }
+
+    private static <H> boolean differs(DataSchema<H, ?> schema, H from, H to, int slot) {
+        final Object getter = schema.getPrimitiveGetter(slot);
+        if (getter instanceof BooleanGetter) {
+            return schema.getBoolean(from, slot) != schema.getBoolean(to, slot);
+        } else if (getter instanceof IntGetter) {
+            return schema.getInt(from, slot) != schema.getInt(to, slot);
+        } else if (getter instanceof LongGetter) {
+            return schema.getLong(from, slot) != schema.getLong(to, slot);
+        } else if (getter instanceof DoubleGetter) {
+            // Consistent with Double#equals, so NaN equals NaN
+            return Double.compare(schema.getDouble(from, slot), schema.getDouble(to, slot)) != 0;
+        }
+        return !Objects.equal(schema.get(from, slot), schema.get(to, slot));
+    }
+
+    // Shared by every diff without differences, which is never asked for its schema
+    private static final DataPatch EMPTY = new DataPatch(null, new int[0], new Object[0], 0);
+
+    @Nullable private final DataSchema<?, ?> schema;
+    private final int[] slots;
+    private final Object[] values;
+    private final int size;
+
+    private DataPatch(@Nullable DataSchema<?, ?> schema, int[] slots, Object[] values, int size) {
+        this.schema = schema;
+        this.slots = slots;
+        this.values = values;
+        this.size = size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the number of fields that differ.
+     *
+     * @return The number of fields
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public Key<?> getKey(int index) {
+        checkElementIndex(index, this.size);
+        return getSchema().getKey(this.slots[index]);
+    }
+
+    public Object getValue(int index) {
+        checkElementIndex(index, this.size);
+        return this.values[index];
+    }
+
+    /**
+     * Gets the slot in the given schema of the field at the given index. This
+     * is the slot the patch was created with when the schema is the same,
+     * otherwise the slot of the same {@link Key}.
+     *
+     * @param schema The schema the patch is applied with
+     * @param index The index of the field within this patch
+     * @return The slot
+     * @throws IllegalArgumentException If the schema doesn't support the key
+     */
+    int getSlot(DataSchema<?, ?> schema, int index) {
+        if (schema == this.schema) {
+            return this.slots[index];
+        }
+        final Key<?> key = getSchema().getKey(this.slots[index]);
+        final int slot = schema.getSlot(key);
+        checkArgument(slot != DataSchema.NO_SLOT, "The patch contains a key that isn't supported by %s: %s", schema.getHolderClass(), key);
+        return slot;
+    }
+
+    private DataSchema<?, ?> getSchema() {
+        return checkNotNull(this.schema);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("DataPatch{");
+        for (int i = 0; i < this.size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(getSchema().getKey(this.slots[i])).append('=').append(this.values[i]);
+        }
+        return builder.append('}').toString();
+    }
+
+}
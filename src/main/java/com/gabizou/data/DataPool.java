@@ -0,0 +1,97 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lends out temporary mutable manipulators, so manipulators which are filled,
+ * read once and dropped don't need to be created each time. Each thread
+ * keeps its own free list, so borrowing and releasing never contend.
+ *
+ * <p>The manipulators are reset by the function given to the pool when
+ * released, after which their cached values and changed fields are dropped.
+ * A released manipulator must not be used anymore, as it will be lent out
+ * again; releasing a manipulator twice is rejected. Manipulators which are
+ * never released are simply collected.</p>
+ *
+ * @param <M> The mutable manipulator type
+ */
+public final class DataPool<M extends AbstractData<M, ?>> {
+
+    /**
+     * Creates a pool of the manipulators created by the given factory.
+     *
+     * @param factory Creates the manipulators when a free list is empty
+     * @param reset Sets all of the fields of a released manipulator back to
+     *     the values of a newly created one
+     * @param maximumSize The maximum number of free manipulators kept by each
+     *     thread, the manipulators released beyond it are dropped
+     * @param <M> The mutable manipulator type
+     * @return The pool
+     */
+    public static <M extends AbstractData<M, ?>> DataPool<M> create(Supplier<? extends M> factory, Consumer<? super M> reset, int maximumSize) {
+        checkArgument(maximumSize > 0, "The maximum size must be positive, but was: %s", maximumSize);
+        return new DataPool<>(checkNotNull(factory), checkNotNull(reset), maximumSize);
+    }
+
+    private final Supplier<? extends M> factory;
+    private final Consumer<? super M> reset;
+    private final int maximumSize;
+    private final ThreadLocal<ArrayDeque<M>> freeLists = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private DataPool(Supplier<? extends M> factory, Consumer<? super M> reset, int maximumSize) {
+        this.factory = factory;
+        this.reset = reset;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Borrows a manipulator with the fields of a newly created one, which
+     * should be given back with {@link #release(AbstractData)} once it isn't
+     * needed anymore.
+     *
+     * @return The manipulator
+     */
+    public M borrow() {
+        final M data = this.freeLists.get().pollFirst();
+        if (data == null) {
+            return this.factory.get();
+        }
+        data.pooled = false;
+        return data;
+    }
+
+    /**
+     * Resets the given manipulator and gives it back to the free list of the
+     * current thread, unless that list is full. The manipulator is marked as
+     * released either way, so releasing it again is always caught.
+     *
+     * @param data The borrowed manipulator
+     * @throws IllegalStateException If the manipulator was already released
+     */
+    public void release(M data) {
+        checkState(!data.pooled, "The manipulator was already released: %s", data);
+        data.pooled = true;
+        final ArrayDeque<M> freeList = this.freeLists.get();
+        if (freeList.size() < this.maximumSize) {
+            this.reset.accept(data);
+            data.clearCaches();
+            freeList.addFirst(data);
+        }
+    }
+
+    /**
+     * Gets the number of free manipulators kept by the current thread.
+     *
+     * @return The number of free manipulators
+     */
+    public int getFreeCount() {
+        return this.freeLists.get().size();
+    }
+
+}
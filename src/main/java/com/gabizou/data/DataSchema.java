@@ -0,0 +1,650 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.BooleanGetter;
+import com.gabizou.util.BooleanSetter;
+import com.gabizou.util.DoubleGetter;
+import com.gabizou.util.DoubleSetter;
+import com.gabizou.util.GetterFunction;
+import com.gabizou.util.IntGetter;
+import com.gabizou.util.IntSetter;
+import com.gabizou.util.KeyValueConsumer;
+import com.gabizou.util.LongGetter;
+import com.gabizou.util.LongSetter;
+import com.gabizou.util.SetterFunction;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * The immutable description of all of the {@link Key}s a {@link DataManipulator}
+ * class supports, along with the functions used to get and set the fields and
+ * get the {@link BaseValue}s for each of those keys.
+ *
+ * <p>A schema is built once per manipulator class, usually as a
+ * {@code private static final} field, and is shared by every instance of that
+ * class. Since the functions take the holder as an argument, there's no need
+ * to re-register anything when creating a new instance, copying, or switching
+ * between the mutable and immutable variants.</p>
+ *
+ * @param <H> The type of manipulator this schema describes
+ * @param <V> The type of value returned by the value getters
+ */
+@SuppressWarnings("unchecked")
+public final class DataSchema<H, V extends BaseValue<?>> {
+
+    /**
+     * Creates a new {@link Builder} for a mutable {@link DataManipulator},
+     * of which the value getters return {@link Value}s.
+     *
+     * @param holderClass The manipulator class
+     * @param <H> The type of manipulator
+     * @return The new builder
+     */
+    public static <H> Builder<H, Value<?>> mutable(Class<H> holderClass) {
+        return new Builder<>(holderClass, true);
+    }
+
+    /**
+     * Creates a new {@link Builder} for an immutable manipulator, of which the
+     * value getters return {@link ImmutableValue}s.
+     *
+     * @param holderClass The manipulator class
+     * @param <H> The type of manipulator
+     * @return The new builder
+     */
+    public static <H> Builder<H, ImmutableValue<?>> immutable(Class<H> holderClass) {
+        return new Builder<>(holderClass, false);
+    }
+
+    /**
+     * The slot returned by {@link #getSlot(Key)} for an unsupported {@link Key}.
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * The system property enabling {@link Builder#generateAccessors()} for
+     * every schema.
+     */
+    public static final String GENERATE_ACCESSORS_PROPERTY = "com.gabizou.data.generateAccessors";
+
+    private final Class<H> holderClass;
+    // Everything is indexed by slot, which is the registration order of the key,
+    // except for the supported bits and the slot lookup, which are indexed by the
+    // id assigned by the KeyRegistry. This keeps every lookup down to a single
+    // key id lookup followed by array indexing.
+    private final Key<?>[] keys;
+    private final BitSet supported;
+    private final int[] slotsById;
+    private final GetterFunction<H, ?>[] fieldGetters;
+    private final SetterFunction<H, Object>[] fieldSetters;
+    private final GetterFunction<H, ? extends V>[] valueGetters;
+    // The primitive specialized functions, if any were registered for the slot.
+    private final Object[] primitiveGetters;
+    private final Object[] primitiveSetters;
+    // Only present when the accessors were generated, see Builder#generateAccessors()
+    @Nullable private final SchemaAccessor<H> accessor;
+    private final ImmutableSet<Key<?>> keySet;
+
+    DataSchema(Builder<H, V> builder) {
+        this.holderClass = builder.holderClass;
+        final int size = builder.fieldGetters.size();
+        this.keys = new Key<?>[size];
+        this.supported = new BitSet();
+        this.fieldGetters = new GetterFunction[size];
+        this.fieldSetters = new SetterFunction[size];
+        this.valueGetters = new GetterFunction[size];
+        this.primitiveGetters = new Object[size];
+        this.primitiveSetters = new Object[size];
+        int slot = 0;
+        for (Map.Entry<Key<?>, GetterFunction<H, ?>> entry : builder.fieldGetters.entrySet()) {
+            final Key<?> key = entry.getKey();
+            this.keys[slot] = key;
+            this.supported.set(KeyRegistry.getId(key));
+            this.fieldGetters[slot] = entry.getValue();
+            this.fieldSetters[slot] = builder.fieldSetters.get(key);
+            this.valueGetters[slot] = builder.valueGetters.get(key);
+            this.primitiveGetters[slot] = builder.primitiveGetters.get(key);
+            this.primitiveSetters[slot] = builder.primitiveSetters.get(key);
+            slot++;
+        }
+        this.slotsById = KeyRegistry.createSlotTable(this.keys);
+        this.keySet = ImmutableSet.copyOf(this.keys);
+        // Generated last, as the generator reads the functions registered above
+        this.accessor = builder.generateAccessors ? AccessorGenerator.generate(this) : null;
+    }
+
+    public Class<H> getHolderClass() {
+        return this.holderClass;
+    }
+
+    /**
+     * Gets the number of supported {@link Key}s, slots range from {@code 0}
+     * inclusive to this number exclusive.
+     *
+     * @return The number of supported keys
+     */
+    public int size() {
+        return this.keys.length;
+    }
+
+    public boolean supports(Key<?> key) {
+        return supports(KeyRegistry.lookupId(key));
+    }
+
+    /**
+     * Checks whether the {@link Key} with the given {@link KeyRegistry} id is
+     * supported by this schema.
+     *
+     * @param keyId The key id
+     * @return True if the key is supported
+     */
+    public boolean supports(int keyId) {
+        return keyId >= 0 && this.supported.get(keyId);
+    }
+
+    /**
+     * Gets the slot of the given {@link Key} within this schema.
+     *
+     * @param key The key
+     * @return The slot, or {@link #NO_SLOT} if the key isn't supported
+     */
+    public int getSlot(Key<?> key) {
+        final int id = KeyRegistry.lookupId(key);
+        return supports(id) ? this.slotsById[id] : NO_SLOT;
+    }
+
+    public Key<?> getKey(int slot) {
+        return this.keys[slot];
+    }
+
+    /**
+     * Gets all of the supported {@link Key}s, in the order they were
+     * registered. The returned set is shared by all users of this schema.
+     *
+     * @return The supported keys
+     */
+    public Set<Key<?>> getKeys() {
+        return this.keySet;
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s to the given consumer, in the
+     * order they were registered.
+     *
+     * @param consumer The consumer
+     */
+    public void forEachKey(Consumer<? super Key<?>> consumer) {
+        for (Key<?> key : this.keys) {
+            consumer.accept(key);
+        }
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s and the field values of the
+     * holder to the given consumer, in the order they were registered. No
+     * {@link BaseValue}s are created, but primitive fields are boxed.
+     *
+     * @param holder The holder
+     * @param consumer The consumer
+     */
+    public void forEachRaw(H holder, KeyValueConsumer consumer) {
+        for (int slot = 0; slot < this.keys.length; slot++) {
+            consumer.accept(this.keys[slot], get(holder, slot));
+        }
+    }
+
+    public GetterFunction<H, ?> getFieldGetter(int slot) {
+        return this.fieldGetters[slot];
+    }
+
+    @Nullable
+    public SetterFunction<H, Object> getFieldSetter(int slot) {
+        return this.fieldSetters[slot];
+    }
+
+    @Nullable
+    public GetterFunction<H, ? extends V> getValueGetter(int slot) {
+        return this.valueGetters[slot];
+    }
+
+    @Nullable
+    Object getPrimitiveGetter(int slot) {
+        return this.primitiveGetters[slot];
+    }
+
+    @Nullable
+    Object getPrimitiveSetter(int slot) {
+        return this.primitiveSetters[slot];
+    }
+
+    /**
+     * Gets the field of the given slot from the holder, through the generated
+     * accessor if there is one.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The field value
+     */
+    public Object get(H holder, int slot) {
+        final SchemaAccessor<H> accessor = this.accessor;
+        return accessor == null ? this.fieldGetters[slot].get(holder) : accessor.get(holder, slot);
+    }
+
+    /**
+     * Sets the field of the given slot on the holder, through the generated
+     * accessor if there is one.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @param value The field value
+     */
+    public void set(H holder, int slot, Object value) {
+        final SchemaAccessor<H> accessor = this.accessor;
+        if (accessor == null) {
+            this.fieldSetters[slot].set(holder, value);
+        } else {
+            accessor.set(holder, slot, value);
+        }
+    }
+
+    /**
+     * Gets the value of the given slot from the holder, through the generated
+     * accessor if there is one.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The value, or null if no value getter was registered for the slot
+     */
+    @Nullable
+    public V getValue(H holder, int slot) {
+        final GetterFunction<H, ? extends V> getter = this.valueGetters[slot];
+        if (getter == null) {
+            return null;
+        }
+        final SchemaAccessor<H> accessor = this.accessor;
+        return accessor == null ? getter.get(holder) : (V) accessor.getValue(holder, slot);
+    }
+
+    /**
+     * Gets the {@code boolean} value of the given slot from the holder, without
+     * boxing if the field was registered with a {@link BooleanGetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The value
+     */
+    public boolean getBoolean(H holder, int slot) {
+        final Object getter = this.primitiveGetters[slot];
+        if (getter instanceof BooleanGetter) {
+            return ((BooleanGetter<H>) getter).get(holder);
+        }
+        return (Boolean) this.fieldGetters[slot].get(holder);
+    }
+
+    /**
+     * Sets the {@code boolean} value of the given slot on the holder, without
+     * boxing if the field was registered with a {@link BooleanSetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @param value The value
+     */
+    public void setBoolean(H holder, int slot, boolean value) {
+        final Object setter = this.primitiveSetters[slot];
+        if (setter instanceof BooleanSetter) {
+            ((BooleanSetter<H>) setter).set(holder, value);
+        } else {
+            this.fieldSetters[slot].set(holder, value);
+        }
+    }
+
+    /**
+     * Gets the {@code int} value of the given slot from the holder, without
+     * boxing if the field was registered with a {@link IntGetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The value
+     */
+    public int getInt(H holder, int slot) {
+        final Object getter = this.primitiveGetters[slot];
+        if (getter instanceof IntGetter) {
+            return ((IntGetter<H>) getter).get(holder);
+        }
+        return (Integer) this.fieldGetters[slot].get(holder);
+    }
+
+    /**
+     * Sets the {@code int} value of the given slot on the holder, without
+     * boxing if the field was registered with a {@link IntSetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @param value The value
+     */
+    public void setInt(H holder, int slot, int value) {
+        final Object setter = this.primitiveSetters[slot];
+        if (setter instanceof IntSetter) {
+            ((IntSetter<H>) setter).set(holder, value);
+        } else {
+            this.fieldSetters[slot].set(holder, value);
+        }
+    }
+
+    /**
+     * Gets the {@code long} value of the given slot from the holder, without
+     * boxing if the field was registered with a {@link LongGetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The value
+     */
+    public long getLong(H holder, int slot) {
+        final Object getter = this.primitiveGetters[slot];
+        if (getter instanceof LongGetter) {
+            return ((LongGetter<H>) getter).get(holder);
+        }
+        return (Long) this.fieldGetters[slot].get(holder);
+    }
+
+    /**
+     * Sets the {@code long} value of the given slot on the holder, without
+     * boxing if the field was registered with a {@link LongSetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @param value The value
+     */
+    public void setLong(H holder, int slot, long value) {
+        final Object setter = this.primitiveSetters[slot];
+        if (setter instanceof LongSetter) {
+            ((LongSetter<H>) setter).set(holder, value);
+        } else {
+            this.fieldSetters[slot].set(holder, value);
+        }
+    }
+
+    /**
+     * Gets the {@code double} value of the given slot from the holder, without
+     * boxing if the field was registered with a {@link DoubleGetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @return The value
+     */
+    public double getDouble(H holder, int slot) {
+        final Object getter = this.primitiveGetters[slot];
+        if (getter instanceof DoubleGetter) {
+            return ((DoubleGetter<H>) getter).get(holder);
+        }
+        return (Double) this.fieldGetters[slot].get(holder);
+    }
+
+    /**
+     * Sets the {@code double} value of the given slot on the holder, without
+     * boxing if the field was registered with a {@link DoubleSetter}.
+     *
+     * @param holder The holder
+     * @param slot The slot
+     * @param value The value
+     */
+    public void setDouble(H holder, int slot, double value) {
+        final Object setter = this.primitiveSetters[slot];
+        if (setter instanceof DoubleSetter) {
+            ((DoubleSetter<H>) setter).set(holder, value);
+        } else {
+            this.fieldSetters[slot].set(holder, value);
+        }
+    }
+
+    public static final class Builder<H, V extends BaseValue<?>> {
+
+        private final Class<H> holderClass;
+        private final boolean mutable;
+        private final Map<Key<?>, GetterFunction<H, ?>> fieldGetters = Maps.newLinkedHashMap();
+        private final Map<Key<?>, SetterFunction<H, Object>> fieldSetters = Maps.newLinkedHashMap();
+        private final Map<Key<?>, GetterFunction<H, ? extends V>> valueGetters = Maps.newLinkedHashMap();
+        private final Map<Key<?>, Object> primitiveGetters = Maps.newHashMap();
+        private final Map<Key<?>, Object> primitiveSetters = Maps.newHashMap();
+        private boolean generateAccessors = Boolean.getBoolean(GENERATE_ACCESSORS_PROPERTY);
+
+        Builder(Class<H> holderClass, boolean mutable) {
+            this.holderClass = checkNotNull(holderClass);
+            this.mutable = mutable;
+        }
+
+        /**
+         * Registers the field getter and setter for the given {@link Key}.
+         *
+         * <p>Since the functions take the holder as an argument, these are
+         * single line method references, such as
+         * {@code field(Keys.FOO, FooData::getFoo, FooData::writeFoo)}.</p>
+         *
+         * <p>Setters are raw field writes: they must only assign the field and
+         * never mark it changed, as everything writing through the schema,
+         * such as {@link AbstractData#set(Key, Object)}, marks the field
+         * itself. This applies to the setters of all of the field types. The
+         * public setters of a manipulator, which are called directly, are the
+         * ones marking the field changed instead.</p>
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param setter The function for setting the field
+         * @param <E> The type of element
+         * @return This builder, for chaining
+         */
+        public <E> Builder<H, V> field(Key<? extends BaseValue<E>> key, GetterFunction<H, E> getter, SetterFunction<H, E> setter) {
+            checkArgument(this.mutable, "Field setters can only be registered for mutable manipulators!");
+            this.fieldGetters.put(checkNotNull(key), checkNotNull(getter));
+            this.fieldSetters.put(key, (SetterFunction<H, Object>) checkNotNull(setter));
+            return this;
+        }
+
+        /**
+         * Registers the field getter for the given {@link Key}. This is only
+         * usable for immutable manipulators, as mutable manipulators require
+         * a setter for every supported key.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param <E> The type of element
+         * @return This builder, for chaining
+         */
+        public <E> Builder<H, V> field(Key<? extends BaseValue<E>> key, GetterFunction<H, E> getter) {
+            checkArgument(!this.mutable, "Mutable manipulators require a field setter for every key!");
+            this.fieldGetters.put(checkNotNull(key), checkNotNull(getter));
+            return this;
+        }
+
+        /**
+         * Registers the {@code boolean} field getter and setter for the given
+         * {@link Key}. Reading and writing the field through the typed
+         * accessors, such as {@link AbstractData#getBoolean(Key)}, won't box
+         * the value.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param setter The function for setting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> booleanField(Key<? extends BaseValue<Boolean>> key, BooleanGetter<H> getter, BooleanSetter<H> setter) {
+            checkNotNull(getter);
+            checkNotNull(setter);
+            field(key, getter::get, setter::set);
+            this.primitiveGetters.put(key, getter);
+            this.primitiveSetters.put(key, setter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code boolean} field getter for the given {@link Key}
+         * of an immutable manipulator.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> booleanField(Key<? extends BaseValue<Boolean>> key, BooleanGetter<H> getter) {
+            checkNotNull(getter);
+            field(key, getter::get);
+            this.primitiveGetters.put(key, getter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code int} field getter and setter for the given
+         * {@link Key}. Reading and writing the field through the typed
+         * accessors, such as {@link AbstractData#getInt(Key)}, won't box
+         * the value.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param setter The function for setting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> intField(Key<? extends BaseValue<Integer>> key, IntGetter<H> getter, IntSetter<H> setter) {
+            checkNotNull(getter);
+            checkNotNull(setter);
+            field(key, getter::get, setter::set);
+            this.primitiveGetters.put(key, getter);
+            this.primitiveSetters.put(key, setter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code int} field getter for the given {@link Key}
+         * of an immutable manipulator.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> intField(Key<? extends BaseValue<Integer>> key, IntGetter<H> getter) {
+            checkNotNull(getter);
+            field(key, getter::get);
+            this.primitiveGetters.put(key, getter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code long} field getter and setter for the given
+         * {@link Key}. Reading and writing the field through the typed
+         * accessors, such as {@link AbstractData#getLong(Key)}, won't box
+         * the value.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param setter The function for setting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> longField(Key<? extends BaseValue<Long>> key, LongGetter<H> getter, LongSetter<H> setter) {
+            checkNotNull(getter);
+            checkNotNull(setter);
+            field(key, getter::get, setter::set);
+            this.primitiveGetters.put(key, getter);
+            this.primitiveSetters.put(key, setter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code long} field getter for the given {@link Key}
+         * of an immutable manipulator.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> longField(Key<? extends BaseValue<Long>> key, LongGetter<H> getter) {
+            checkNotNull(getter);
+            field(key, getter::get);
+            this.primitiveGetters.put(key, getter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code double} field getter and setter for the given
+         * {@link Key}. Reading and writing the field through the typed
+         * accessors, such as {@link AbstractData#getDouble(Key)}, won't box
+         * the value.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @param setter The function for setting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> doubleField(Key<? extends BaseValue<Double>> key, DoubleGetter<H> getter, DoubleSetter<H> setter) {
+            checkNotNull(getter);
+            checkNotNull(setter);
+            field(key, getter::get, setter::set);
+            this.primitiveGetters.put(key, getter);
+            this.primitiveSetters.put(key, setter);
+            return this;
+        }
+
+        /**
+         * Registers the {@code double} field getter for the given {@link Key}
+         * of an immutable manipulator.
+         *
+         * @param key The key for the field
+         * @param getter The function for getting the field
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> doubleField(Key<? extends BaseValue<Double>> key, DoubleGetter<H> getter) {
+            checkNotNull(getter);
+            field(key, getter::get);
+            this.primitiveGetters.put(key, getter);
+            return this;
+        }
+
+        /**
+         * Registers the value getter for the given {@link Key}.
+         *
+         * @param key The key for the value return type
+         * @param getter The function for getting the value
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> value(Key<?> key, GetterFunction<H, ? extends V> getter) {
+            this.valueGetters.put(checkNotNull(key), checkNotNull(getter));
+            return this;
+        }
+
+        /**
+         * Opts in to generating the accessors of the schema at runtime.
+         *
+         * <p>Every function registered as a method reference to a public
+         * method, such as {@code FooData::getFoo}, will be called directly by
+         * a class generated for this schema, instead of going through the
+         * function. This avoids the megamorphic calls on the functions shared
+         * by every manipulator type. The same can be enabled for every schema
+         * with the {@value #GENERATE_ACCESSORS_PROPERTY} system property.</p>
+         *
+         * @return This builder, for chaining
+         */
+        public Builder<H, V> generateAccessors() {
+            this.generateAccessors = true;
+            return this;
+        }
+
+        public DataSchema<H, V> build() {
+            for (Key<?> key : this.valueGetters.keySet()) {
+                checkArgument(this.fieldGetters.containsKey(key), "A value getter was registered without a field getter for the key: " + key);
+            }
+            return new DataSchema<>(this);
+        }
+    }
+
+}
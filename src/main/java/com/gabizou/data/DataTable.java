@@ -0,0 +1,644 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.BooleanGetter;
+import com.gabizou.util.DoubleGetter;
+import com.gabizou.util.IntGetter;
+import com.gabizou.util.LongGetter;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+
+import java.util.Arrays;
+import java.util.function.DoubleUnaryOperator;
+import java.util.function.IntUnaryOperator;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Stores the fields of many manipulators of the same class in columns, one
+ * per {@link Key} of the {@link DataSchema}, instead of one object per
+ * manipulator.
+ *
+ * <p>Each row holds the fields of one manipulator. The fields registered
+ * with a primitive getter are kept in primitive arrays, {@code boolean}s
+ * packed into bits, so a row only takes the size of its fields. Scanning
+ * or updating a {@link Key} across all rows goes through a single
+ * contiguous array.</p>
+ *
+ * <p>Rows are copied from and to manipulators with {@link #add(Object)},
+ * {@link #store(int, Object)} and {@link #load(int, Object)}, and read or
+ * written in place through the typed accessors or a {@link Row}.</p>
+ *
+ * <p>Tables aren't thread safe.</p>
+ *
+ * @param <H> The type of manipulator
+ */
+public final class DataTable<H> {
+
+    /**
+     * Creates a new empty table for the manipulators of the given schema.
+     *
+     * @param schema The schema
+     * @param initialCapacity The number of rows to allocate up front
+     * @param <H> The type of manipulator
+     * @return The new table
+     */
+    public static <H> DataTable<H> create(DataSchema<H, ?> schema, int initialCapacity) {
+        checkArgument(initialCapacity >= 0, "The initial capacity can't be negative: %s", initialCapacity);
+        return new DataTable<>(checkNotNull(schema), Math.max(initialCapacity, 1));
+    }
+
+    private final DataSchema<H, ?> schema;
+    private final Column<H>[] columns;
+    private int capacity;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private DataTable(DataSchema<H, ?> schema, int capacity) {
+        this.schema = schema;
+        this.capacity = capacity;
+        this.columns = new Column[schema.size()];
+        for (int slot = 0; slot < schema.size(); slot++) {
+            final Object getter = schema.getPrimitiveGetter(slot);
+            final Column<H> column = getter instanceof BooleanGetter ? new BooleanColumn<>(schema, slot)
+                                     : getter instanceof IntGetter ? new IntColumn<>(schema, slot)
+                                     : getter instanceof LongGetter ? new LongColumn<>(schema, slot)
+                                     : getter instanceof DoubleGetter ? new DoubleColumn<>(schema, slot)
+                                     : new ObjectColumn<>(schema, slot);
+            column.resize(capacity);
+            this.columns[slot] = column;
+        }
+    }
+
+    public DataSchema<H, ?> getSchema() {
+        return this.schema;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The number of rows
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Adds a row holding the fields of the given manipulator.
+     *
+     * @param data The manipulator
+     * @return The index of the new row
+     */
+    public int add(H data) {
+        checkNotNull(data);
+        if (this.size == this.capacity) {
+            this.capacity = this.capacity + (this.capacity >> 1) + 1;
+            for (Column<H> column : this.columns) {
+                column.resize(this.capacity);
+            }
+        }
+        final int row = this.size++;
+        store(row, data);
+        return row;
+    }
+
+    /**
+     * Removes the given row by moving the last row into its place, so the
+     * index of the last row changes to the index of the removed row.
+     *
+     * @param row The row to remove
+     * @return The index the last row had, which is now the removed index
+     */
+    public int removeSwap(int row) {
+        checkElementIndex(row, this.size);
+        final int last = --this.size;
+        for (Column<H> column : this.columns) {
+            if (row != last) {
+                column.move(last, row);
+            }
+            column.clear(last);
+        }
+        return last;
+    }
+
+    /**
+     * Copies the fields of the given manipulator into the row.
+     *
+     * @param row The row
+     * @param data The manipulator
+     */
+    public void store(int row, H data) {
+        checkElementIndex(row, this.size);
+        checkNotNull(data);
+        for (Column<H> column : this.columns) {
+            column.store(row, data);
+        }
+    }
+
+    /**
+     * Copies the fields of the row into the given manipulator, which must be
+     * mutable. The fields of an {@link AbstractData} are marked changed.
+     *
+     * @param row The row
+     * @param data The manipulator
+     * @return The manipulator, for chaining
+     */
+    public H load(int row, H data) {
+        checkElementIndex(row, this.size);
+        checkNotNull(data);
+        // The columns write through the schema, which leaves marking the fields to us
+        final AbstractData<?, ?> changed = data instanceof AbstractData ? (AbstractData<?, ?>) data : null;
+        for (Column<H> column : this.columns) {
+            column.load(row, data);
+            if (changed != null) {
+                changed.markChanged(column.slot);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates a {@link Row} at the given index, which can be moved to other
+     * rows afterwards.
+     *
+     * @param row The row
+     * @return The new row view
+     */
+    public Row row(int row) {
+        return new Row().moveTo(row);
+    }
+
+    public Object get(int row, Key<?> key) {
+        checkElementIndex(row, this.size);
+        return column(key).get(row);
+    }
+
+    public void set(int row, Key<?> key, Object value) {
+        checkElementIndex(row, this.size);
+        column(key).set(row, checkNotNull(value));
+    }
+
+    public boolean getBoolean(int row, Key<? extends BaseValue<Boolean>> key) {
+        checkElementIndex(row, this.size);
+        return booleans(key).getBit(row);
+    }
+
+    public void setBoolean(int row, Key<? extends BaseValue<Boolean>> key, boolean value) {
+        checkElementIndex(row, this.size);
+        booleans(key).setBit(row, value);
+    }
+
+    public int getInt(int row, Key<? extends BaseValue<Integer>> key) {
+        checkElementIndex(row, this.size);
+        return ints(key).values[row];
+    }
+
+    public void setInt(int row, Key<? extends BaseValue<Integer>> key, int value) {
+        checkElementIndex(row, this.size);
+        ints(key).values[row] = value;
+    }
+
+    public long getLong(int row, Key<? extends BaseValue<Long>> key) {
+        checkElementIndex(row, this.size);
+        return longs(key).values[row];
+    }
+
+    public void setLong(int row, Key<? extends BaseValue<Long>> key, long value) {
+        checkElementIndex(row, this.size);
+        longs(key).values[row] = value;
+    }
+
+    public double getDouble(int row, Key<? extends BaseValue<Double>> key) {
+        checkElementIndex(row, this.size);
+        return doubles(key).values[row];
+    }
+
+    public void setDouble(int row, Key<? extends BaseValue<Double>> key, double value) {
+        checkElementIndex(row, this.size);
+        doubles(key).values[row] = value;
+    }
+
+    /**
+     * Counts the rows of which the given {@code boolean} field is true.
+     *
+     * @param key The key
+     * @return The number of rows
+     */
+    public int countTrue(Key<? extends BaseValue<Boolean>> key) {
+        final long[] bits = booleans(key).bits;
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Streams the values of the given {@code int} field, in row order.
+     *
+     * @param key The key
+     * @return The values
+     */
+    public IntStream streamInts(Key<? extends BaseValue<Integer>> key) {
+        return Arrays.stream(ints(key).values, 0, this.size);
+    }
+
+    public LongStream streamLongs(Key<? extends BaseValue<Long>> key) {
+        return Arrays.stream(longs(key).values, 0, this.size);
+    }
+
+    public DoubleStream streamDoubles(Key<? extends BaseValue<Double>> key) {
+        return Arrays.stream(doubles(key).values, 0, this.size);
+    }
+
+    /**
+     * Replaces the value of the given {@code int} field of every row.
+     *
+     * @param key The key
+     * @param function The function computing the new value from the old one
+     */
+    public void transformInts(Key<? extends BaseValue<Integer>> key, IntUnaryOperator function) {
+        final int[] values = ints(key).values;
+        for (int row = 0; row < this.size; row++) {
+            values[row] = function.applyAsInt(values[row]);
+        }
+    }
+
+    public void transformLongs(Key<? extends BaseValue<Long>> key, LongUnaryOperator function) {
+        final long[] values = longs(key).values;
+        for (int row = 0; row < this.size; row++) {
+            values[row] = function.applyAsLong(values[row]);
+        }
+    }
+
+    public void transformDoubles(Key<? extends BaseValue<Double>> key, DoubleUnaryOperator function) {
+        final double[] values = doubles(key).values;
+        for (int row = 0; row < this.size; row++) {
+            values[row] = function.applyAsDouble(values[row]);
+        }
+    }
+
+    private Column<H> column(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        checkArgument(slot != DataSchema.NO_SLOT, "This table doesn't support the following key: %s", key);
+        return this.columns[slot];
+    }
+
+    private BooleanColumn<H> booleans(Key<?> key) {
+        final Column<H> column = column(key);
+        checkArgument(column instanceof BooleanColumn, "The field of %s wasn't registered as a boolean field", key);
+        return (BooleanColumn<H>) column;
+    }
+
+    private IntColumn<H> ints(Key<?> key) {
+        final Column<H> column = column(key);
+        checkArgument(column instanceof IntColumn, "The field of %s wasn't registered as an int field", key);
+        return (IntColumn<H>) column;
+    }
+
+    private LongColumn<H> longs(Key<?> key) {
+        final Column<H> column = column(key);
+        checkArgument(column instanceof LongColumn, "The field of %s wasn't registered as a long field", key);
+        return (LongColumn<H>) column;
+    }
+
+    private DoubleColumn<H> doubles(Key<?> key) {
+        final Column<H> column = column(key);
+        checkArgument(column instanceof DoubleColumn, "The field of %s wasn't registered as a double field", key);
+        return (DoubleColumn<H>) column;
+    }
+
+    /**
+     * A flyweight view of a single row of the table, which can be moved
+     * between rows to read or write them in place without creating a
+     * manipulator for each.
+     *
+     * <p>A row isn't a {@link org.spongepowered.api.data.manipulator.DataManipulator}
+     * itself, as a manipulator is expected to keep its values when it is
+     * copied or made immutable, which a view that moves between rows, and of
+     * which the row may be removed, can't do. A manipulator of a row is
+     * created with {@link #load(Object)} instead.</p>
+     */
+    public final class Row {
+
+        private int row;
+
+        Row() {
+        }
+
+        public int getIndex() {
+            return this.row;
+        }
+
+        public Row moveTo(int row) {
+            checkElementIndex(row, DataTable.this.size);
+            this.row = row;
+            return this;
+        }
+
+        public Object get(Key<?> key) {
+            return DataTable.this.get(this.row, key);
+        }
+
+        public Row set(Key<?> key, Object value) {
+            DataTable.this.set(this.row, key, value);
+            return this;
+        }
+
+        public boolean getBoolean(Key<? extends BaseValue<Boolean>> key) {
+            return DataTable.this.getBoolean(this.row, key);
+        }
+
+        public Row setBoolean(Key<? extends BaseValue<Boolean>> key, boolean value) {
+            DataTable.this.setBoolean(this.row, key, value);
+            return this;
+        }
+
+        public int getInt(Key<? extends BaseValue<Integer>> key) {
+            return DataTable.this.getInt(this.row, key);
+        }
+
+        public Row setInt(Key<? extends BaseValue<Integer>> key, int value) {
+            DataTable.this.setInt(this.row, key, value);
+            return this;
+        }
+
+        public long getLong(Key<? extends BaseValue<Long>> key) {
+            return DataTable.this.getLong(this.row, key);
+        }
+
+        public Row setLong(Key<? extends BaseValue<Long>> key, long value) {
+            DataTable.this.setLong(this.row, key, value);
+            return this;
+        }
+
+        public double getDouble(Key<? extends BaseValue<Double>> key) {
+            return DataTable.this.getDouble(this.row, key);
+        }
+
+        public Row setDouble(Key<? extends BaseValue<Double>> key, double value) {
+            DataTable.this.setDouble(this.row, key, value);
+            return this;
+        }
+
+        public H load(H data) {
+            return DataTable.this.load(this.row, data);
+        }
+
+        public Row store(H data) {
+            DataTable.this.store(this.row, data);
+            return this;
+        }
+    }
+
+    private abstract static class Column<H> {
+
+        final DataSchema<H, ?> schema;
+        final int slot;
+
+        Column(DataSchema<H, ?> schema, int slot) {
+            this.schema = schema;
+            this.slot = slot;
+        }
+
+        abstract void resize(int capacity);
+
+        abstract void store(int row, H data);
+
+        abstract void load(int row, H data);
+
+        abstract Object get(int row);
+
+        abstract void set(int row, Object value);
+
+        abstract void move(int from, int to);
+
+        void clear(int row) {
+        }
+    }
+
+    private static final class BooleanColumn<H> extends Column<H> {
+
+        long[] bits = new long[0];
+
+        BooleanColumn(DataSchema<H, ?> schema, int slot) {
+            super(schema, slot);
+        }
+
+        boolean getBit(int row) {
+            return (this.bits[row >>> 6] & (1L << row)) != 0;
+        }
+
+        void setBit(int row, boolean value) {
+            if (value) {
+                this.bits[row >>> 6] |= 1L << row;
+            } else {
+                this.bits[row >>> 6] &= ~(1L << row);
+            }
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.bits = Arrays.copyOf(this.bits, (capacity + 63) >>> 6);
+        }
+
+        @Override
+        void store(int row, H data) {
+            setBit(row, this.schema.getBoolean(data, this.slot));
+        }
+
+        @Override
+        void load(int row, H data) {
+            this.schema.setBoolean(data, this.slot, getBit(row));
+        }
+
+        @Override
+        Object get(int row) {
+            return getBit(row);
+        }
+
+        @Override
+        void set(int row, Object value) {
+            setBit(row, (Boolean) value);
+        }
+
+        @Override
+        void move(int from, int to) {
+            setBit(to, getBit(from));
+        }
+
+        @Override
+        void clear(int row) {
+            // Keeps countTrue from counting removed rows
+            setBit(row, false);
+        }
+    }
+
+    private static final class IntColumn<H> extends Column<H> {
+
+        int[] values = new int[0];
+
+        IntColumn(DataSchema<H, ?> schema, int slot) {
+            super(schema, slot);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void store(int row, H data) {
+            this.values[row] = this.schema.getInt(data, this.slot);
+        }
+
+        @Override
+        void load(int row, H data) {
+            this.schema.setInt(data, this.slot, this.values[row]);
+        }
+
+        @Override
+        Object get(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            this.values[row] = (Integer) value;
+        }
+
+        @Override
+        void move(int from, int to) {
+            this.values[to] = this.values[from];
+        }
+    }
+
+    private static final class LongColumn<H> extends Column<H> {
+
+        long[] values = new long[0];
+
+        LongColumn(DataSchema<H, ?> schema, int slot) {
+            super(schema, slot);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void store(int row, H data) {
+            this.values[row] = this.schema.getLong(data, this.slot);
+        }
+
+        @Override
+        void load(int row, H data) {
+            this.schema.setLong(data, this.slot, this.values[row]);
+        }
+
+        @Override
+        Object get(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            this.values[row] = (Long) value;
+        }
+
+        @Override
+        void move(int from, int to) {
+            this.values[to] = this.values[from];
+        }
+    }
+
+    private static final class DoubleColumn<H> extends Column<H> {
+
+        double[] values = new double[0];
+
+        DoubleColumn(DataSchema<H, ?> schema, int slot) {
+            super(schema, slot);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void store(int row, H data) {
+            this.values[row] = this.schema.getDouble(data, this.slot);
+        }
+
+        @Override
+        void load(int row, H data) {
+            this.schema.setDouble(data, this.slot, this.values[row]);
+        }
+
+        @Override
+        Object get(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            this.values[row] = (Double) value;
+        }
+
+        @Override
+        void move(int from, int to) {
+            this.values[to] = this.values[from];
+        }
+    }
+
+    private static final class ObjectColumn<H> extends Column<H> {
+
+        Object[] values = new Object[0];
+
+        ObjectColumn(DataSchema<H, ?> schema, int slot) {
+            super(schema, slot);
+        }
+
+        @Override
+        void resize(int capacity) {
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+
+        @Override
+        void store(int row, H data) {
+            this.values[row] = this.schema.get(data, this.slot);
+        }
+
+        @Override
+        void load(int row, H data) {
+            this.schema.set(data, this.slot, this.values[row]);
+        }
+
+        @Override
+        Object get(int row) {
+            return this.values[row];
+        }
+
+        @Override
+        void set(int row, Object value) {
+            this.values[row] = value;
+        }
+
+        @Override
+        void move(int from, int to) {
+            this.values[to] = this.values[from];
+        }
+
+        @Override
+        void clear(int row) {
+            // Doesn't keep the removed value from being collected
+            this.values[row] = null;
+        }
+    }
+
+}
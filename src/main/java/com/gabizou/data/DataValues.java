@@ -0,0 +1,32 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import org.spongepowered.api.data.value.ValueBuilder;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the {@link ValueBuilder} used by generated manipulators to create
+ * their values. The plugin is expected to provide the builder from the game
+ * registry during initialization, before any generated manipulator is used.
+ */
+public final class DataValues {
+
+    @Nullable private static volatile ValueBuilder builder;
+
+    private DataValues() {
+    }
+
+    public static ValueBuilder getBuilder() {
+        final ValueBuilder current = builder;
+        checkState(current != null, "The ValueBuilder hasn't been provided yet!");
+        return current;
+    }
+
+    public static void setBuilder(ValueBuilder valueBuilder) {
+        builder = checkNotNull(valueBuilder);
+    }
+
+}
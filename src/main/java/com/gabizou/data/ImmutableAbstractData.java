@@ -3,12 +3,10 @@ package com.gabizou.data;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
-import com.gabizou.util.GetterFunction;
+import com.gabizou.util.KeyValueConsumer;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.spongepowered.api.data.key.Key;
 import org.spongepowered.api.data.manipulator.DataManipulator;
 import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
@@ -16,10 +14,8 @@ import org.spongepowered.api.data.value.BaseValue;
 import org.spongepowered.api.data.value.immutable.ImmutableValue;
 import org.spongepowered.api.data.value.mutable.Value;
 
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
 
 import javax.annotation.Nullable;
 
@@ -30,14 +26,14 @@ import javax.annotation.Nullable;
  * mutated once created. In other words, it's safe to pass around these immutable
  * variants across threads without worry of the underlying values being changed.
  *
- * It may be possible that some commonly used {@link ImmutableDataManipulator}s
- * may be cached for better performance when processing obtaining new
- * {@link ImmutableDataManipulator}s with different values.
+ * Commonly used {@link ImmutableDataManipulator}s can be cached for better
+ * performance when obtaining new {@link ImmutableDataManipulator}s with
+ * different values, see {@link ImmutableDataCache}.
  *
- * <p>Note: It is ABSOLUTELY REQUIRED to {@link #registerKeyValue(Key, GetterFunction)}
- * and {@link #registerFieldGetter(Key, GetterFunction)} for all possible
- * {@link Key}s and {@link Value}s the {@link DataManipulator} may provide as
- * all of the implementation methods provided here are handled using those.</p>
+ * <p>Note: It is ABSOLUTELY REQUIRED to register the field getter and the
+ * value getter in the {@link DataSchema} for all possible {@link Key}s and
+ * {@link Value}s the {@link DataManipulator} may provide as all of the
+ * implementation methods provided here are handled using those.</p>
  *
  * @param <I> The immutable data manipulator type
  * @param <M> The mutable manipulator type
@@ -45,8 +41,6 @@ import javax.annotation.Nullable;
 @SuppressWarnings("unchecked")
 public abstract class ImmutableAbstractData<I extends ImmutableAbstractData<I, M>, M extends AbstractData<M, I>> implements ImmutableDataManipulator<I, M> {
 
-    private final Class<I> immutableClass;
-
     // Ok, so, you're probably asking "Why the hell are you doing this type of hackery?"
     // Answer: Because I'd rather have these abstract functions (read method references)
     // to get and set field values according to the key, and get values based on key
@@ -59,107 +53,229 @@ public abstract class ImmutableAbstractData<I extends ImmutableAbstractData<I, M
     // The largest issue was implementation. Since most fields are simple to get and
     // set, other values, such as ItemStacks require a bit of finer tuning.
     //
-    private final Map<Key<?>, GetterFunction<ImmutableValue<?>>> keyValueMap = Maps.newHashMap();
-    private final Map<Key<?>, GetterFunction<?>> keyFieldGetterMap = Maps.newHashMap();
-
-    protected ImmutableAbstractData(Class<I> immutableClass) {
-        this.immutableClass = checkNotNull(immutableClass);
-        registerGetters();
-    }
+    // The functions live in a DataSchema shared by every instance of the class, so
+    // the only state an instance carries is its own fields.
+    private final DataSchema<I, ImmutableValue<?>> schema;
+    // Each value is created at most once, on the first read. Racing threads may
+    // both create the same value, which is harmless as the values are immutable.
+    @Nullable private ImmutableValue<?>[] valueCache;
+    // Computed on the first call to hashCode(), zero until then
+    private int hashCode;
 
     /**
-     * Simple registration method for the keys to value return methods.
+     * Creates a new immutable manipulator sharing the given {@link DataSchema}.
+     * The schema should be built once per manipulator class and kept as a
+     * constant, as it is never modified by any instance.
      *
-     * <p>Note that this is still going to be usable, but will be made simpler
-     * when Java 8 is used, as lambda expressions can refrence methods. The
-     * update won't actually change these registration methods, but the
-     * {@link DataManipulator}s calling these registration methods will
-     * become single line simplifications.</p>
-     *
-     * @param key The key for the value return type
-     * @param function The function for getting the value
+     * @param schema The schema for the manipulator class
      */
-    protected final void registerKeyValue(Key<?> key, GetterFunction<ImmutableValue<?>> function) {
-        this.keyValueMap.put(checkNotNull(key), checkNotNull(function));
+    protected ImmutableAbstractData(DataSchema<I, ImmutableValue<?>> schema) {
+        this.schema = checkNotNull(schema);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            metrics.onCreate(schema.getHolderClass());
+        }
     }
 
-    /**
-     * Simple registration method for the keys to field getter methods.
-     *
-     * <p>Note that this is still going to be usable, but will be made simpler
-     * when Java 8 is used, as lambda expressions can refrence methods. The
-     * update won't actually change these registration methods, but the
-     * {@link DataManipulator}s calling these registration methods will
-     * become single line simplifications.</p>
-     *
-     * @param key The key for the value return type
-     * @param function The function for getting the field
-     */
-    protected final void registerFieldGetter(Key<?> key, GetterFunction<?> function) {
-        this.keyFieldGetterMap.put(checkNotNull(key), checkNotNull(function));
+    protected final DataSchema<I, ImmutableValue<?>> getSchema() {
+        return this.schema;
     }
 
-    protected abstract void registerGetters();
-
     @Override
     public <E> Optional<E> get(Key<? extends BaseValue<E>> key) {
-        if (!supports(key)) {
+        final int slot = this.schema.getSlot(key);
+        recordRead(slot, key);
+        if (slot == DataSchema.NO_SLOT) {
             return Optional.absent();
         }
-        return Optional.of((E) this.keyFieldGetterMap.get(key).get());
+        return Optional.of((E) this.schema.get((I) this, slot));
     }
 
+    // getOrNull and getOrElse look the slot up once and read the field directly
+    // instead of going through get(Key), so no Optional is created.
     @Nullable
     @Override
     public <E> E getOrNull(Key<? extends BaseValue<E>> key) {
-        checkArgument(supports(key));
-        return get(key).orNull();
+        return (E) this.schema.get((I) this, readSlot(key));
     }
 
     @Override
     public <E> E getOrElse(Key<? extends BaseValue<E>> key, E defaultValue) {
-        checkArgument(supports(key));
-        return get(key).or(checkNotNull(defaultValue, "Provided a null default value for 'getOrElse(Key, null)'!"));
+        checkNotNull(defaultValue, "Provided a null default value for 'getOrElse(Key, null)'!");
+        final E value = (E) this.schema.get((I) this, readSlot(key));
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Gets the {@code boolean} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#booleanField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final boolean getBoolean(Key<? extends BaseValue<Boolean>> key) {
+        return this.schema.getBoolean((I) this, readSlot(key));
+    }
+
+    /**
+     * Gets the {@code int} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#intField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final int getInt(Key<? extends BaseValue<Integer>> key) {
+        return this.schema.getInt((I) this, readSlot(key));
+    }
+
+    /**
+     * Gets the {@code long} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#longField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final long getLong(Key<? extends BaseValue<Long>> key) {
+        return this.schema.getLong((I) this, readSlot(key));
+    }
+
+    /**
+     * Gets the {@code double} value for the given {@link Key} without creating
+     * an {@link Optional}. The value isn't boxed either, provided the field was
+     * registered with {@link DataSchema.Builder#doubleField}.
+     *
+     * @param key The key
+     * @return The value
+     * @throws IllegalArgumentException If the key isn't supported
+     */
+    public final double getDouble(Key<? extends BaseValue<Double>> key) {
+        return this.schema.getDouble((I) this, readSlot(key));
+    }
+
+    private int readSlot(Key<?> key) {
+        final int slot = this.schema.getSlot(key);
+        recordRead(slot, key);
+        checkArgument(slot != DataSchema.NO_SLOT, "This data manipulator doesn't support the following key: %s", key);
+        return slot;
+    }
+
+    // Reports a read of the given key to the metrics, if any are installed
+    private void recordRead(int slot, Key<?> key) {
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            if (slot == DataSchema.NO_SLOT) {
+                metrics.onRejected(this.schema.getHolderClass(), key);
+            } else {
+                metrics.onGet(this.schema.getHolderClass(), key);
+            }
+        }
     }
 
     @Override
     public <E, V extends BaseValue<E>> Optional<V> getValue(Key<V> key) {
-        if (!this.keyValueMap.containsKey(key)) {
-            return Optional.absent();
+        final int slot = this.schema.getSlot(key);
+        final DataMetrics metrics = DataInstrumentation.metrics;
+        if (metrics != null) {
+            if (slot == DataSchema.NO_SLOT) {
+                metrics.onRejected(this.schema.getHolderClass(), key);
+            } else {
+                metrics.onGetValue(this.schema.getHolderClass(), key);
+            }
         }
-        return Optional.of((V) checkNotNull(this.keyValueMap.get(key).get()));
+        final ImmutableValue<?> value = slot == DataSchema.NO_SLOT ? null : getCachedValue(slot);
+        return Optional.fromNullable((V) value);
+    }
+
+    @Nullable
+    private ImmutableValue<?> getCachedValue(int slot) {
+        ImmutableValue<?>[] cache = this.valueCache;
+        if (cache == null) {
+            cache = this.valueCache = new ImmutableValue<?>[this.schema.size()];
+        }
+        ImmutableValue<?> value = cache[slot];
+        if (value == null) {
+            value = cache[slot] = this.schema.getValue((I) this, slot);
+        }
+        return value;
     }
 
     @Override
     public boolean supports(Key<?> key) {
-        return this.keyFieldGetterMap.containsKey(checkNotNull(key));
+        return this.schema.supports(key);
     }
 
     @Override
     public boolean supports(BaseValue<?> baseValue) {
-        return this.keyFieldGetterMap.containsKey(checkNotNull(baseValue).getKey());
+        return this.schema.supports(checkNotNull(baseValue).getKey());
     }
 
     @Override
     public Set<Key<?>> getKeys() {
-        return ImmutableSet.copyOf(this.keyValueMap.keySet());
+        return this.schema.getKeys();
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s to the given consumer, in the
+     * order they were registered, without creating a collection.
+     *
+     * @param consumer The consumer
+     */
+    public final void forEachKey(Consumer<? super Key<?>> consumer) {
+        this.schema.forEachKey(checkNotNull(consumer));
+    }
+
+    /**
+     * Passes all of the supported {@link Key}s and their field values to the
+     * given consumer, in the order they were registered, without creating a
+     * collection or any {@link BaseValue}s.
+     *
+     * @param consumer The consumer
+     */
+    public final void forEachRaw(KeyValueConsumer consumer) {
+        this.schema.forEachRaw((I) this, checkNotNull(consumer));
     }
 
     @Override
     public Set<ImmutableValue<?>> getValues() {
         ImmutableSet.Builder<ImmutableValue<?>> builder = ImmutableSet.builder();
-        for (GetterFunction<ImmutableValue<?>> function : this.keyValueMap.values()) {
-            builder.add(checkNotNull(function.get()));
+        for (int slot = 0; slot < this.schema.size(); slot++) {
+            final ImmutableValue<?> value = getCachedValue(slot);
+            if (value != null) {
+                builder.add(value);
+            }
         }
         return builder.build();
     }
 
+    /**
+     * Hashes the values of all of the fields registered in the
+     * {@link DataSchema}. The hash is computed on the first call and kept, as
+     * none of the fields can change.
+     */
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.immutableClass);
+        int hash = this.hashCode;
+        if (hash == 0) {
+            hash = this.schema.getHolderClass().hashCode();
+            for (int slot = 0; slot < this.schema.size(); slot++) {
+                hash = 31 * hash + Objects.hashCode(this.schema.get((I) this, slot));
+            }
+            this.hashCode = hash;
+        }
+        return hash;
     }
 
-    @SuppressWarnings("rawtypes")
+    /**
+     * Checks whether the given object is a manipulator of the same class of
+     * which the values of all of the fields registered in the
+     * {@link DataSchema} are equal.
+     */
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -168,8 +284,48 @@ public abstract class ImmutableAbstractData<I extends ImmutableAbstractData<I, M
         if (obj == null || getClass() != obj.getClass()) {
             return false;
         }
-        final ImmutableAbstractData other = (ImmutableAbstractData) obj;
-        return Objects.equal(this.immutableClass, other.immutableClass);
+        final ImmutableAbstractData<?, ?> other = (ImmutableAbstractData<?, ?>) obj;
+        if (this.hashCode != 0 && other.hashCode != 0 && this.hashCode != other.hashCode) {
+            return false;
+        }
+        for (int slot = 0; slot < this.schema.size(); slot++) {
+            if (!Objects.equal(this.schema.get((I) this, slot), this.schema.get((I) other, slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the fields that differ between this manipulator and the given
+     * one, see {@link DataPatch#diff(DataSchema, Object, Object)}.
+     *
+     * @param other The changed manipulator
+     * @return The differing fields, with the values of the given manipulator
+     */
+    public final DataPatch diff(I other) {
+        return DataPatch.diff(this.schema, (I) this, other);
+    }
+
+    /**
+     * Gets a manipulator with the fields of the given {@link DataPatch} set,
+     * through {@link #with(Key, Object)}.
+     *
+     * @param patch The patch
+     * @return The patched manipulator, or this manipulator if the patch is empty
+     * @throws IllegalArgumentException If the patch contains a key that isn't
+     *     supported
+     */
+    @SuppressWarnings("rawtypes")
+    public final I patch(DataPatch patch) {
+        I result = (I) this;
+        for (int i = 0; i < patch.size(); i++) {
+            final Optional<I> patched = result.with((Key) patch.getKey(i), patch.getValue(i));
+            checkArgument(patched.isPresent(), "The patch contains a key that isn't supported by %s: %s", this.schema.getHolderClass(),
+                          patch.getKey(i));
+            result = patched.get();
+        }
+        return result;
     }
 
     @Override
@@ -0,0 +1,140 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * Interns the instances of an {@link ImmutableAbstractData} class, so that
+ * equal manipulators, that is, manipulators of which all of the fields
+ * registered in the {@link DataSchema} are equal, share a single instance.
+ *
+ * <p>The cache is bounded, the least recently used instances are evicted
+ * once the maximum size is reached. The instances are also only weakly
+ * referenced, so an instance no longer used by any holder may be collected
+ * before that.</p>
+ *
+ * <p>A cache is usually kept as a constant of the manipulator class, and used
+ * by {@code with}, {@code asImmutable} and the immutable builders, which
+ * {@link PersistentImmutableData} does through
+ * {@link PersistentImmutableData#getCache()}. A cache must only hold
+ * instances of a single class. The instances are looked up by
+ * their field values, so a new instance is only created when none is
+ * cached:</p>
+ *
+ * <pre>
+ * private static final ImmutableDataCache&lt;ImmutableFooData&gt; CACHE = ImmutableDataCache.create(256);
+ *
+ * public static ImmutableFooData of(int foo) {
+ *     return CACHE.intern(new Object[] {foo}, values -&gt; new ImmutableFooData((Integer) values[0]));
+ * }
+ * </pre>
+ *
+ * @param <I> The type of immutable manipulator
+ */
+public final class ImmutableDataCache<I extends ImmutableAbstractData<I, ?>> {
+
+    /**
+     * Creates a new cache holding at most the given number of instances.
+     *
+     * @param maximumSize The maximum number of instances
+     * @param <I> The type of immutable manipulator
+     * @return The new cache
+     */
+    public static <I extends ImmutableAbstractData<I, ?>> ImmutableDataCache<I> create(int maximumSize) {
+        checkArgument(maximumSize > 0, "The maximum size must be positive, but was: %s", maximumSize);
+        return new ImmutableDataCache<>(maximumSize);
+    }
+
+    private final Cache<FieldValues, I> cache;
+
+    private ImmutableDataCache(int maximumSize) {
+        this.cache = CacheBuilder.newBuilder()
+            .maximumSize(maximumSize)
+            .weakValues()
+            .build();
+    }
+
+    /**
+     * Gets the cached instance with the given field values, creating and
+     * caching a new instance with the given factory if there is none yet.
+     *
+     * @param values The field values, in the slot order of the schema
+     * @param factory Creates the instance with the given field values
+     * @return The cached instance
+     */
+    public I intern(Object[] values, Function<? super Object[], ? extends I> factory) {
+        checkNotNull(factory);
+        final FieldValues key = new FieldValues(checkNotNull(values));
+        final I cached = this.cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final I created = checkNotNull(factory.apply(values), "The factory created a null manipulator");
+        // Copied, as the caller may reuse the array once this returns
+        final I existing = this.cache.asMap().putIfAbsent(new FieldValues(values.clone()), created);
+        return existing == null ? created : existing;
+    }
+
+    /**
+     * Gets the cached instance equal to the given manipulator, caching the
+     * given manipulator if there is none yet. Prefer
+     * {@link #intern(Object[], Function)}, which doesn't need an instance
+     * to be created first.
+     *
+     * @param data The manipulator
+     * @return The cached instance, which may be the given manipulator
+     */
+    public I intern(I data) {
+        final DataSchema<I, ?> schema = checkNotNull(data).getSchema();
+        final Object[] values = new Object[schema.size()];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = schema.get(data, slot);
+        }
+        return intern(values, v -> data);
+    }
+
+    /**
+     * Gets the number of instances currently cached. This is an estimate, as
+     * collected instances may not have been removed yet.
+     *
+     * @return The number of cached instances
+     */
+    public long size() {
+        return this.cache.size();
+    }
+
+    public void clear() {
+        this.cache.invalidateAll();
+    }
+
+    private static final class FieldValues {
+
+        private final Object[] values;
+        private final int hashCode;
+
+        FieldValues(Object[] values) {
+            this.values = values;
+            this.hashCode = Arrays.hashCode(values);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object obj) {
+            return this == obj || obj instanceof FieldValues && this.hashCode == ((FieldValues) obj).hashCode
+                                  && Arrays.equals(this.values, ((FieldValues) obj).values);
+        }
+    }
+
+}
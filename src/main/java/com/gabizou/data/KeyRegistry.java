@@ -0,0 +1,131 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.collect.Lists;
+import org.spongepowered.api.data.key.Key;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns every {@link Key} used by a {@link DataSchema} a small, stable
+ * integer id. The ids are dense, starting at {@code 0}, so they can be used to
+ * index flat arrays and bit sets instead of hashing the {@link Key} for every
+ * lookup.
+ *
+ * <p>Ids are only stable for the lifetime of the JVM, they should never be
+ * persisted.</p>
+ */
+public final class KeyRegistry {
+
+    /**
+     * The id returned by {@link #lookupId(Key)} for a {@link Key} that was
+     * never registered.
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final Map<Key<?>, Integer> ids = new ConcurrentHashMap<>();
+    private static final List<Key<?>> keys = Lists.newArrayList();
+
+    private KeyRegistry() {
+    }
+
+    /**
+     * Gets the id of the given {@link Key}, assigning the next available id
+     * if the key has not yet been registered.
+     *
+     * @param key The key
+     * @return The id of the key
+     */
+    public static int getId(Key<?> key) {
+        final Integer id = ids.get(checkNotNull(key));
+        if (id != null) {
+            return id;
+        }
+        synchronized (keys) {
+            final Integer existing = ids.get(key);
+            if (existing != null) {
+                return existing;
+            }
+            final int newId = keys.size();
+            keys.add(key);
+            ids.put(key, newId);
+            return newId;
+        }
+    }
+
+    /**
+     * Gets the id of the given {@link Key} without registering it.
+     *
+     * @param key The key
+     * @return The id of the key, or {@link #UNKNOWN} if it was never registered
+     */
+    public static int lookupId(Key<?> key) {
+        final Integer id = ids.get(checkNotNull(key));
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Creates a lookup table from key id to the index of the {@link Key} in
+     * the given array, registering any of the keys that weren't registered.
+     * Ids of keys not in the array map to {@code -1}.
+     *
+     * @param keys The keys
+     * @return The lookup table, to be used with {@link #lookupSlot(int[], Key)}
+     */
+    public static int[] createSlotTable(Key<?>... keys) {
+        int maxId = -1;
+        for (Key<?> key : keys) {
+            maxId = Math.max(maxId, getId(key));
+        }
+        final int[] table = new int[maxId + 1];
+        Arrays.fill(table, -1);
+        for (int i = 0; i < keys.length; i++) {
+            table[getId(keys[i])] = i;
+        }
+        return table;
+    }
+
+    /**
+     * Looks up the index of the given {@link Key} in a table created by
+     * {@link #createSlotTable(Key[])}.
+     *
+     * @param table The lookup table
+     * @param key The key
+     * @return The index, or {@code -1} if the key isn't in the table
+     */
+    public static int lookupSlot(int[] table, Key<?> key) {
+        final int id = lookupId(key);
+        return id >= 0 && id < table.length ? table[id] : -1;
+    }
+
+    /**
+     * Gets the {@link Key} registered with the given id.
+     *
+     * @param id The id
+     * @return The key
+     */
+    public static Key<?> getKey(int id) {
+        synchronized (keys) {
+            checkArgument(id >= 0 && id < keys.size(), "Unknown key id: " + id);
+            return keys.get(id);
+        }
+    }
+
+    /**
+     * Gets the number of registered {@link Key}s, which is also the next
+     * id to be assigned.
+     *
+     * @return The number of registered keys
+     */
+    public static int size() {
+        synchronized (keys) {
+            return keys.size();
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.service.persistence.InvalidDataException;
+
+import java.nio.ByteBuffer;
+
+import javax.annotation.Nullable;
+
+/**
+ * The data of a manipulator written by a {@link DataCodec}, which is only
+ * decoded as far as it is read.
+ *
+ * <p>Nothing is decoded until the first {@link #get(Key)}, which only finds
+ * where each value starts and decodes the value of that {@link Key}. Every
+ * decoded value is kept, so reading the same key again is just a lookup.
+ * Data that is never read, or only read, is written back by
+ * {@link #writeTo(ByteBuffer)} as a copy of the original bytes, without
+ * encoding anything.</p>
+ *
+ * <p>To change the data, {@link #decode(Object)} it onto a manipulator and
+ * encode that manipulator again.</p>
+ *
+ * <p>Instances aren't thread safe, as the decoded values are kept without
+ * any synchronization.</p>
+ *
+ * @param <H> The type of holder the data was written for
+ */
+public final class LazyData<H> {
+
+    /**
+     * Wraps the data of a single manipulator. The data is everything from the
+     * position of the buffer to its limit, which is shared rather than copied,
+     * so the buffer must not be changed afterwards.
+     *
+     * @param codec The codec the data was written by
+     * @param data The data
+     * @param <H> The type of holder
+     * @return The lazily decoded data
+     */
+    public static <H> LazyData<H> of(DataCodec<H> codec, ByteBuffer data) {
+        return new LazyData<>(checkNotNull(codec), data.slice());
+    }
+
+    private final DataCodec<H> codec;
+    private final ByteBuffer data;
+    @Nullable private int[] index;
+    @Nullable private Object[] values;
+
+    private LazyData(DataCodec<H> codec, ByteBuffer data) {
+        this.codec = codec;
+        this.data = data;
+    }
+
+    public DataCodec<H> getCodec() {
+        return this.codec;
+    }
+
+    public boolean supports(Key<?> key) {
+        return this.codec.getSchema().supports(key);
+    }
+
+    /**
+     * Gets the value of the given {@link Key}, decoding it if it wasn't read
+     * before.
+     *
+     * @param key The key
+     * @param <E> The type of value
+     * @return The value, if the key is supported and the data has a value
+     * @throws InvalidDataException If the data was written by a different
+     *     schema, or is malformed
+     */
+    @SuppressWarnings("unchecked")
+    public <E> Optional<E> get(Key<? extends BaseValue<E>> key) throws InvalidDataException {
+        final int slot = this.codec.getSchema().getSlot(key);
+        if (slot == DataSchema.NO_SLOT) {
+            return Optional.absent();
+        }
+        int[] index = this.index;
+        Object[] values = this.values;
+        if (index == null || values == null) {
+            index = this.index = this.codec.index(this.data);
+            values = this.values = new Object[index.length];
+        }
+        Object value = values[slot];
+        if (value == null) {
+            value = values[slot] = this.codec.read(this.data, index, slot);
+        }
+        return Optional.fromNullable((E) value);
+    }
+
+    /**
+     * Decodes all of the data onto the given holder, which must be mutable.
+     * The fields of an {@link AbstractData} holder are marked changed.
+     *
+     * @param holder The holder to set the fields on
+     * @return The holder, for chaining
+     * @throws InvalidDataException If the data was written by a different
+     *     schema, or is malformed
+     */
+    public H decode(H holder) throws InvalidDataException {
+        return this.codec.decode(this.data.duplicate(), holder);
+    }
+
+    /**
+     * Gets the number of bytes of the data, which is the number of bytes
+     * written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @return The number of bytes
+     */
+    public int size() {
+        return this.data.remaining();
+    }
+
+    /**
+     * Writes the original bytes of the data to the given buffer.
+     *
+     * @param buffer The buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(this.data.duplicate());
+    }
+
+}
@@ -0,0 +1,204 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.manipulator.DataManipulator;
+import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+/**
+ * Holds the {@link DataManipulator}s of a single data holder, at most one per
+ * manipulator class. Every manipulator class is assigned a small, dense id
+ * the first time a manipulator is offered under it, like the ids of the
+ * {@link KeyRegistry}, and the manipulators are kept in a flat array indexed
+ * by those ids, so looking one up never hashes. Looking up a class which was
+ * never offered doesn't assign it an id.
+ *
+ * <p>The manipulators are looked up by the class they were offered under,
+ * for example the interface of a generated manipulator. Containers aren't
+ * thread safe, the same as the holders keeping them.</p>
+ */
+public final class ManipulatorContainer {
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+    // The id of every class, -1 until a manipulator is offered under it
+    private static final ClassValue<AtomicInteger> ids = new ClassValue<AtomicInteger>() {
+        @Override
+        protected AtomicInteger computeValue(Class<?> type) {
+            return new AtomicInteger(-1);
+        }
+    };
+
+    private static final DataManipulator<?, ?>[] EMPTY = new DataManipulator<?, ?>[0];
+    private static final Class<?>[] EMPTY_TYPES = new Class<?>[0];
+
+    /**
+     * Gets the id of the given manipulator class, assigning the next
+     * available id if the class doesn't have one yet. The ids are only stable
+     * for the lifetime of the JVM, they should never be persisted.
+     *
+     * @param type The manipulator class
+     * @return The id
+     */
+    public static int getId(Class<?> type) {
+        final AtomicInteger id = ids.get(type);
+        final int current = id.get();
+        if (current >= 0) {
+            return current;
+        }
+        final int next = nextId.getAndIncrement();
+        // Another thread may have assigned an id in the meantime, the next id
+        // is then simply left unused
+        return id.compareAndSet(-1, next) ? next : id.get();
+    }
+
+    private DataManipulator<?, ?>[] manipulators = EMPTY;
+    // The class each manipulator was offered under, at the same index
+    private Class<?>[] types = EMPTY_TYPES;
+    private int size;
+
+    /**
+     * Gets the manipulator of the given class without creating an
+     * {@link Optional}.
+     *
+     * @param type The manipulator class
+     * @param <T> The type of manipulator
+     * @return The manipulator, or null if there is none of the given class
+     */
+    @Nullable
+    public <T extends DataManipulator<?, ?>> T getOrNull(Class<T> type) {
+        final int id = ids.get(type).get();
+        return id >= 0 && id < this.manipulators.length ? type.cast(this.manipulators[id]) : null;
+    }
+
+    public <T extends DataManipulator<?, ?>> Optional<T> get(Class<T> type) {
+        return Optional.fromNullable(getOrNull(type));
+    }
+
+    public boolean contains(Class<? extends DataManipulator<?, ?>> type) {
+        return getOrNull(type) != null;
+    }
+
+    /**
+     * Offers the given manipulator under the given class, replacing the
+     * manipulator offered under that class if there was one.
+     *
+     * @param type The class to retrieve the manipulator with
+     * @param manipulator The manipulator
+     * @param <T> The type of manipulator
+     * @return The replaced manipulator, if there was one
+     * @throws IllegalArgumentException If the manipulator isn't an instance
+     *     of the given class
+     */
+    public <T extends DataManipulator<?, ?>> Optional<T> offer(Class<T> type, T manipulator) {
+        checkArgument(type.isInstance(checkNotNull(manipulator)), "The manipulator isn't a %s: %s", type.getName(), manipulator);
+        final int id = getId(type);
+        if (id >= this.manipulators.length) {
+            final int length = Math.max(id + 1, this.manipulators.length * 2);
+            this.manipulators = Arrays.copyOf(this.manipulators, length);
+            this.types = Arrays.copyOf(this.types, length);
+        }
+        final T previous = type.cast(this.manipulators[id]);
+        this.manipulators[id] = manipulator;
+        this.types[id] = type;
+        if (previous == null) {
+            this.size++;
+        }
+        return Optional.fromNullable(previous);
+    }
+
+    /**
+     * Removes the manipulator of the given class.
+     *
+     * @param type The manipulator class
+     * @param <T> The type of manipulator
+     * @return The removed manipulator, if there was one
+     */
+    public <T extends DataManipulator<?, ?>> Optional<T> remove(Class<T> type) {
+        final int id = ids.get(type).get();
+        if (id < 0 || id >= this.manipulators.length || this.manipulators[id] == null) {
+            return Optional.absent();
+        }
+        final T removed = type.cast(this.manipulators[id]);
+        this.manipulators[id] = null;
+        this.types[id] = null;
+        this.size--;
+        return Optional.of(removed);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(this.manipulators, null);
+        Arrays.fill(this.types, null);
+        this.size = 0;
+    }
+
+    /**
+     * Passes all of the manipulators to the given consumer, in the order of
+     * the ids of their classes.
+     *
+     * @param consumer The consumer
+     */
+    public void forEach(Consumer<? super DataManipulator<?, ?>> consumer) {
+        checkNotNull(consumer);
+        for (DataManipulator<?, ?> manipulator : this.manipulators) {
+            if (manipulator != null) {
+                consumer.accept(manipulator);
+            }
+        }
+    }
+
+    /**
+     * Gets the immutable variants of all of the manipulators, in the order of
+     * the ids of their classes.
+     *
+     * @return The immutable manipulators
+     */
+    public ImmutableList<ImmutableDataManipulator<?, ?>> asImmutable() {
+        final ImmutableDataManipulator<?, ?>[] snapshot = new ImmutableDataManipulator<?, ?>[this.size];
+        int index = 0;
+        for (DataManipulator<?, ?> manipulator : this.manipulators) {
+            if (manipulator != null) {
+                snapshot[index++] = manipulator.asImmutable();
+            }
+        }
+        return ImmutableList.copyOf(snapshot);
+    }
+
+    /**
+     * Serializes all of the manipulators into a single {@link DataContainer},
+     * each under the name of the class it was offered under. The query is
+     * split at the dots of the name, so the manipulators are nested by
+     * package.
+     *
+     * @return The container
+     */
+    public DataContainer toContainer() {
+        final DataContainer container = new MemoryDataContainer();
+        for (int id = 0; id < this.manipulators.length; id++) {
+            if (this.manipulators[id] != null) {
+                container.set(DataQuery.of('.', this.types[id].getName()), this.manipulators[id].toContainer());
+            }
+        }
+        return container;
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.gabizou.util.GetterFunction;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+
+import javax.annotation.Nullable;
+
+/**
+ * An {@link ImmutableAbstractData} of which the field values are kept in a
+ * {@link SlotStore} rather than in fields of the manipulator class.
+ *
+ * <p>{@link #with(Key, Object)} then only copies the part of the store
+ * holding the changed value, instead of all of the fields, which makes
+ * chaining {@code with} calls on manipulators with many keys cheap. The
+ * field getters are registered by {@link #schema(Class, Key[])}, so only the
+ * value getters are left to the manipulator:</p>
+ *
+ * <pre>
+ * private static final DataSchema&lt;ImmutableFooData, ImmutableValue&lt;?&gt;&gt; SCHEMA =
+ *     PersistentImmutableData.schema(ImmutableFooData.class, Keys.FOO, Keys.BAR)
+ *         .value(Keys.FOO, ImmutableFooData::getFooValue)
+ *         .value(Keys.BAR, ImmutableFooData::getBarValue)
+ *         .build();
+ * </pre>
+ *
+ * <p>Equal instances can share a single instance by returning an
+ * {@link ImmutableDataCache} from {@link #getCache()}, which is then used by
+ * {@link #with(Key, Object)} and by {@link CopyOnWriteData#asImmutable()}.
+ * The builders and factories of the manipulator should intern through the
+ * same cache.</p>
+ *
+ * @param <I> The immutable data manipulator type
+ * @param <M> The mutable manipulator type
+ */
+@SuppressWarnings("unchecked")
+public abstract class PersistentImmutableData<I extends PersistentImmutableData<I, M>, M extends AbstractData<M, I>>
+    extends ImmutableAbstractData<I, M> {
+
+    /**
+     * Creates a new {@link DataSchema.Builder} with the field getters for
+     * the given {@link Key}s registered, reading from the {@link SlotStore}.
+     * The keys are given in slot order, the same order as the values of the
+     * store. No other fields should be registered.
+     *
+     * @param holderClass The manipulator class
+     * @param keys The keys, in slot order
+     * @param <I> The type of manipulator
+     * @return The new builder
+     */
+    protected static <I extends PersistentImmutableData<I, ?>> DataSchema.Builder<I, ImmutableValue<?>> schema(Class<I> holderClass,
+        Key<?>... keys) {
+        final DataSchema.Builder<I, ImmutableValue<?>> builder = DataSchema.immutable(holderClass);
+        for (int i = 0; i < keys.length; i++) {
+            final int slot = i;
+            final GetterFunction<I, Object> getter = holder -> holder.getStore().get(slot);
+            builder.field((Key<? extends BaseValue<Object>>) keys[i], getter);
+        }
+        return builder;
+    }
+
+    private final SlotStore values;
+
+    /**
+     * Creates a new immutable manipulator with the given values, which must
+     * be in the slot order of the schema.
+     *
+     * @param schema The schema for the manipulator class
+     * @param values The values
+     */
+    protected PersistentImmutableData(DataSchema<I, ImmutableValue<?>> schema, SlotStore values) {
+        super(schema);
+        this.values = checkNotNull(values);
+        checkArgument(values.size() == schema.size(), "Expected %s values, but got %s", schema.size(), values.size());
+    }
+
+    protected final SlotStore getStore() {
+        return this.values;
+    }
+
+    /**
+     * Creates a new instance of the manipulator class with the given values.
+     *
+     * @param values The values
+     * @return The new manipulator
+     */
+    protected abstract I create(SlotStore values);
+
+    /**
+     * Gets the cache interning the instances of the manipulator class, which
+     * is usually a constant of that class. There is none by default, so
+     * every change creates a new instance.
+     *
+     * @return The cache, or null if the instances aren't interned
+     */
+    @Nullable
+    protected ImmutableDataCache<I> getCache() {
+        return null;
+    }
+
+    /**
+     * Gets the cached instance equal to this manipulator, if the manipulator
+     * class has a cache.
+     *
+     * @return The cached instance, which may be this manipulator
+     */
+    final I intern() {
+        final ImmutableDataCache<I> cache = getCache();
+        return cache == null ? (I) this : cache.intern((I) this);
+    }
+
+    @Override
+    public <E> Optional<I> with(Key<? extends BaseValue<E>> key, E value) {
+        final int slot = getSchema().getSlot(key);
+        if (slot == DataSchema.NO_SLOT) {
+            return Optional.absent();
+        }
+        final SlotStore values = this.values.with(slot, checkNotNull(value));
+        if (values == this.values) {
+            return Optional.of((I) this);
+        }
+        final ImmutableDataCache<I> cache = getCache();
+        return Optional.of(cache == null ? create(values) : cache.intern(values.toArray(), array -> create(values)));
+    }
+
+    @Override
+    public I copy() {
+        return (I) this;
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reads and writes the fields of a {@link DataSchema} holder by slot.
+ *
+ * <p>This implementation goes through the functions registered in the
+ * schema. Accessors generated at runtime override these methods with a
+ * {@code switch} calling the methods the functions refer to directly, and
+ * fall back to these for any function that couldn't be resolved.</p>
+ *
+ * @param <H> The type of holder
+ */
+public class SchemaAccessor<H> {
+
+    private final DataSchema<H, ?> schema;
+
+    public SchemaAccessor(DataSchema<H, ?> schema) {
+        this.schema = checkNotNull(schema);
+    }
+
+    public Object get(H holder, int slot) {
+        return this.schema.getFieldGetter(slot).get(holder);
+    }
+
+    public void set(H holder, int slot, Object value) {
+        this.schema.getFieldSetter(slot).set(holder, value);
+    }
+
+    public Object getValue(H holder, int slot) {
+        return this.schema.getValueGetter(slot).get(holder);
+    }
+
+}
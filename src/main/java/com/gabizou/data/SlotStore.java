@@ -0,0 +1,157 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.util.Arrays;
+
+/**
+ * A persistent array of values indexed by the slots of a {@link DataSchema}.
+ *
+ * <p>Up to {@value #WIDTH} values are kept in a single small array, which is
+ * copied as a whole by {@link #with(int, Object)}. Beyond that the values are
+ * kept in a trie of arrays of {@value #WIDTH}, indexed by the bits of the
+ * slot, so {@link #with(int, Object)} only copies the arrays on the path to
+ * the slot and shares all of the others with the original store.</p>
+ */
+public final class SlotStore {
+
+    private static final int BITS = 3;
+    static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    /**
+     * Creates a new store holding the given values, in slot order.
+     *
+     * @param values The values
+     * @return The new store
+     */
+    public static SlotStore of(Object... values) {
+        for (Object value : values) {
+            checkNotNull(value);
+        }
+        int shift = 0;
+        while ((WIDTH << shift) < values.length) {
+            shift += BITS;
+        }
+        return new SlotStore(values.length, shift, build(values, 0, shift));
+    }
+
+    private static Object[] build(Object[] values, int offset, int shift) {
+        if (shift == 0) {
+            return Arrays.copyOfRange(values, offset, Math.min(offset + WIDTH, values.length));
+        }
+        // Each child covers 1 << shift values
+        final int span = 1 << shift;
+        final int count = Math.min(WIDTH, (values.length - offset + span - 1) / span);
+        final Object[] node = new Object[count];
+        for (int i = 0; i < count; i++) {
+            node[i] = build(values, offset + i * span, shift - BITS);
+        }
+        return node;
+    }
+
+    private final int size;
+    private final int shift;
+    private final Object[] root;
+
+    private SlotStore(int size, int shift, Object[] root) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public Object get(int slot) {
+        checkElementIndex(slot, this.size);
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(slot >>> level) & MASK];
+        }
+        return node[slot & MASK];
+    }
+
+    /**
+     * Gets a store with the value of the given slot replaced, sharing
+     * everything else with this store.
+     *
+     * @param slot The slot
+     * @param value The new value
+     * @return The new store, or this store if the value is the same instance
+     */
+    public SlotStore with(int slot, Object value) {
+        checkElementIndex(slot, this.size);
+        checkNotNull(value);
+        if (get(slot) == value) {
+            return this;
+        }
+        return new SlotStore(this.size, this.shift, with(this.root, this.shift, slot, value));
+    }
+
+    /**
+     * Gets all of the values of this store, in slot order.
+     *
+     * @return The values, in a new array
+     */
+    public Object[] toArray() {
+        final Object[] values = new Object[this.size];
+        for (int slot = 0; slot < values.length; slot++) {
+            values[slot] = get(slot);
+        }
+        return values;
+    }
+
+    private static Object[] with(Object[] node, int level, int slot, Object value) {
+        final Object[] copy = node.clone();
+        if (level == 0) {
+            copy[slot & MASK] = value;
+        } else {
+            final int index = (slot >>> level) & MASK;
+            copy[index] = with((Object[]) node[index], level - BITS, slot, value);
+        }
+        return copy;
+    }
+
+    // The following change the store in place, which is only done by
+    // CopyOnWriteData to stores it doesn't share with anything else
+
+    /**
+     * Copies all of the arrays of this store, so the copy can be changed in
+     * place with {@link #set(int, Object)}.
+     *
+     * @return The copy
+     */
+    SlotStore copy() {
+        return new SlotStore(this.size, this.shift, copy(this.root, this.shift));
+    }
+
+    private static Object[] copy(Object[] node, int level) {
+        final Object[] copy = node.clone();
+        if (level > 0) {
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = copy((Object[]) copy[i], level - BITS);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Replaces the value of the given slot in place.
+     *
+     * @param slot The slot
+     * @param value The new value
+     */
+    void set(int slot, Object value) {
+        checkElementIndex(slot, this.size);
+        checkNotNull(value);
+        Object[] node = this.root;
+        for (int level = this.shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(slot >>> level) & MASK];
+        }
+        node[slot & MASK] = value;
+    }
+
+}
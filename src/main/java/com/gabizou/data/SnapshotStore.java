@@ -0,0 +1,292 @@
+package com.gabizou.data;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Stores the snapshots of many holders in memory mapped files, encoded by a
+ * {@link DataCodec}, so the snapshots are kept off the heap and survive a
+ * restart.
+ *
+ * <p>The files are append-only segments of fixed-width records, each holding
+ * the id of the holder, the length of the encoded data, a CRC32 checksum, and
+ * the data itself. Storing a snapshot appends a new record, and the index of
+ * the store, which maps each holder id to its latest record, is rebuilt on
+ * {@link #open} by reading the records back. Indexing stops at the first
+ * record that fails its checksum, such as one torn by a crash, and that
+ * record and everything after it is dropped. The data is encoded straight into the
+ * mapped file, and {@link #get(long)} returns a {@link LazyData} over the
+ * mapped bytes, so nothing is copied onto the heap until it is read.</p>
+ *
+ * <p>The records of replaced snapshots stay in the segments. Stores aren't
+ * thread safe.</p>
+ *
+ * @param <H> The type of holder
+ */
+public final class SnapshotStore<H> implements Closeable {
+
+    private static final int MAGIC = 0x44415441;
+    private static final int HEADER_SIZE = 12;
+    // The holder id, the length of the data and the checksum
+    private static final int RECORD_HEADER_SIZE = 16;
+    private static final int LENGTH_OFFSET = 8;
+    private static final int CHECKSUM_OFFSET = 12;
+
+    /**
+     * Opens the store in the given directory, creating it if it doesn't
+     * exist yet, and indexes the snapshots already in it.
+     *
+     * @param directory The directory holding the segments
+     * @param codec The codec of the snapshots
+     * @param maxRecordSize The maximum number of bytes of an encoded snapshot
+     * @param recordsPerSegment The number of records of each segment file
+     * @param <H> The type of holder
+     * @return The store
+     * @throws IOException If the segments can't be read or created, or were
+     *     created with a different layout
+     * @throws IllegalArgumentException If a segment would be larger than 2GB
+     */
+    public static <H> SnapshotStore<H> open(Path directory, DataCodec<H> codec, int maxRecordSize, int recordsPerSegment) throws IOException {
+        checkArgument(maxRecordSize > 0, "The maximum record size must be positive, but was: %s", maxRecordSize);
+        checkArgument(recordsPerSegment > 0, "The number of records per segment must be positive, but was: %s", recordsPerSegment);
+        // Checked before anything is created, as a segment is mapped as a whole
+        final long segmentSize = HEADER_SIZE + (long) recordsPerSegment * (RECORD_HEADER_SIZE + (long) maxRecordSize);
+        checkArgument(segmentSize <= Integer.MAX_VALUE, "A segment can't be larger than 2GB, use fewer records per segment, but was: %s bytes",
+            segmentSize);
+        Files.createDirectories(directory);
+        final SnapshotStore<H> store = new SnapshotStore<>(directory, checkNotNull(codec), maxRecordSize, recordsPerSegment);
+        try {
+            store.load();
+        } catch (IOException | RuntimeException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private final Path directory;
+    private final DataCodec<H> codec;
+    private final int maxRecordSize;
+    private final int recordWidth;
+    private final int recordsPerSegment;
+    private final List<FileChannel> channels = Lists.newArrayList();
+    private final List<MappedByteBuffer> segments = Lists.newArrayList();
+    // The latest record of each holder id
+    private final Map<Long, Long> index = Maps.newHashMap();
+    private long nextRecord;
+    private boolean closed;
+
+    private SnapshotStore(Path directory, DataCodec<H> codec, int maxRecordSize, int recordsPerSegment) {
+        this.directory = directory;
+        this.codec = codec;
+        this.maxRecordSize = maxRecordSize;
+        this.recordWidth = RECORD_HEADER_SIZE + maxRecordSize;
+        this.recordsPerSegment = recordsPerSegment;
+    }
+
+    private void load() throws IOException {
+        for (int segment = 0; Files.exists(segmentPath(segment)); segment++) {
+            final MappedByteBuffer buffer = map(segment);
+            for (int record = 0; record < this.recordsPerSegment; record++) {
+                final int offset = recordOffset(record);
+                final int length = buffer.getInt(offset + LENGTH_OFFSET);
+                if (length == 0) {
+                    // The first record that was never written, everything after it is empty
+                    return;
+                }
+                if (length < 0 || length > this.maxRecordSize || buffer.getInt(offset + CHECKSUM_OFFSET) != checksum(buffer, offset, length)) {
+                    truncate(segment, record);
+                    return;
+                }
+                this.index.put(buffer.getLong(offset), this.nextRecord++);
+            }
+        }
+    }
+
+    /**
+     * Drops the given record and all of the records after it, as the next
+     * record is written over the given one, and the records after it could
+     * otherwise be indexed once that is done.
+     */
+    private void truncate(int segment, int record) throws IOException {
+        final MappedByteBuffer buffer = this.segments.get(segment);
+        for (; record < this.recordsPerSegment; record++) {
+            buffer.putInt(recordOffset(record) + LENGTH_OFFSET, 0);
+        }
+        int next = segment + 1;
+        while (Files.deleteIfExists(segmentPath(next))) {
+            next++;
+        }
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        final CRC32 crc = new CRC32();
+        final ByteBuffer bytes = buffer.duplicate();
+        // The holder id and the length
+        bytes.limit(offset + CHECKSUM_OFFSET).position(offset);
+        crc.update(bytes);
+        bytes.limit(offset + RECORD_HEADER_SIZE + length).position(offset + RECORD_HEADER_SIZE);
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    private Path segmentPath(int segment) {
+        return this.directory.resolve("segment-" + segment + ".dat");
+    }
+
+    private int recordOffset(int record) {
+        return HEADER_SIZE + record * this.recordWidth;
+    }
+
+    private MappedByteBuffer map(int segment) throws IOException {
+        final Path path = segmentPath(segment);
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channels.add(channel);
+        final long size = HEADER_SIZE + (long) this.recordsPerSegment * this.recordWidth;
+        // An empty file was never mapped, such as when its creation was interrupted
+        final boolean created = channel.size() == 0;
+        if (!created) {
+            // Checked before mapping, as mapping a smaller file would grow it
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (channel.size() != size || channel.read(header, 0) != HEADER_SIZE || header.getInt(0) != MAGIC
+                || header.getInt(4) != this.recordWidth || header.getInt(8) != this.recordsPerSegment) {
+                throw new IOException("The segment " + path + " was created with a different layout");
+            }
+        }
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        if (created) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, this.recordWidth);
+            buffer.putInt(8, this.recordsPerSegment);
+        }
+        this.segments.add(buffer);
+        return buffer;
+    }
+
+    public DataCodec<H> getCodec() {
+        return this.codec;
+    }
+
+    /**
+     * Gets the number of holders with a snapshot.
+     *
+     * @return The number of holders
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    public boolean contains(long holderId) {
+        return this.index.containsKey(holderId);
+    }
+
+    /**
+     * Stores the snapshot of the given holder, replacing any previous one.
+     *
+     * @param holderId The id of the holder
+     * @param data The snapshot
+     * @throws IOException If a new segment can't be created
+     * @throws IllegalArgumentException If the encoded snapshot is larger than
+     *     the maximum record size
+     */
+    public void put(long holderId, H data) throws IOException {
+        checkState(!this.closed, "The store is closed");
+        final int segment = (int) (this.nextRecord / this.recordsPerSegment);
+        final MappedByteBuffer buffer = segment < this.segments.size() ? this.segments.get(segment) : map(segment);
+        final int offset = recordOffset((int) (this.nextRecord % this.recordsPerSegment));
+        final ByteBuffer target = buffer.duplicate();
+        target.limit(offset + this.recordWidth).position(offset + RECORD_HEADER_SIZE);
+        try {
+            this.codec.encode(data, target);
+        } catch (BufferOverflowException e) {
+            throw new IllegalArgumentException("The snapshot is larger than the maximum record size of " + this.maxRecordSize + " bytes", e);
+        }
+        final int length = target.position() - offset - RECORD_HEADER_SIZE;
+        buffer.putLong(offset, holderId);
+        buffer.putInt(offset + LENGTH_OFFSET, length);
+        // A record without a matching checksum ends the store when it is loaded
+        buffer.putInt(offset + CHECKSUM_OFFSET, checksum(buffer, offset, length));
+        this.index.put(holderId, this.nextRecord++);
+    }
+
+    /**
+     * Gets the encoded snapshot of the given holder, as a read only view of
+     * the mapped file.
+     *
+     * @param holderId The id of the holder
+     * @return The encoded snapshot, if there is one
+     */
+    public Optional<ByteBuffer> getBytes(long holderId) {
+        checkState(!this.closed, "The store is closed");
+        final Long record = this.index.get(holderId);
+        if (record == null) {
+            return Optional.absent();
+        }
+        final ByteBuffer buffer = this.segments.get((int) (record / this.recordsPerSegment)).asReadOnlyBuffer();
+        final int offset = recordOffset((int) (record % this.recordsPerSegment));
+        buffer.limit(offset + RECORD_HEADER_SIZE + buffer.getInt(offset + LENGTH_OFFSET)).position(offset + RECORD_HEADER_SIZE);
+        return Optional.of(buffer.slice());
+    }
+
+    /**
+     * Gets the snapshot of the given holder, decoded lazily from the mapped
+     * file. The snapshot can be decoded onto a mutable manipulator with
+     * {@link LazyData#decode(Object)}, or with the codec of the mutable
+     * counterpart through {@link #getBytes(long)}.
+     *
+     * @param holderId The id of the holder
+     * @return The snapshot, if there is one
+     */
+    public Optional<LazyData<H>> get(long holderId) {
+        final Optional<ByteBuffer> bytes = getBytes(holderId);
+        return bytes.isPresent() ? Optional.of(LazyData.of(this.codec, bytes.get())) : Optional.<LazyData<H>>absent();
+    }
+
+    /**
+     * Writes all of the changes to the mapped files to the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        force();
+        IOException failure = null;
+        for (FileChannel channel : this.channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+}
@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import java.io.Serializable;
+
+/**
+ * A {@link GetterFunction} specialized for {@code boolean} fields, so the value
+ * doesn't need to be boxed when read.
+ *
+ * @param <H> The type of holder
+ */
+@FunctionalInterface
+public interface BooleanGetter<H> extends Serializable {
+
+    boolean get(H holder);
+
+}
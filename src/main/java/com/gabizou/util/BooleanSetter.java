@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import java.io.Serializable;
+
+/**
+ * A {@link SetterFunction} specialized for {@code boolean} fields, so the value
+ * doesn't need to be boxed when written.
+ *
+ * @param <H> The type of holder
+ */
+@FunctionalInterface
+public interface BooleanSetter<H> extends Serializable {
+
+    void set(H holder, boolean value);
+
+}
@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import java.io.Serializable;
+
+/**
+ * A {@link SetterFunction} specialized for {@code double} fields, so the value
+ * doesn't need to be boxed when written.
+ *
+ * @param <H> The type of holder
+ */
+@FunctionalInterface
+public interface DoubleSetter<H> extends Serializable {
+
+    void set(H holder, double value);
+
+}
@@ -1,8 +1,18 @@
 package com.gabizou.util;
 
+import java.io.Serializable;
+
+/**
+ * The function for getting a field of a holder. These are {@link Serializable}
+ * so the method a method reference refers to can be resolved when generating
+ * accessors at runtime.
+ *
+ * @param <H> The type of holder
+ * @param <T> The type of field
+ */
 @FunctionalInterface
-public interface GetterFunction<T> {
+public interface GetterFunction<H, T> extends Serializable {
 
-    T get();
+    T get(H holder);
 
 }
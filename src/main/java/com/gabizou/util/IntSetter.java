@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import java.io.Serializable;
+
+/**
+ * A {@link SetterFunction} specialized for {@code int} fields, so the value
+ * doesn't need to be boxed when written.
+ *
+ * @param <H> The type of holder
+ */
+@FunctionalInterface
+public interface IntSetter<H> extends Serializable {
+
+    void set(H holder, int value);
+
+}
@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import org.spongepowered.api.data.key.Key;
+
+import javax.annotation.Nullable;
+
+/**
+ * Accepts the {@link Key}s and raw field values of a manipulator, one pair at
+ * a time, without the values being wrapped.
+ */
+@FunctionalInterface
+public interface KeyValueConsumer {
+
+    void accept(Key<?> key, @Nullable Object value);
+
+}
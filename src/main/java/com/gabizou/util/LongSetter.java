@@ -0,0 +1,16 @@
+package com.gabizou.util;
+
+import java.io.Serializable;
+
+/**
+ * A {@link SetterFunction} specialized for {@code long} fields, so the value
+ * doesn't need to be boxed when written.
+ *
+ * @param <H> The type of holder
+ */
+@FunctionalInterface
+public interface LongSetter<H> extends Serializable {
+
+    void set(H holder, long value);
+
+}
@@ -1,8 +1,18 @@
 package com.gabizou.util;
 
+import java.io.Serializable;
+
+/**
+ * The function for setting a field of a holder. These are {@link Serializable}
+ * so the method a method reference refers to can be resolved when generating
+ * accessors at runtime.
+ *
+ * @param <H> The type of holder
+ * @param <T> The type of field
+ */
 @FunctionalInterface
-public interface SetterFunction<T> {
+public interface SetterFunction<H, T> extends Serializable {
 
-    void set(T value);
+    void set(H holder, T value);
 
 }
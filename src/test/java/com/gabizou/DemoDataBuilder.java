@@ -1,5 +1,6 @@
 package com.gabizou;
 
+import com.gabizou.data.DataInstrumentation;
 import com.google.common.base.Optional;
 import org.spongepowered.api.data.DataHolder;
 import org.spongepowered.api.data.DataView;
@@ -8,9 +9,13 @@ import org.spongepowered.api.service.persistence.InvalidDataException;
 
 public class DemoDataBuilder implements DataManipulatorBuilder<DemoTestData, ImmutableDemoTestData> {
 
+    /**
+     * Borrows a manipulator from {@link DemoTestData#POOL}, which may be
+     * released once it isn't needed anymore.
+     */
     @Override
     public DemoTestData create() {
-        return new DemoTestData(false);
+        return DemoTestData.POOL.borrow();
     }
 
     @Override
@@ -20,9 +25,12 @@ public class DemoDataBuilder implements DataManipulatorBuilder<DemoTestData, Imm
 
     @Override
     public Optional<DemoTestData> build(DataView container) throws InvalidDataException {
+        final long start = DataInstrumentation.startTimer();
         if (!container.contains(DemoKeys.DEMO_BOOL.getQuery())) {
             throw new InvalidDataException("The container doesn't have the required keys!");
         }
-        return Optional.of(new DemoTestData(container.getBoolean(DemoKeys.DEMO_BOOL.getQuery()).get()));
+        final DemoTestData data = new DemoTestData(container.getBoolean(DemoKeys.DEMO_BOOL.getQuery()).get());
+        DataInstrumentation.recordBuild(DemoTestData.class, start);
+        return Optional.of(data);
     }
 }
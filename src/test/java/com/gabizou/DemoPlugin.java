@@ -1,5 +1,10 @@
 package com.gabizou;
 
+import com.gabizou.annotation.AnnonTest;
+import com.gabizou.annotation.AnnonTestBuilder;
+import com.gabizou.annotation.ImmutableAnnonTest;
+import com.gabizou.annotation.ImmutableAnnonTestBuilder;
+import com.gabizou.data.DataValues;
 import com.google.inject.Inject;
 import org.spongepowered.api.Game;
 import org.spongepowered.api.event.Listener;
@@ -22,9 +27,12 @@ public class DemoPlugin {
     public void onPreInit(GameInitializationEvent event) {
         instance = new Holder();
         instance.setPlugin(this);
+        DataValues.setBuilder(this.game.getRegistry().createValueBuilder());
         final SerializationService service = this.game.getServiceManager().provide(SerializationService.class).get();
         service.registerBuilder(DemoTestData.class, new DemoDataBuilder());
         service.registerBuilder(ImmutableDemoTestData.class, new ImmutableDemoDataBuilder());
+        service.registerBuilder(AnnonTest.class, new AnnonTestBuilder());
+        service.registerBuilder(ImmutableAnnonTest.class, new ImmutableAnnonTestBuilder());
 
     }
 
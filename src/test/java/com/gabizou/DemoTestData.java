@@ -1,6 +1,9 @@
 package com.gabizou;
 
 import com.gabizou.data.AbstractData;
+import com.gabizou.data.DataInstrumentation;
+import com.gabizou.data.DataPool;
+import com.gabizou.data.DataSchema;
 import com.google.common.base.Optional;
 import com.google.common.primitives.Booleans;
 import org.spongepowered.api.data.DataContainer;
@@ -11,10 +14,22 @@ import org.spongepowered.api.data.value.mutable.Value;
 
 public class DemoTestData extends AbstractData<DemoTestData, ImmutableDemoTestData> {
 
+    private static final DataSchema<DemoTestData, Value<?>> SCHEMA = DataSchema.mutable(DemoTestData.class)
+        .booleanField(DemoKeys.DEMO_BOOL, DemoTestData::isDemoBool, DemoTestData::writeDemoBool)
+        .value(DemoKeys.DEMO_BOOL, DemoTestData::getDemoboolVal)
+        .build();
+
+    /**
+     * The manipulators created by {@link DemoDataBuilder#create()} and
+     * {@link ImmutableDemoTestData#asMutable()}, which may be released once
+     * they aren't needed anymore.
+     */
+    public static final DataPool<DemoTestData> POOL = DataPool.create(DemoTestData::new, data -> data.demoBool = false, 16);
+
     private boolean demoBool;
 
     public DemoTestData() {
-        super(DemoTestData.class);
+        super(SCHEMA);
     }
 
     public DemoTestData(boolean demoBool) {
@@ -22,13 +37,6 @@ public class DemoTestData extends AbstractData<DemoTestData, ImmutableDemoTestDa
         this.demoBool = demoBool;
     }
 
-    @Override
-    protected void registerGettersAndSetters() {
-        registerFieldGetter(DemoKeys.DEMO_BOOL, this::isDemoBool);
-        registerFieldSetter(DemoKeys.DEMO_BOOL, value -> setDemoBool((Boolean) value));
-        registerKeyValue(DemoKeys.DEMO_BOOL, this::getDemoboolVal);
-    }
-
     @Override
     public Optional<DemoTestData> fill(DataHolder dataHolder, MergeFunction overlap) {
         return Optional.absent();
@@ -41,12 +49,13 @@ public class DemoTestData extends AbstractData<DemoTestData, ImmutableDemoTestDa
 
     @Override
     public DemoTestData copy() {
+        DataInstrumentation.recordCopy(DemoTestData.class);
         return new DemoTestData(this.demoBool);
     }
 
     @Override
     public ImmutableDemoTestData asImmutable() {
-        return new ImmutableDemoTestData(this.demoBool);
+        return ImmutableDemoTestData.of(this.demoBool);
     }
 
     @Override
@@ -56,8 +65,11 @@ public class DemoTestData extends AbstractData<DemoTestData, ImmutableDemoTestDa
 
     @Override
     public DataContainer toContainer() {
-        return new MemoryDataContainer()
+        final long start = DataInstrumentation.startTimer();
+        final DataContainer container = new MemoryDataContainer()
             .set(DemoKeys.DEMO_BOOL.getQuery(), this.demoBool);
+        DataInstrumentation.recordToContainer(DemoTestData.class, start);
+        return container;
     }
 
     public boolean isDemoBool() {
@@ -66,6 +78,12 @@ public class DemoTestData extends AbstractData<DemoTestData, ImmutableDemoTestDa
 
     public void setDemoBool(boolean demoBool) {
         this.demoBool = demoBool;
+        markChanged(DemoKeys.DEMO_BOOL);
+    }
+
+    // The raw field write registered in the schema, which marks the field itself
+    private void writeDemoBool(boolean demoBool) {
+        this.demoBool = demoBool;
     }
 
     public Value<Boolean> getDemoboolVal() {
@@ -1,5 +1,6 @@
 package com.gabizou;
 
+import com.gabizou.data.DataInstrumentation;
 import com.google.common.base.Optional;
 import org.spongepowered.api.data.DataHolder;
 import org.spongepowered.api.data.DataView;
@@ -11,7 +12,7 @@ public class ImmutableDemoDataBuilder implements ImmutableDataManipulatorBuilder
 
     @Override
     public ImmutableDemoTestData createImmutable() {
-        return new ImmutableDemoTestData(false);
+        return ImmutableDemoTestData.of(false);
     }
 
     @Override
@@ -26,9 +27,12 @@ public class ImmutableDemoDataBuilder implements ImmutableDataManipulatorBuilder
 
     @Override
     public Optional<ImmutableDemoTestData> build(DataView container) throws InvalidDataException {
+        final long start = DataInstrumentation.startTimer();
         if (!container.contains(DemoKeys.DEMO_BOOL.getQuery())) {
             throw new InvalidDataException("The container doesn't have the required keys!");
         }
-        return Optional.of(new ImmutableDemoTestData(container.getBoolean(DemoKeys.DEMO_BOOL.getQuery()).get()));
+        final ImmutableDemoTestData data = ImmutableDemoTestData.of(container.getBoolean(DemoKeys.DEMO_BOOL.getQuery()).get());
+        DataInstrumentation.recordBuild(ImmutableDemoTestData.class, start);
+        return Optional.of(data);
     }
 }
@@ -1,5 +1,7 @@
 package com.gabizou;
 
+import com.gabizou.data.DataInstrumentation;
+import com.gabizou.data.DataSchema;
 import com.gabizou.data.ImmutableAbstractData;
 import com.google.common.base.Optional;
 import com.google.common.primitives.Booleans;
@@ -11,17 +13,23 @@ import org.spongepowered.api.data.value.immutable.ImmutableValue;
 
 public class ImmutableDemoTestData extends ImmutableAbstractData<ImmutableDemoTestData, DemoTestData> {
 
-    private final boolean demoBool;
+    private static final DataSchema<ImmutableDemoTestData, ImmutableValue<?>> SCHEMA = DataSchema.immutable(ImmutableDemoTestData.class)
+        .booleanField(DemoKeys.DEMO_BOOL, ImmutableDemoTestData::isDemoBool)
+        .value(DemoKeys.DEMO_BOOL, ImmutableDemoTestData::getBoolVal)
+        .build();
+    // The only two possible states, shared by every user
+    private static final ImmutableDemoTestData TRUE = new ImmutableDemoTestData(true);
+    private static final ImmutableDemoTestData FALSE = new ImmutableDemoTestData(false);
 
-    public ImmutableDemoTestData(boolean demoBool) {
-        super(ImmutableDemoTestData.class);
-        this.demoBool = demoBool;
+    public static ImmutableDemoTestData of(boolean demoBool) {
+        return demoBool ? TRUE : FALSE;
     }
 
-    @Override
-    protected void registerGetters() {
-        registerKeyValue(DemoKeys.DEMO_BOOL, this::getBoolVal);
-        registerFieldGetter(DemoKeys.DEMO_BOOL, this::isDemoBool);
+    private final boolean demoBool;
+
+    private ImmutableDemoTestData(boolean demoBool) {
+        super(SCHEMA);
+        this.demoBool = demoBool;
     }
 
     public boolean isDemoBool() {
@@ -35,15 +43,7 @@ public class ImmutableDemoTestData extends ImmutableAbstractData<ImmutableDemoTe
     @Override
     public <E> Optional<ImmutableDemoTestData> with(Key<? extends BaseValue<E>> key, E value) {
         if (key.equals(DemoKeys.DEMO_BOOL)) {
-            if (this.demoBool) {
-                if (!(Boolean) value) {
-                    return Optional.of(new ImmutableDemoTestData(false));
-                }
-            } else {
-                if ((Boolean) value) {
-                    return Optional.of(new ImmutableDemoTestData(true));
-                }
-            }
+            return Optional.of(of((Boolean) value));
         }
         return Optional.absent();
     }
@@ -53,9 +53,18 @@ public class ImmutableDemoTestData extends ImmutableAbstractData<ImmutableDemoTe
         return this;
     }
 
+    /**
+     * Gets a mutable copy borrowed from {@link DemoTestData#POOL}, which may
+     * be released once it isn't needed anymore.
+     *
+     * @return The borrowed copy
+     */
     @Override
     public DemoTestData asMutable() {
-        return new DemoTestData(this.demoBool);
+        final DemoTestData data = DemoTestData.POOL.borrow();
+        data.setDemoBool(this.demoBool);
+        data.clearDirty();
+        return data;
     }
 
     @Override
@@ -65,7 +74,10 @@ public class ImmutableDemoTestData extends ImmutableAbstractData<ImmutableDemoTe
 
     @Override
     public DataContainer toContainer() {
-        return new MemoryDataContainer()
+        final long start = DataInstrumentation.startTimer();
+        final DataContainer container = new MemoryDataContainer()
             .set(DemoKeys.DEMO_BOOL, this.demoBool);
+        DataInstrumentation.recordToContainer(ImmutableDemoTestData.class, start);
+        return container;
     }
 }
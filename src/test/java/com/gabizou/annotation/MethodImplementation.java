@@ -1,12 +0,0 @@
-package com.gabizou.annotation;
-
-import java.lang.annotation.ElementType;
-import java.lang.annotation.Retention;
-import java.lang.annotation.RetentionPolicy;
-import java.lang.annotation.Target;
-
-@Target(ElementType.METHOD)
-@Retention(RetentionPolicy.SOURCE)
-public @interface MethodImplementation {
-
-}
@@ -0,0 +1,231 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static com.gabizou.data.TestKeys.UNSUPPORTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.nio.ByteBuffer;
+
+public class AbstractDataTest {
+
+    private static final DataCodec<TestData> CODEC = DataCodec.of(new TestData().getSchema());
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @After
+    public void removeMetrics() {
+        DataInstrumentation.setMetrics(null);
+    }
+
+    private static <E> Value<E> value(Key<Value<E>> key, E element) {
+        return DataValues.getBuilder().createValue(key, element);
+    }
+
+    @Test
+    public void testSetAllBestEffort() {
+        final TestData data = new TestData();
+        final BatchResult result = data.setAll(new BaseValue<?>[] {value(A, 1), value(UNSUPPORTED, 2), value(NAME, "name")},
+            BatchResult.Mode.BEST_EFFORT);
+        assertFalse(result.isSuccess());
+        assertEquals(2, result.getAppliedCount());
+        assertEquals(ImmutableList.of(UNSUPPORTED), result.getRejectedKeys());
+        assertEquals(1, data.getA());
+        assertEquals("name", data.getName());
+        assertEquals(ImmutableSet.of(A, NAME), data.getDirtyKeys());
+    }
+
+    @Test
+    public void testSetAllBestEffortKeepsSetFields() {
+        final TestData data = new TestData();
+        try {
+            data.setAll(ImmutableList.of(value(A, 1), value(B, -1), value(NAME, "name")), BatchResult.Mode.BEST_EFFORT);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(1, data.getA());
+        assertEquals("", data.getName());
+        assertEquals(ImmutableSet.of(A), data.getDirtyKeys());
+    }
+
+    @Test
+    public void testSetAllAllOrNothing() {
+        final TestData data = new TestData();
+        final BatchResult result = data.setAll(ImmutableList.of(value(A, 1), value(B, 2), value(NAME, "name")),
+            BatchResult.Mode.ALL_OR_NOTHING);
+        assertTrue(result.isSuccess());
+        assertEquals(3, result.getAppliedCount());
+        assertEquals(1, data.getA());
+        assertEquals(2, data.getB());
+        assertEquals("name", data.getName());
+        assertEquals(ImmutableSet.of(A, B, NAME), data.getDirtyKeys());
+    }
+
+    @Test
+    public void testSetAllAllOrNothingRejects() {
+        final TestData data = new TestData();
+        final BatchResult result = data.setAll(ImmutableList.of(value(A, 1), value(UNSUPPORTED, 2)), BatchResult.Mode.ALL_OR_NOTHING);
+        assertFalse(result.isSuccess());
+        assertEquals(0, result.getAppliedCount());
+        assertEquals(ImmutableList.of(UNSUPPORTED), result.getRejectedKeys());
+        assertEquals(0, data.getA());
+        assertFalse(data.isDirty());
+    }
+
+    @Test
+    public void testSetAllAllOrNothingRollsBack() {
+        final CountingDataMetrics metrics = new CountingDataMetrics();
+        DataInstrumentation.setMetrics(metrics);
+        final TestData data = new TestData(1, 2, "old");
+        data.setA(5);
+        try {
+            data.setAll(ImmutableList.of(value(NAME, "new"), value(A, 10), value(A, 20), value(B, -1)), BatchResult.Mode.ALL_OR_NOTHING);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(5, data.getA());
+        assertEquals(2, data.getB());
+        assertEquals("old", data.getName());
+        // Only the field changed before the batch is dirty, and reported
+        assertEquals(ImmutableSet.of(A), data.getDirtyKeys());
+        assertEquals(1, metrics.getSets(TestData.class, A));
+        assertEquals(0, metrics.getSets(TestData.class, NAME));
+        assertEquals(5, (int) data.getValue(A).get().get());
+    }
+
+    @Test
+    public void testSetAllRollbackFailureIsSuppressed() {
+        // A negative value can't be set, so putting it back fails as well
+        final TestData data = new TestData(0, -1, "");
+        try {
+            data.setAll(ImmutableList.of(value(B, 1), value(B, -2)), BatchResult.Mode.ALL_OR_NOTHING);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals(1, e.getSuppressed().length);
+            assertTrue(e.getSuppressed()[0] instanceof IllegalArgumentException);
+        }
+        assertFalse(data.isDirty());
+    }
+
+    @Test
+    public void testNewIsClean() {
+        final TestData data = new TestData(1, 2, "name");
+        assertFalse(data.isDirty());
+        assertFalse(data.isDirty(A));
+        assertTrue(data.getDirtyKeys().isEmpty());
+    }
+
+    @Test
+    public void testChangesAreDirty() {
+        final TestData data = new TestData();
+        data.set(A, 1);
+        assertTrue(data.isDirty());
+        assertTrue(data.isDirty(A));
+        assertFalse(data.isDirty(B));
+        assertFalse(data.isDirty(UNSUPPORTED));
+        assertEquals(ImmutableSet.of(A), data.getDirtyKeys());
+
+        data.transform(B, b -> b + 1);
+        data.setA(2);
+        assertEquals(ImmutableSet.of(A, B), data.getDirtyKeys());
+    }
+
+    @Test
+    public void testClearDirty() {
+        final TestData data = new TestData();
+        data.clearDirty();
+        data.set(A, 1);
+        data.set(NAME, "name");
+        data.clearDirty();
+        assertFalse(data.isDirty());
+        assertFalse(data.isDirty(A));
+        assertTrue(data.getDirtyKeys().isEmpty());
+
+        data.set(NAME, "other");
+        assertEquals(ImmutableSet.of(NAME), data.getDirtyKeys());
+    }
+
+    @Test
+    public void testDelta() throws Exception {
+        final TestData source = new TestData(1, 2, "name");
+        source.set(A, 5);
+        source.set(NAME, "changed");
+        final ByteBuffer buffer = ByteBuffer.allocate(source.sizeOfDelta(CODEC));
+        source.writeDelta(CODEC, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        // The changes stay marked until they are cleared
+        assertEquals(ImmutableSet.of(A, NAME), source.getDirtyKeys());
+
+        buffer.flip();
+        final TestData target = new TestData(0, 7, "");
+        assertSame(target, target.applyDelta(CODEC, buffer));
+        assertEquals(5, target.getA());
+        assertEquals(7, target.getB());
+        assertEquals("changed", target.getName());
+        assertEquals(ImmutableSet.of(A, NAME), target.getDirtyKeys());
+    }
+
+    @Test
+    public void testEmptyDelta() throws Exception {
+        final TestData source = new TestData(1, 2, "name");
+        final ByteBuffer buffer = ByteBuffer.allocate(source.sizeOfDelta(CODEC));
+        source.writeDelta(CODEC, buffer);
+        buffer.flip();
+        final TestData target = new TestData();
+        target.applyDelta(CODEC, buffer);
+        assertEquals(0, target.getA());
+        assertEquals("", target.getName());
+        assertFalse(target.isDirty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void testDeltaOfOtherSchema() {
+        final DataCodec codec = DataCodec.of(new CopyOnWriteTestData().getSchema());
+        new TestData().writeDelta(codec, ByteBuffer.allocate(64));
+    }
+
+    @Test
+    public void testEquals() {
+        final TestData data = new TestData(1, 2, "name");
+        assertEquals(data, data);
+        assertEquals(data, new TestData(1, 2, new String("name")));
+        assertEquals(data.hashCode(), new TestData(1, 2, "name").hashCode());
+        assertFalse(data.equals(new TestData(1, 3, "name")));
+        assertFalse(data.equals(new TestData(1, 2, "other")));
+        assertFalse(data.equals(null));
+        // Equal values, but not the same class
+        assertFalse(data.equals(new CopyOnWriteTestData(1, 2, "name")));
+        assertFalse(data.equals(data.asImmutable()));
+    }
+
+    @Test
+    public void testHashCodeFollowsChanges() {
+        final TestData data = new TestData(1, 2, "name");
+        final TestData other = new TestData(1, 2, "name");
+        data.hashCode();
+        data.setA(5);
+        assertFalse(data.equals(other));
+        other.setA(5);
+        assertEquals(data, other);
+        assertEquals(data.hashCode(), other.hashCode());
+    }
+
+}
@@ -0,0 +1,175 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.C;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.data.value.mutable.Value;
+
+public class AccessorGeneratorTest {
+
+    private static final String GENERATED_PACKAGE = "com.gabizou.data.generated.";
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    /**
+     * Remembers the class calling each of its getters and setters, which is
+     * the generated accessor if it calls the method directly.
+     */
+    public static final class Holder {
+
+        int a;
+        int b;
+        int c;
+        String name = "";
+        String caller;
+
+        private void called() {
+            this.caller = new Throwable().getStackTrace()[2].getClassName();
+        }
+
+        public int getA() {
+            called();
+            return this.a;
+        }
+
+        public void setA(int a) {
+            called();
+            this.a = a;
+        }
+
+        public String getName() {
+            called();
+            return this.name;
+        }
+
+        public void setName(String name) {
+            called();
+            this.name = name;
+        }
+
+        public Value<?> getAValue() {
+            called();
+            return DataValues.getBuilder().createValue(A, this.a, 0);
+        }
+
+        private int getB() {
+            called();
+            return this.b;
+        }
+
+        private void setB(int b) {
+            called();
+            this.b = b;
+        }
+
+    }
+
+    private static DataSchema.Builder<Holder, Value<?>> builder() {
+        final int offset = 100;
+        return DataSchema.mutable(Holder.class)
+            .intField(A, Holder::getA, Holder::setA)
+            // Non-public methods, which the generated class can't call
+            .intField(B, Holder::getB, Holder::setB)
+            // A capturing lambda, which can't be resolved to a method
+            .intField(C, holder -> holder.c + offset, (holder, value) -> holder.c = value - offset)
+            .field(NAME, Holder::getName, Holder::setName)
+            .value(A, Holder::getAValue)
+            .value(B, holder -> DataValues.getBuilder().createValue(B, holder.getB(), 0));
+    }
+
+    @Test
+    public void testGeneratedCallsMethodsDirectly() {
+        final DataSchema<Holder, Value<?>> schema = builder().generateAccessors().build();
+        final Holder holder = new Holder();
+        holder.a = 1;
+        assertEquals(1, schema.get(holder, schema.getSlot(A)));
+        assertTrue(holder.caller.startsWith(GENERATED_PACKAGE));
+
+        holder.caller = null;
+        schema.set(holder, schema.getSlot(NAME), "name");
+        assertEquals("name", holder.name);
+        assertTrue(holder.caller.startsWith(GENERATED_PACKAGE));
+
+        holder.caller = null;
+        assertEquals(DataValues.getBuilder().createValue(A, 1, 0), schema.getValue(holder, schema.getSlot(A)));
+        assertTrue(holder.caller.startsWith(GENERATED_PACKAGE));
+    }
+
+    @Test
+    public void testFallsBackToFunctions() {
+        final DataSchema<Holder, Value<?>> schema = builder().generateAccessors().build();
+        final Holder holder = new Holder();
+        holder.b = 2;
+        assertEquals(2, schema.get(holder, schema.getSlot(B)));
+        assertFalse(holder.caller.startsWith(GENERATED_PACKAGE));
+
+        schema.set(holder, schema.getSlot(B), 3);
+        assertEquals(3, holder.b);
+        assertFalse(holder.caller.startsWith(GENERATED_PACKAGE));
+
+        schema.set(holder, schema.getSlot(C), 105);
+        assertEquals(5, holder.c);
+        assertEquals(105, schema.get(holder, schema.getSlot(C)));
+        assertEquals(DataValues.getBuilder().createValue(B, 3, 0), schema.getValue(holder, schema.getSlot(B)));
+    }
+
+    @Test
+    public void testNotGeneratedByDefault() {
+        final DataSchema<Holder, Value<?>> schema = builder().build();
+        final Holder holder = new Holder();
+        schema.get(holder, schema.getSlot(A));
+        assertFalse(holder.caller.startsWith(GENERATED_PACKAGE));
+    }
+
+    @Test
+    public void testSystemProperty() {
+        System.setProperty(DataSchema.GENERATE_ACCESSORS_PROPERTY, "true");
+        final DataSchema<Holder, Value<?>> schema;
+        try {
+            schema = builder().build();
+        } finally {
+            System.clearProperty(DataSchema.GENERATE_ACCESSORS_PROPERTY);
+        }
+        final Holder holder = new Holder();
+        schema.get(holder, schema.getSlot(A));
+        assertTrue(holder.caller.startsWith(GENERATED_PACKAGE));
+    }
+
+    @Test
+    public void testSameValuesAsFunctions() {
+        final DataSchema<Holder, Value<?>> generated = builder().generateAccessors().build();
+        final DataSchema<Holder, Value<?>> functions = builder().build();
+        final Holder first = new Holder();
+        final Holder second = new Holder();
+        final Object[] values = {7, 8, 109, "name"};
+        for (int slot = 0; slot < generated.size(); slot++) {
+            generated.set(first, slot, values[slot]);
+            functions.set(second, slot, values[slot]);
+        }
+        for (int slot = 0; slot < generated.size(); slot++) {
+            assertEquals(values[slot], generated.get(first, slot));
+            assertEquals(functions.get(second, slot), generated.get(first, slot));
+            assertEquals(functions.getValue(second, slot), generated.getValue(first, slot));
+        }
+    }
+
+    @Test
+    public void testClassPerSchema() {
+        final SchemaAccessor<Holder> first = AccessorGenerator.generate(builder().build());
+        final SchemaAccessor<Holder> second = AccessorGenerator.generate(builder().build());
+        assertTrue(first.getClass().getName().startsWith(GENERATED_PACKAGE));
+        assertNotSame(first.getClass(), second.getClass());
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.UNSUPPORTED;
+import static org.junit.Assert.assertTrue;
+
+import com.gabizou.util.KeyValueConsumer;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.data.key.Key;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+/**
+ * Checks that the hot accessors of the manipulators allocate nothing, by
+ * comparing the bytes allocated by the current thread before and after
+ * calling each of them many times, once they were warmed up.
+ *
+ * <p>The field values are kept within the {@link Integer} cache, so reading
+ * them boxed doesn't allocate either.</p>
+ */
+public class AllocationTest {
+
+    private static final int WARMUP = 50000;
+    private static final int ITERATIONS = 200000;
+    // The bytes all of the iterations of an accessor may allocate together,
+    // which leaves room for the counter itself, but not for a byte per call
+    private static final long BUDGET = 4096;
+
+    private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Results are written here so the calls can't be removed as dead code
+    private static volatile Object sink;
+
+    private static final TestData DATA = new TestData(1, 2, "name");
+    private static final TestData.Immutable IMMUTABLE_DATA = DATA.asImmutable();
+    private static final DataSchema<TestData, ?> SCHEMA = DATA.getSchema();
+    private static final KeyValueConsumer VALUE_CONSUMER = (key, value) -> sink = value;
+    private static final Consumer<Key<?>> KEY_CONSUMER = key -> sink = key;
+
+    private interface Accessor {
+
+        Object call();
+
+    }
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    private static void assertNoAllocation(Accessor accessor) {
+        for (int i = 0; i < WARMUP; i++) {
+            sink = accessor.call();
+        }
+        final long threadId = Thread.currentThread().getId();
+        final long before = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink = accessor.call();
+        }
+        final long allocated = THREADS.getThreadAllocatedBytes(threadId) - before;
+        assertTrue("Allocated " + allocated + " bytes in " + ITERATIONS + " calls", allocated <= BUDGET);
+    }
+
+    @Test
+    public void testSupports() {
+        assertNoAllocation(() -> DATA.supports(A));
+    }
+
+    @Test
+    public void testGetUnsupported() {
+        assertNoAllocation(() -> DATA.get(UNSUPPORTED));
+    }
+
+    @Test
+    public void testGetOrNull() {
+        assertNoAllocation(() -> DATA.getOrNull(A));
+        assertNoAllocation(() -> DATA.getOrNull(UNSUPPORTED));
+    }
+
+    @Test
+    public void testGetOrElse() {
+        assertNoAllocation(() -> DATA.getOrElse(A, 0));
+        assertNoAllocation(() -> DATA.getOrElse(UNSUPPORTED, 0));
+    }
+
+    @Test
+    public void testGetInt() {
+        assertNoAllocation(() -> DATA.getInt(A));
+    }
+
+    @Test
+    public void testSetInt() {
+        final TestData data = new TestData();
+        assertNoAllocation(() -> data.setInt(A, 1));
+    }
+
+    @Test
+    public void testForEach() {
+        assertNoAllocation(() -> {
+            DATA.forEachKey(KEY_CONSUMER);
+            return null;
+        });
+        assertNoAllocation(() -> {
+            DATA.forEachRaw(VALUE_CONSUMER);
+            return null;
+        });
+    }
+
+    @Test
+    public void testBorrowAndRelease() {
+        final DataPool<TestData> pool = DataPool.create(TestData::new, data -> SCHEMA.setInt(data, SCHEMA.getSlot(A), 0), 4);
+        assertNoAllocation(() -> {
+            final TestData borrowed = pool.borrow();
+            borrowed.setInt(A, 1);
+            pool.release(borrowed);
+            return null;
+        });
+    }
+
+    @Test
+    public void testImmutableAccessors() {
+        assertNoAllocation(() -> IMMUTABLE_DATA.getOrNull(A));
+        assertNoAllocation(() -> IMMUTABLE_DATA.getOrElse(A, 0));
+        assertNoAllocation(() -> IMMUTABLE_DATA.getInt(A));
+        assertNoAllocation(() -> IMMUTABLE_DATA.getValue(UNSUPPORTED));
+        assertNoAllocation(() -> {
+            IMMUTABLE_DATA.forEachRaw(VALUE_CONSUMER);
+            return null;
+        });
+    }
+
+}
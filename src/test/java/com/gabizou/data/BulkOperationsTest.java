@@ -0,0 +1,176 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BulkOperationsTest {
+
+    private static final Key<Value<Long>> BIG_NUMBER = TestKeys.key(Long.class, "bigNumber");
+    private static final Key<Value<Double>> FRACTION = TestKeys.key(Double.class, "fraction");
+
+    private static final DataSchema<Holder, Value<?>> SCHEMA = DataSchema.mutable(Holder.class)
+        .intField(A, holder -> holder.number, (holder, value) -> holder.number = value)
+        .longField(BIG_NUMBER, holder -> holder.bigNumber, (holder, value) -> holder.bigNumber = value)
+        .doubleField(FRACTION, holder -> holder.fraction, (holder, value) -> holder.fraction = value)
+        .field(NAME, holder -> holder.name, (holder, value) -> holder.name = value)
+        .build();
+
+    private static final int SIZE = 1000;
+    // Small enough for every operation to be split over many tasks
+    private static final BulkOperations<Holder> OPERATIONS = BulkOperations.of(SCHEMA).withThreshold(8);
+
+    static final class Holder {
+
+        int number;
+        long bigNumber;
+        double fraction;
+        String name;
+
+        Holder(int index) {
+            this.number = index * 7 % 101 - 50;
+            this.bigNumber = index * 3000000000L;
+            this.fraction = index / 8.0;
+            this.name = "holder" + index;
+        }
+    }
+
+    private static List<Holder> holders() {
+        final List<Holder> holders = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            holders.add(new Holder(i));
+        }
+        return holders;
+    }
+
+    @Test
+    public void testFilterKeepsOrder() {
+        final List<Holder> holders = holders();
+        final List<Holder> expected = new ArrayList<>();
+        for (Holder holder : holders) {
+            if (holder.number % 3 == 0) {
+                expected.add(holder);
+            }
+        }
+        final List<Holder> filtered = OPERATIONS.filter(holders, A, number -> number % 3 == 0);
+        assertEquals(expected, filtered);
+        // Lists without random access are copied first
+        assertEquals(expected, OPERATIONS.filter(new LinkedList<>(holders), A, number -> number % 3 == 0));
+    }
+
+    @Test
+    public void testCount() {
+        final List<Holder> holders = holders();
+        long expected = 0;
+        for (Holder holder : holders) {
+            if (holder.name.endsWith("7")) {
+                expected++;
+            }
+        }
+        assertEquals(expected, OPERATIONS.count(holders, NAME, name -> name.endsWith("7")));
+    }
+
+    @Test
+    public void testSums() {
+        final List<Holder> holders = holders();
+        long ints = 0;
+        long longs = 0;
+        double doubles = 0;
+        for (Holder holder : holders) {
+            ints += holder.number;
+            longs += holder.bigNumber;
+            doubles += holder.fraction;
+        }
+        assertEquals(ints, OPERATIONS.sumInts(holders, A));
+        assertEquals(longs, OPERATIONS.sumLongs(holders, BIG_NUMBER));
+        // The fractions are exact in binary, so any order sums the same
+        assertEquals(doubles, OPERATIONS.sumDoubles(holders, FRACTION), 0);
+    }
+
+    @Test
+    public void testAggregateWithMutableIdentity() {
+        final List<Holder> holders = holders();
+        final AtomicInteger identities = new AtomicInteger();
+        final List<String> names = OPERATIONS.aggregate(holders, NAME, () -> {
+            identities.incrementAndGet();
+            return new ArrayList<String>();
+        }, (list, name) -> {
+            list.add(name);
+            return list;
+        }, (left, right) -> {
+            left.addAll(right);
+            return left;
+        });
+        final List<String> expected = new ArrayList<>();
+        for (Holder holder : holders) {
+            expected.add(holder.name);
+        }
+        assertEquals(expected, names);
+        // Every part started from its own list
+        assertTrue(identities.get() >= SIZE / 8);
+    }
+
+    @Test
+    public void testTransforms() {
+        final List<Holder> holders = holders();
+        final List<Holder> expected = holders();
+        OPERATIONS.transformInts(holders, A, number -> number * 2);
+        OPERATIONS.transformLongs(holders, BIG_NUMBER, number -> -number);
+        OPERATIONS.transformDoubles(holders, FRACTION, fraction -> fraction + 1);
+        OPERATIONS.transformAll(holders, NAME, name -> name + "!");
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected.get(i).number * 2, holders.get(i).number);
+            assertEquals(-expected.get(i).bigNumber, holders.get(i).bigNumber);
+            assertEquals(expected.get(i).fraction + 1, holders.get(i).fraction, 0);
+            assertEquals(expected.get(i).name + "!", holders.get(i).name);
+        }
+    }
+
+    @Test
+    public void testTransformsMarkChanged() {
+        final List<TestData> data = new ArrayList<>();
+        for (int i = 0; i < SIZE; i++) {
+            data.add(new TestData(i, i, "data" + i));
+        }
+        final BulkOperations<TestData> operations = BulkOperations.of(new TestData().getSchema()).withThreshold(8);
+        operations.transformInts(data, A, value -> value + 1);
+        operations.transformAll(data, NAME, name -> name.toUpperCase());
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(i + 1, data.get(i).getA());
+            assertEquals("DATA" + i, data.get(i).getName());
+            assertEquals(ImmutableSet.of(A, NAME), data.get(i).getDirtyKeys());
+        }
+    }
+
+    @Test
+    public void testSmallListIsNotSplit() {
+        final List<Holder> holders = Lists.newArrayList(new Holder(1), new Holder(2));
+        final AtomicInteger identities = new AtomicInteger();
+        final List<Holder> result = BulkOperations.of(SCHEMA).aggregate(holders, A, () -> {
+            identities.incrementAndGet();
+            return new ArrayList<Holder>();
+        }, (list, number) -> list, (left, right) -> left);
+        assertEquals(1, identities.get());
+        assertTrue(result.isEmpty());
+        assertSame(holders.get(0), OPERATIONS.filter(holders, A, number -> true).get(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedKey() {
+        OPERATIONS.sumInts(holders(), TestKeys.B);
+    }
+
+}
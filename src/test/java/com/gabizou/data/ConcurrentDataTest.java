@@ -0,0 +1,182 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.C;
+import static com.gabizou.data.TestKeys.D;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentDataTest {
+
+    private static final int WRITES = 20000;
+    private static final int READERS = 3;
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    /**
+     * Runs the writer while the readers read until it is done, and fails
+     * with the first error of any of them.
+     */
+    private static void race(Runnable writer, Runnable reader) throws InterruptedException {
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    while (!done.get() && failure.get() == null) {
+                        reader.run();
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                writer.run();
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            } finally {
+                done.set(true);
+            }
+        }));
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    private static void setAll(ConcurrentTestData data, int value) {
+        data.set(A, value);
+        data.set(B, value);
+        data.set(C, value);
+        data.set(D, value);
+    }
+
+    @Test
+    public void testSnapshotOfBatchIsNeverTorn() throws InterruptedException {
+        final ConcurrentTestData data = new ConcurrentTestData();
+        race(() -> {
+            for (int i = 1; i <= WRITES; i++) {
+                final int value = i;
+                data.batch(d -> setAll(d, value));
+            }
+        }, () -> {
+            final Object[] snapshot = data.snapshot();
+            for (Object value : snapshot) {
+                if (!value.equals(snapshot[0])) {
+                    fail("Torn snapshot " + Arrays.toString(snapshot));
+                }
+            }
+        });
+        assertArrayEquals(new Object[] {WRITES, WRITES, WRITES, WRITES}, data.snapshot());
+    }
+
+    @Test
+    public void testSnapshotOfSingleWritesIsInOrder() throws InterruptedException {
+        final ConcurrentTestData data = new ConcurrentTestData();
+        race(() -> {
+            for (int i = 1; i <= WRITES; i++) {
+                setAll(data, i);
+            }
+        }, () -> {
+            // The keys are written in slot order, so a snapshot may only be
+            // taken between two of the writes of the same round
+            final Object[] snapshot = data.snapshot();
+            final int first = (Integer) snapshot[0];
+            final int last = (Integer) snapshot[snapshot.length - 1];
+            for (int slot = 1; slot < snapshot.length; slot++) {
+                if ((Integer) snapshot[slot] > (Integer) snapshot[slot - 1]) {
+                    fail("Out of order snapshot " + Arrays.toString(snapshot));
+                }
+            }
+            if (first - last > 1) {
+                fail("Torn snapshot " + Arrays.toString(snapshot));
+            }
+        });
+    }
+
+    @Test
+    public void testGetValuesWhileWriting() throws InterruptedException {
+        final ConcurrentTestData data = new ConcurrentTestData();
+        race(() -> {
+            for (int i = 1; i <= WRITES; i++) {
+                final int value = i;
+                data.batch(d -> setAll(d, value));
+            }
+        }, () -> {
+            final Set<ImmutableValue<?>> values = data.getValues();
+            assertEquals(4, values.size());
+            for (ImmutableValue<?> value : values) {
+                assertTrue(data.supports(value.getKey()));
+                final int element = (Integer) value.get();
+                assertTrue(element >= 0 && element <= WRITES);
+            }
+        });
+        for (ImmutableValue<?> value : data.getValues()) {
+            assertEquals(WRITES, value.get());
+        }
+    }
+
+    @Test
+    public void testNestedBatch() {
+        final ConcurrentTestData data = new ConcurrentTestData();
+        data.batch(outer -> {
+            outer.set(A, 1);
+            outer.batch(inner -> inner.set(B, 2));
+            outer.set(C, 3);
+        });
+        assertArrayEquals(new Object[] {1, 2, 3, 0}, data.snapshot());
+        assertEquals(3, data.getDirtyKeys().size());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedBatchEndsTheWrite() {
+        final ConcurrentTestData data = new ConcurrentTestData();
+        try {
+            data.batch(d -> {
+                d.set(A, 1);
+                throw new IllegalStateException();
+            });
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        // The snapshot would spin forever if the write was left in progress
+        assertArrayEquals(new Object[] {1, 0, 0, 0}, data.snapshot());
+    }
+
+    @Test
+    public void testCopyAndImmutable() {
+        final ConcurrentTestData data = new ConcurrentTestData(1, 2, 3, 4);
+        final ConcurrentTestData.Immutable immutable = data.asImmutable();
+        assertEquals(4, immutable.getInt(D));
+        assertEquals(data, immutable.asMutable());
+        assertEquals(data, data.copy());
+        data.set(A, 5);
+        assertEquals(1, immutable.getInt(A));
+    }
+
+}
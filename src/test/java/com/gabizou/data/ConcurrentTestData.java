@@ -0,0 +1,112 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.C;
+import static com.gabizou.data.TestKeys.D;
+
+import com.gabizou.util.GetterFunction;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.merge.MergeFunction;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+/**
+ * A {@link ConcurrentData} with four integer keys, which the tests write
+ * together in batches.
+ */
+public class ConcurrentTestData extends ConcurrentData<ConcurrentTestData, ConcurrentTestData.Immutable> {
+
+    private static final DataSchema<ConcurrentTestData, Value<?>> SCHEMA = ConcurrentData.schema(ConcurrentTestData.class, A, B, C, D)
+        .value(A, value(A))
+        .value(B, value(B))
+        .value(C, value(C))
+        .value(D, value(D))
+        .build();
+
+    private static GetterFunction<ConcurrentTestData, Value<?>> value(Key<Value<Integer>> key) {
+        return data -> DataValues.getBuilder().createValue(key, data.getOrNull(key), 0);
+    }
+
+    public ConcurrentTestData() {
+        this(0, 0, 0, 0);
+    }
+
+    public ConcurrentTestData(int a, int b, int c, int d) {
+        super(SCHEMA, a, b, c, d);
+    }
+
+    @Override
+    public Optional<ConcurrentTestData> fill(DataHolder dataHolder, MergeFunction overlap) {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<ConcurrentTestData> from(DataContainer container) {
+        return Optional.absent();
+    }
+
+    @Override
+    public ConcurrentTestData copy() {
+        final Object[] values = snapshot();
+        return new ConcurrentTestData((Integer) values[0], (Integer) values[1], (Integer) values[2], (Integer) values[3]);
+    }
+
+    @Override
+    public Immutable asImmutable() {
+        return new Immutable(SlotStore.of(snapshot()));
+    }
+
+    @Override
+    public int compareTo(ConcurrentTestData o) {
+        return 0;
+    }
+
+    @Override
+    public DataContainer toContainer() {
+        return new MemoryDataContainer();
+    }
+
+    public static class Immutable extends PersistentImmutableData<Immutable, ConcurrentTestData> {
+
+        private static final DataSchema<Immutable, ImmutableValue<?>> SCHEMA = PersistentImmutableData.schema(Immutable.class, A, B, C, D)
+            .value(A, value(A))
+            .value(B, value(B))
+            .value(C, value(C))
+            .value(D, value(D))
+            .build();
+
+        private static GetterFunction<Immutable, ImmutableValue<?>> value(Key<Value<Integer>> key) {
+            return data -> DataValues.getBuilder().createValue(key, data.getOrNull(key), 0).asImmutable();
+        }
+
+        Immutable(SlotStore values) {
+            super(SCHEMA, values);
+        }
+
+        @Override
+        protected Immutable create(SlotStore values) {
+            return new Immutable(values);
+        }
+
+        @Override
+        public ConcurrentTestData asMutable() {
+            return new ConcurrentTestData(getInt(A), getInt(B), getInt(C), getInt(D));
+        }
+
+        @Override
+        public int compareTo(Immutable o) {
+            return 0;
+        }
+
+        @Override
+        public DataContainer toContainer() {
+            return new MemoryDataContainer();
+        }
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CopyOnWriteDataTest {
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @Before
+    public void clearCache() {
+        CopyOnWriteTestData.Immutable.CACHE.clear();
+    }
+
+    @Test
+    public void testCopySharesStoreUntilWrite() {
+        final CopyOnWriteTestData data = new CopyOnWriteTestData(1, 2, "name");
+        final CopyOnWriteTestData copy = data.copy();
+        final SlotStore store = data.store();
+        assertSame(store, copy.store());
+
+        data.set(A, 3);
+        assertNotSame(store, data.store());
+        assertSame(store, copy.store());
+        assertEquals(3, (int) data.getOrNull(A));
+        assertEquals(1, (int) copy.getOrNull(A));
+
+        copy.set(NAME, "copy");
+        assertNotSame(store, copy.store());
+        assertEquals("copy", copy.getOrNull(NAME));
+        assertEquals("name", data.getOrNull(NAME));
+        assertEquals("name", store.get(2));
+    }
+
+    @Test
+    public void testSnapshotSharesStoreUntilWrite() {
+        final CopyOnWriteTestData data = new CopyOnWriteTestData(1, 2, "name");
+        final CopyOnWriteTestData.Immutable snapshot = data.asImmutable();
+        final SlotStore store = snapshot.store();
+        assertSame(store, data.store());
+
+        data.set(A, 3);
+        assertNotSame(store, data.store());
+        assertSame(store, snapshot.store());
+        assertEquals(1, (int) snapshot.getOrNull(A));
+        assertEquals(3, (int) data.getOrNull(A));
+    }
+
+    @Test
+    public void testConstructedFromSnapshot() {
+        final CopyOnWriteTestData.Immutable snapshot = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        final CopyOnWriteTestData data = snapshot.asMutable();
+        assertSame(snapshot.store(), data.store());
+        assertSame(snapshot, data.asImmutable());
+
+        data.set(A, 3);
+        assertNotSame(snapshot.store(), data.store());
+        assertNotSame(snapshot, data.asImmutable());
+        assertEquals(1, (int) snapshot.getOrNull(A));
+        assertEquals(3, (int) data.asImmutable().getOrNull(A));
+    }
+
+    @Test
+    public void testRepeatedSnapshots() {
+        final CopyOnWriteTestData data = new CopyOnWriteTestData(1, 2, "name");
+        final CopyOnWriteTestData.Immutable snapshot = data.asImmutable();
+        assertSame(snapshot, data.asImmutable());
+
+        data.set(A, 3);
+        final CopyOnWriteTestData.Immutable changed = data.asImmutable();
+        assertNotSame(snapshot, changed);
+        assertSame(changed, data.asImmutable());
+        assertEquals(3, (int) changed.getOrNull(A));
+    }
+
+    @Test
+    public void testEqualWriteKeepsSnapshot() {
+        final CopyOnWriteTestData data = new CopyOnWriteTestData(1, 2, "name");
+        final CopyOnWriteTestData.Immutable snapshot = data.asImmutable();
+        final SlotStore store = data.store();
+
+        data.set(A, 1);
+        data.set(NAME, new String("name"));
+        assertSame(store, data.store());
+        assertSame(snapshot, data.asImmutable());
+    }
+
+}
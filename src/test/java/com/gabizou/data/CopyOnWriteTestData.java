@@ -0,0 +1,138 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+
+import com.gabizou.util.GetterFunction;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.merge.MergeFunction;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+/**
+ * A {@link CopyOnWriteData} with two integer keys and a string key, of which
+ * the immutable counterpart is interned.
+ */
+public class CopyOnWriteTestData extends CopyOnWriteData<CopyOnWriteTestData, CopyOnWriteTestData.Immutable> {
+
+    private static final DataSchema<CopyOnWriteTestData, Value<?>> SCHEMA = CopyOnWriteData.schema(CopyOnWriteTestData.class, A, B, NAME)
+        .value(A, value(A, 0))
+        .value(B, value(B, 0))
+        .value(NAME, value(NAME, ""))
+        .build();
+
+    private static <E> GetterFunction<CopyOnWriteTestData, Value<?>> value(Key<Value<E>> key, E defaultValue) {
+        return data -> DataValues.getBuilder().createValue(key, data.getOrNull(key), defaultValue);
+    }
+
+    public CopyOnWriteTestData() {
+        this(0, 0, "");
+    }
+
+    public CopyOnWriteTestData(int a, int b, String name) {
+        super(SCHEMA, SlotStore.of(a, b, name));
+    }
+
+    CopyOnWriteTestData(SlotStore values) {
+        super(SCHEMA, values);
+    }
+
+    CopyOnWriteTestData(Immutable snapshot) {
+        super(SCHEMA, snapshot);
+    }
+
+    // Exposed to the tests, to check whether the store is shared. Like any
+    // call of getStore(), this marks the store as shared, so the next write
+    // copies it.
+    SlotStore store() {
+        return getStore();
+    }
+
+    @Override
+    protected CopyOnWriteTestData createMutable(SlotStore values) {
+        return new CopyOnWriteTestData(values);
+    }
+
+    @Override
+    protected Immutable createImmutable(SlotStore values) {
+        return new Immutable(values);
+    }
+
+    @Override
+    public Optional<CopyOnWriteTestData> fill(DataHolder dataHolder, MergeFunction overlap) {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<CopyOnWriteTestData> from(DataContainer container) {
+        return Optional.absent();
+    }
+
+    @Override
+    public int compareTo(CopyOnWriteTestData o) {
+        return 0;
+    }
+
+    @Override
+    public DataContainer toContainer() {
+        return new MemoryDataContainer();
+    }
+
+    public static class Immutable extends PersistentImmutableData<Immutable, CopyOnWriteTestData> {
+
+        private static final DataSchema<Immutable, ImmutableValue<?>> SCHEMA = PersistentImmutableData.schema(Immutable.class, A, B, NAME)
+            .value(A, value(A, 0))
+            .value(B, value(B, 0))
+            .value(NAME, value(NAME, ""))
+            .build();
+        static final ImmutableDataCache<Immutable> CACHE = ImmutableDataCache.create(64);
+
+        private static <E> GetterFunction<Immutable, ImmutableValue<?>> value(Key<Value<E>> key, E defaultValue) {
+            return data -> DataValues.getBuilder().createValue(key, data.getOrNull(key), defaultValue).asImmutable();
+        }
+
+        public static Immutable of(int a, int b, String name) {
+            return CACHE.intern(new Object[] {a, b, name}, values -> new Immutable(SlotStore.of(values)));
+        }
+
+        Immutable(SlotStore values) {
+            super(SCHEMA, values);
+        }
+
+        // Exposed to the tests, to check whether the store is shared
+        SlotStore store() {
+            return getStore();
+        }
+
+        @Override
+        protected Immutable create(SlotStore values) {
+            return new Immutable(values);
+        }
+
+        @Override
+        protected ImmutableDataCache<Immutable> getCache() {
+            return CACHE;
+        }
+
+        @Override
+        public CopyOnWriteTestData asMutable() {
+            return new CopyOnWriteTestData(this);
+        }
+
+        @Override
+        public int compareTo(Immutable o) {
+            return 0;
+        }
+
+        @Override
+        public DataContainer toContainer() {
+            return new MemoryDataContainer();
+        }
+    }
+
+}
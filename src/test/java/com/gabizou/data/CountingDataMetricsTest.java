@@ -0,0 +1,135 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.UNSUPPORTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.gabizou.data.CountingDataMetrics.LatencyHistogram;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CountingDataMetricsTest {
+
+    private CountingDataMetrics metrics;
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @Before
+    public void installMetrics() {
+        this.metrics = new CountingDataMetrics();
+        DataInstrumentation.setMetrics(this.metrics);
+    }
+
+    @After
+    public void removeMetrics() {
+        DataInstrumentation.setMetrics(null);
+    }
+
+    @Test
+    public void testCountsPerTypeAndKey() {
+        final TestData data = new TestData();
+        new TestData();
+        data.get(A);
+        data.get(A);
+        data.get(B);
+        data.getValue(A);
+        data.get(UNSUPPORTED);
+        data.setA(1);
+        DataInstrumentation.recordCopy(TestData.class);
+
+        assertEquals(ImmutableSet.of(TestData.class), this.metrics.getTypes());
+        assertEquals(2, this.metrics.getCreated(TestData.class));
+        assertEquals(1, this.metrics.getCopied(TestData.class));
+        assertEquals(2, this.metrics.getGets(TestData.class, A));
+        assertEquals(1, this.metrics.getGets(TestData.class, B));
+        assertEquals(1, this.metrics.getValueGets(TestData.class, A));
+        assertEquals(1, this.metrics.getRejected(TestData.class, UNSUPPORTED));
+        assertEquals(1, this.metrics.getSets(TestData.class, A));
+        assertEquals(0, this.metrics.getSets(TestData.class, B));
+    }
+
+    @Test
+    public void testTransformIsCountedAsSet() {
+        final TestData data = new TestData();
+        data.transform(A, a -> a + 1);
+        assertEquals(1, data.getA());
+        assertEquals(1, this.metrics.getTransforms(TestData.class, A));
+        assertEquals(1, this.metrics.getSets(TestData.class, A));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        this.metrics.onToContainer(TestData.class, 0);
+        this.metrics.onToContainer(TestData.class, 1);
+        this.metrics.onToContainer(TestData.class, 3);
+        this.metrics.onToContainer(TestData.class, 1000);
+        this.metrics.onBuild(TestData.class, 1024);
+
+        final LatencyHistogram toContainer = this.metrics.getToContainerLatency(TestData.class);
+        assertEquals(4, toContainer.getCount());
+        assertEquals(2, toContainer.getCount(0));
+        assertEquals(1, toContainer.getCount(1));
+        assertEquals(1, toContainer.getCount(9));
+        assertEquals(1 + 1 + 3 + 1000, toContainer.getTotalNanos());
+
+        final LatencyHistogram build = this.metrics.getBuildLatency(TestData.class);
+        assertEquals(1, build.getCount());
+        assertEquals(1, build.getCount(10));
+    }
+
+    @Test
+    public void testPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentile(0));
+        assertEquals(0, histogram.getPercentile(100));
+
+        histogram.record(100);
+        histogram.record(100);
+        histogram.record(100);
+        histogram.record(5000);
+        assertEquals(128, histogram.getPercentile(0));
+        assertEquals(128, histogram.getPercentile(50));
+        assertEquals(128, histogram.getPercentile(75));
+        assertEquals(8192, histogram.getPercentile(76));
+        assertEquals(8192, histogram.getPercentile(100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        new LatencyHistogram().getPercentile(101);
+    }
+
+    @Test
+    public void testGettersDoNotRegisterTypes() {
+        assertEquals(0, this.metrics.getToContainerLatency(TestData.class).getCount());
+        assertEquals(0, this.metrics.getBuildLatency(TestData.class).getCount());
+        assertEquals(0, this.metrics.getSets(TestData.class, A));
+        assertEquals(0, this.metrics.getCreated(TestData.class));
+        assertTrue(this.metrics.getKeys(TestData.class).isEmpty());
+        assertTrue(this.metrics.getTypes().isEmpty());
+    }
+
+    @Test
+    public void testReset() {
+        final TestData data = new TestData();
+        data.setA(1);
+        data.get(B);
+        this.metrics.onBuild(TestData.class, 10);
+
+        this.metrics.reset();
+        assertTrue(this.metrics.getTypes().isEmpty());
+        assertEquals(0, this.metrics.getCreated(TestData.class));
+        assertEquals(0, this.metrics.getSets(TestData.class, A));
+        assertEquals(0, this.metrics.getGets(TestData.class, B));
+        assertEquals(0, this.metrics.getBuildLatency(TestData.class).getCount());
+    }
+
+}
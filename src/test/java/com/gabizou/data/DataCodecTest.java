@@ -0,0 +1,239 @@
+package com.gabizou.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.key.KeyFactory;
+import org.spongepowered.api.data.value.mutable.Value;
+import org.spongepowered.api.service.persistence.InvalidDataException;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+
+@SuppressWarnings("unchecked")
+public class DataCodecTest {
+
+    // More booleans than fit in a single packed byte
+    private static final int FLAG_COUNT = 11;
+
+    private static final Key<Value<Boolean>>[] FLAGS = new Key[FLAG_COUNT];
+    private static final Key<Value<Integer>> NUMBER = key(Integer.class, "number");
+    private static final Key<Value<Long>> BIG_NUMBER = key(Long.class, "bigNumber");
+    private static final Key<Value<Double>> FRACTION = key(Double.class, "fraction");
+    private static final Key<Value<String>> NAME = key(String.class, "name");
+
+    private static final DataSchema<Holder, Value<?>> SCHEMA;
+
+    static {
+        final DataSchema.Builder<Holder, Value<?>> builder = DataSchema.mutable(Holder.class);
+        for (int i = 0; i < FLAG_COUNT; i++) {
+            final int flag = i;
+            FLAGS[i] = key(Boolean.class, "flag" + i);
+            builder.booleanField(FLAGS[i], holder -> holder.flags[flag], (holder, value) -> holder.flags[flag] = value);
+        }
+        SCHEMA = builder
+            .intField(NUMBER, holder -> holder.number, (holder, value) -> holder.number = value)
+            .longField(BIG_NUMBER, holder -> holder.bigNumber, (holder, value) -> holder.bigNumber = value)
+            .doubleField(FRACTION, holder -> holder.fraction, (holder, value) -> holder.fraction = value)
+            .field(NAME, holder -> holder.name, (holder, value) -> holder.name = value)
+            .build();
+    }
+
+    private static final DataCodec<Holder> CODEC = DataCodec.of(SCHEMA);
+
+    private static final int[] INTS = {0, 1, -1, 63, -64, 64, -65, 127, 128, 16383, 16384, 2097151, 2097152, 268435455, 268435456,
+        Integer.MAX_VALUE, Integer.MIN_VALUE};
+    private static final long[] LONGS = {0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE, 1L << 35, 1L << 56, (1L << 63) - 1,
+        Long.MAX_VALUE, Long.MIN_VALUE};
+
+    private static <E> Key<Value<E>> key(Class<E> type, String name) {
+        return KeyFactory.makeSingleKey(type, (Class<Value<E>>) (Class) Value.class, DataQuery.of(name));
+    }
+
+    static final class Holder {
+
+        final boolean[] flags = new boolean[FLAG_COUNT];
+        int number;
+        long bigNumber;
+        double fraction;
+        String name = "";
+    }
+
+    private static Holder holder() {
+        final Holder holder = new Holder();
+        for (int i = 0; i < FLAG_COUNT; i++) {
+            holder.flags[i] = i % 3 != 1;
+        }
+        holder.number = -300;
+        holder.bigNumber = Long.MIN_VALUE;
+        holder.fraction = -0.5;
+        holder.name = "caf\u00e9";
+        return holder;
+    }
+
+    private static ByteBuffer encode(Holder holder) {
+        final ByteBuffer buffer = ByteBuffer.allocate(CODEC.sizeOf(holder));
+        CODEC.encode(holder, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void assertHolderEquals(Holder expected, Holder actual) {
+        assertArrayEquals(expected.flags, actual.flags);
+        assertEquals(expected.number, actual.number);
+        assertEquals(expected.bigNumber, actual.bigNumber);
+        assertEquals(expected.fraction, actual.fraction, 0);
+        assertEquals(expected.name, actual.name);
+    }
+
+    @Test
+    public void testVarIntBoundaries() {
+        for (int value : INTS) {
+            final ByteBuffer buffer = ByteBuffer.allocate(5);
+            DataCodec.putVarInt(buffer, value);
+            assertEquals(DataCodec.varIntSize(value), buffer.position());
+            buffer.flip();
+            assertEquals(value, DataCodec.getVarInt(buffer));
+        }
+        assertEquals(1, DataCodec.varIntSize(127));
+        assertEquals(2, DataCodec.varIntSize(128));
+        assertEquals(5, DataCodec.varIntSize(-1));
+    }
+
+    @Test
+    public void testVarLongBoundaries() {
+        for (long value : LONGS) {
+            final ByteBuffer buffer = ByteBuffer.allocate(10);
+            DataCodec.putVarLong(buffer, value);
+            assertEquals(DataCodec.varLongSize(value), buffer.position());
+            buffer.flip();
+            assertEquals(value, DataCodec.getVarLong(buffer));
+        }
+        assertEquals(10, DataCodec.varLongSize(-1L));
+    }
+
+    @Test
+    public void testZigzag() {
+        for (int value : INTS) {
+            assertEquals(value, DataCodec.unzigzag(DataCodec.zigzag(value)));
+        }
+        for (long value : LONGS) {
+            assertEquals(value, DataCodec.unzigzag(DataCodec.zigzag(value)));
+        }
+        // Small negative values stay small
+        assertEquals(1, DataCodec.zigzag(-1));
+        assertEquals(1, DataCodec.varIntSize(DataCodec.zigzag(-64)));
+        assertEquals(2, DataCodec.varIntSize(DataCodec.zigzag(-65)));
+        assertEquals(1L, DataCodec.zigzag(-1L));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final Holder holder = holder();
+        final Holder decoded = CODEC.decode(encode(holder), new Holder());
+        assertHolderEquals(holder, decoded);
+    }
+
+    @Test
+    public void testRoundTripBoundaries() {
+        for (int i = 0; i < INTS.length; i++) {
+            final Holder holder = holder();
+            holder.number = INTS[i];
+            holder.bigNumber = LONGS[i % LONGS.length];
+            holder.flags[i % FLAG_COUNT] ^= true;
+            assertHolderEquals(holder, CODEC.decode(encode(holder), new Holder()));
+        }
+    }
+
+    @Test
+    public void testDeltaRoundTrip() {
+        final Holder holder = holder();
+        final BitSet slots = new BitSet();
+        slots.set(SCHEMA.getSlot(FLAGS[FLAG_COUNT - 1]));
+        slots.set(SCHEMA.getSlot(NUMBER));
+        slots.set(SCHEMA.getSlot(NAME));
+        final ByteBuffer buffer = ByteBuffer.allocate(CODEC.sizeOfDelta(holder, slots));
+        CODEC.encodeDelta(holder, slots, buffer);
+        assertEquals(buffer.capacity(), buffer.position());
+        buffer.flip();
+
+        final Holder decoded = new Holder();
+        assertEquals(slots, CODEC.decodeDelta(buffer, decoded));
+        assertEquals(holder.flags[FLAG_COUNT - 1], decoded.flags[FLAG_COUNT - 1]);
+        assertEquals(holder.number, decoded.number);
+        assertEquals(holder.name, decoded.name);
+        assertEquals(0, decoded.bigNumber);
+    }
+
+    @Test
+    public void testTruncated() {
+        final ByteBuffer buffer = encode(holder());
+        for (int length = 0; length < buffer.limit(); length++) {
+            final ByteBuffer truncated = buffer.duplicate();
+            truncated.limit(length);
+            final Holder decoded = new Holder();
+            try {
+                CODEC.decode(truncated, decoded);
+                fail("Decoded the data truncated to " + length + " bytes");
+            } catch (InvalidDataException e) {
+                // Expected
+            }
+            // Nothing is set before all of the data was read
+            assertHolderEquals(new Holder(), decoded);
+        }
+    }
+
+    @Test
+    public void testTruncatedDelta() {
+        final Holder holder = holder();
+        final BitSet slots = new BitSet();
+        slots.set(0, SCHEMA.size());
+        final ByteBuffer buffer = ByteBuffer.allocate(CODEC.sizeOfDelta(holder, slots));
+        CODEC.encodeDelta(holder, slots, buffer);
+        buffer.flip();
+        for (int length = 0; length < buffer.limit(); length++) {
+            final ByteBuffer truncated = buffer.duplicate();
+            truncated.limit(length);
+            final Holder decoded = new Holder();
+            try {
+                CODEC.decodeDelta(truncated, decoded);
+                fail("Decoded the delta truncated to " + length + " bytes");
+            } catch (InvalidDataException e) {
+                // Expected
+            }
+            assertHolderEquals(new Holder(), decoded);
+        }
+    }
+
+    @Test
+    public void testOtherSchema() {
+        final DataCodec<Holder> other = DataCodec.of(DataSchema.mutable(Holder.class)
+            .intField(NUMBER, holder -> holder.number, (holder, value) -> holder.number = value)
+            .build());
+        try {
+            other.decode(encode(holder()), new Holder());
+            fail("Decoded the data of another schema");
+        } catch (InvalidDataException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testNullField() {
+        final Holder holder = holder();
+        holder.name = null;
+        try {
+            CODEC.sizeOf(holder);
+            fail("Encoded a null field");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("slot " + SCHEMA.getSlot(NAME)));
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+
+public class DataPatchTest {
+
+    @Test
+    public void testDiff() {
+        final TestData from = new TestData(1, 2, "name");
+        final DataPatch patch = from.diff(new TestData(1, 3, "other"));
+        assertEquals(2, patch.size());
+        assertEquals(B, patch.getKey(0));
+        assertEquals(3, patch.getValue(0));
+        assertEquals(NAME, patch.getKey(1));
+        assertEquals("other", patch.getValue(1));
+    }
+
+    @Test
+    public void testDiffOfEqual() {
+        final DataPatch patch = new TestData(1, 2, "name").diff(new TestData(1, 2, "name"));
+        assertTrue(patch.isEmpty());
+        assertEquals(0, patch.size());
+    }
+
+    @Test
+    public void testMutableRoundTrip() {
+        final TestData from = new TestData(1, 2, "name");
+        final TestData to = new TestData(4, 2, "other");
+        final TestData patched = from.copy().patch(from.diff(to));
+        assertEquals(to, patched);
+        assertEquals(ImmutableSet.of(A, NAME), patched.getDirtyKeys());
+        assertTrue(patched.diff(to).isEmpty());
+    }
+
+    @Test
+    public void testImmutableRoundTrip() {
+        final TestData.Immutable from = new TestData.Immutable(1, 2, "name");
+        final TestData.Immutable to = new TestData.Immutable(1, 5, "other");
+        final TestData.Immutable patched = from.patch(from.diff(to));
+        assertEquals(to, patched);
+        assertEquals(2, from.getInt(B));
+        assertSame(from, from.patch(from.diff(from)));
+    }
+
+    @Test
+    public void testAcrossCounterparts() {
+        final TestData from = new TestData(1, 2, "name");
+        final TestData to = new TestData(7, 2, "name");
+        // A patch of the mutable manipulators applied to the immutable one, and back
+        final TestData.Immutable patched = from.asImmutable().patch(from.diff(to));
+        assertEquals(to.asImmutable(), patched);
+        final TestData mutable = from.copy().patch(from.asImmutable().diff(patched));
+        assertEquals(to, mutable);
+    }
+
+    @Test
+    public void testUnsupportedKey() {
+        final CopyOnWriteTestData from = new CopyOnWriteTestData(1, 2, "name");
+        // A and B are supported by the patched manipulator, but NAME, which
+        // comes after them, isn't
+        final DataPatch patch = from.diff(new CopyOnWriteTestData(3, 4, "other"));
+        final ConcurrentTestData data = new ConcurrentTestData(0, 0, 0, 0);
+        try {
+            data.patch(patch);
+            fail("Applied a patch with an unsupported key");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals(0, (int) data.getOrNull(A));
+        assertEquals(0, (int) data.getOrNull(B));
+        assertFalse(data.isDirty());
+        try {
+            data.asImmutable().patch(patch);
+            fail("Applied a patch with an unsupported key");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+}
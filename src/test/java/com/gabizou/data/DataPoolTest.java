@@ -0,0 +1,121 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DataPoolTest {
+
+    private static final DataSchema<TestData, ?> SCHEMA = new TestData().getSchema();
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    // Writes the fields through the schema, which doesn't mark them changed
+    private static DataPool<TestData> pool(int maximumSize) {
+        return DataPool.create(TestData::new, data -> {
+            SCHEMA.setInt(data, SCHEMA.getSlot(A), 0);
+            SCHEMA.setInt(data, SCHEMA.getSlot(TestKeys.B), 0);
+            SCHEMA.set(data, SCHEMA.getSlot(NAME), "");
+        }, maximumSize);
+    }
+
+    @Test
+    public void testReuse() {
+        final DataPool<TestData> pool = pool(4);
+        final TestData data = pool.borrow();
+        assertEquals(0, pool.getFreeCount());
+        pool.release(data);
+        assertEquals(1, pool.getFreeCount());
+        assertSame(data, pool.borrow());
+        assertEquals(0, pool.getFreeCount());
+        assertNotSame(data, pool.borrow());
+    }
+
+    @Test
+    public void testResetsState() {
+        final DataPool<TestData> pool = pool(4);
+        final TestData data = pool.borrow();
+        data.setA(5);
+        data.set(NAME, "name");
+        // Caches the values, which must not survive the release
+        assertEquals(3, data.getValues().size());
+        pool.release(data);
+        final TestData borrowed = pool.borrow();
+        assertSame(data, borrowed);
+        assertEquals(0, borrowed.getA());
+        assertEquals("", borrowed.getName());
+        assertFalse(borrowed.isDirty());
+        assertEquals(ImmutableSet.of(), borrowed.getDirtyKeys());
+        assertEquals(new TestData().getValues(), borrowed.getValues());
+    }
+
+    @Test
+    public void testDoubleRelease() {
+        final DataPool<TestData> pool = pool(4);
+        final TestData data = pool.borrow();
+        pool.release(data);
+        try {
+            pool.release(data);
+            fail("Released a manipulator twice");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals(1, pool.getFreeCount());
+    }
+
+    @Test
+    public void testDoubleReleaseAfterDrop() {
+        final DataPool<TestData> pool = pool(1);
+        final TestData kept = pool.borrow();
+        final TestData dropped = pool.borrow();
+        pool.release(kept);
+        // The free list is full, so this one is dropped
+        pool.release(dropped);
+        assertEquals(1, pool.getFreeCount());
+        try {
+            pool.release(dropped);
+            fail("Released a dropped manipulator twice");
+        } catch (IllegalStateException expected) {
+        }
+        assertSame(kept, pool.borrow());
+    }
+
+    @Test
+    public void testPerThread() throws InterruptedException {
+        final DataPool<TestData> pool = pool(4);
+        final TestData data = pool.borrow();
+        pool.release(data);
+        final AtomicReference<TestData> borrowed = new AtomicReference<>();
+        final AtomicReference<Integer> freeCount = new AtomicReference<>();
+        final Thread thread = new Thread(() -> {
+            freeCount.set(pool.getFreeCount());
+            borrowed.set(pool.borrow());
+            pool.release(borrowed.get());
+        });
+        thread.start();
+        thread.join();
+        assertEquals(0, (int) freeCount.get());
+        assertNotSame(data, borrowed.get());
+        // The other thread released into its own list
+        assertEquals(1, pool.getFreeCount());
+        assertSame(data, pool.borrow());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        pool(0);
+    }
+
+}
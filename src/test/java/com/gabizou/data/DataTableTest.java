@@ -0,0 +1,194 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.mutable.Value;
+
+public class DataTableTest {
+
+    private static final Key<Value<Boolean>> FLAG = TestKeys.key(Boolean.class, "flag");
+    private static final Key<Value<Long>> BIG_NUMBER = TestKeys.key(Long.class, "bigNumber");
+    private static final Key<Value<Double>> FRACTION = TestKeys.key(Double.class, "fraction");
+
+    private static final DataSchema<Holder, Value<?>> SCHEMA = DataSchema.mutable(Holder.class)
+        .booleanField(FLAG, holder -> holder.flag, (holder, value) -> holder.flag = value)
+        .intField(A, holder -> holder.number, (holder, value) -> holder.number = value)
+        .longField(BIG_NUMBER, holder -> holder.bigNumber, (holder, value) -> holder.bigNumber = value)
+        .doubleField(FRACTION, holder -> holder.fraction, (holder, value) -> holder.fraction = value)
+        .field(NAME, holder -> holder.name, (holder, value) -> holder.name = value)
+        .build();
+
+    // Spans three words of booleans
+    private static final int ROWS = 150;
+
+    static final class Holder {
+
+        boolean flag;
+        int number;
+        long bigNumber;
+        double fraction;
+        String name = "";
+    }
+
+    private static Holder holder(int index) {
+        final Holder holder = new Holder();
+        holder.flag = index % 3 == 0;
+        holder.number = index;
+        holder.bigNumber = index * 1000000000L;
+        holder.fraction = index / 2.0;
+        holder.name = "holder" + index;
+        return holder;
+    }
+
+    private static DataTable<Holder> table() {
+        final DataTable<Holder> table = DataTable.create(SCHEMA, 0);
+        for (int i = 0; i < ROWS; i++) {
+            assertEquals(i, table.add(holder(i)));
+        }
+        return table;
+    }
+
+    // The row holds the fields of the holder of the given index
+    private static void assertRow(DataTable<Holder> table, int row, int index) {
+        assertEquals(index % 3 == 0, table.getBoolean(row, FLAG));
+        assertEquals(index, table.getInt(row, A));
+        assertEquals(index * 1000000000L, table.getLong(row, BIG_NUMBER));
+        assertEquals(index / 2.0, table.getDouble(row, FRACTION), 0);
+        assertEquals("holder" + index, table.get(row, NAME));
+    }
+
+    private static int countTrue(DataTable<Holder> table) {
+        int count = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (table.getBoolean(row, FLAG)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testAddGrows() {
+        final DataTable<Holder> table = table();
+        assertEquals(ROWS, table.size());
+        for (int row = 0; row < ROWS; row++) {
+            assertRow(table, row, row);
+        }
+    }
+
+    @Test
+    public void testBooleansAcrossWords() {
+        final DataTable<Holder> table = table();
+        for (int row : new int[] {62, 63, 64, 65, 127, 128}) {
+            final boolean before = table.getBoolean(row - 1, FLAG);
+            final boolean after = table.getBoolean(row + 1, FLAG);
+            table.setBoolean(row, FLAG, true);
+            assertTrue(table.getBoolean(row, FLAG));
+            table.setBoolean(row, FLAG, false);
+            assertFalse(table.getBoolean(row, FLAG));
+            // The neighbours, in other bits or words, are untouched
+            assertEquals(before, table.getBoolean(row - 1, FLAG));
+            assertEquals(after, table.getBoolean(row + 1, FLAG));
+        }
+        assertEquals(countTrue(table), table.countTrue(FLAG));
+    }
+
+    @Test
+    public void testRemoveSwap() {
+        final DataTable<Holder> table = table();
+        // The last row, holding a true flag, moves into the first word
+        assertEquals(ROWS - 1, table.removeSwap(1));
+        assertEquals(ROWS - 1, table.size());
+        assertRow(table, 1, ROWS - 1);
+        // Across the words, and then the last row itself
+        assertEquals(ROWS - 2, table.removeSwap(64));
+        assertRow(table, 64, ROWS - 2);
+        assertEquals(ROWS - 3, table.removeSwap(ROWS - 3));
+        assertEquals(ROWS - 3, table.size());
+        assertRow(table, 0, 0);
+        assertRow(table, ROWS - 4, ROWS - 4);
+        assertEquals(countTrue(table), table.countTrue(FLAG));
+    }
+
+    @Test
+    public void testCountTrueAfterRemovals() {
+        final DataTable<Holder> table = table();
+        while (table.size() > 0) {
+            table.removeSwap(table.size() / 2);
+            assertEquals(countTrue(table), table.countTrue(FLAG));
+        }
+        assertEquals(0, table.countTrue(FLAG));
+        // A row added after the removals doesn't see the removed flags
+        table.add(holder(1));
+        assertEquals(0, table.countTrue(FLAG));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRemovedRowIsOutOfBounds() {
+        final DataTable<Holder> table = table();
+        table.removeSwap(ROWS - 1);
+        table.getInt(ROWS - 1, A);
+    }
+
+    @Test
+    public void testStoreAndLoad() {
+        final DataTable<Holder> table = table();
+        table.store(10, holder(20));
+        assertRow(table, 10, 20);
+        final Holder loaded = new Holder();
+        assertSame(loaded, table.load(10, loaded));
+        assertEquals(20, loaded.number);
+        assertEquals("holder20", loaded.name);
+        assertEquals(10.0, loaded.fraction, 0);
+    }
+
+    @Test
+    public void testLoadMarksChanged() {
+        final DataTable<TestData> table = DataTable.create(new TestData().getSchema(), 4);
+        table.add(new TestData(1, 2, "name"));
+        final TestData loaded = table.load(0, new TestData());
+        assertEquals(1, loaded.getA());
+        assertEquals(2, loaded.getB());
+        assertEquals("name", loaded.getName());
+        assertEquals(ImmutableSet.of(A, B, NAME), loaded.getDirtyKeys());
+    }
+
+    @Test
+    public void testRow() {
+        final DataTable<Holder> table = table();
+        final DataTable<Holder>.Row row = table.row(3);
+        assertEquals(3, row.getInt(A));
+        row.setInt(A, 30).setBoolean(FLAG, false).set(NAME, "changed");
+        assertEquals(30, table.getInt(3, A));
+        assertFalse(table.getBoolean(3, FLAG));
+        assertEquals("changed", table.get(3, NAME));
+        assertEquals(4, row.moveTo(4).getInt(A));
+        row.store(holder(40));
+        assertEquals(40L * 1000000000L, table.getLong(4, BIG_NUMBER));
+    }
+
+    @Test
+    public void testTransformAndStream() {
+        final DataTable<Holder> table = table();
+        table.transformInts(A, value -> value * 2);
+        assertEquals((long) (ROWS - 1) * ROWS, table.streamInts(A).asLongStream().sum());
+        table.removeSwap(0);
+        assertEquals(ROWS - 1, table.streamLongs(BIG_NUMBER).count());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongType() {
+        table().getInt(0, (Key) BIG_NUMBER);
+    }
+
+}
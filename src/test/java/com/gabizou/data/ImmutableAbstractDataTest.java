@@ -0,0 +1,55 @@
+package com.gabizou.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ImmutableAbstractDataTest {
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @Test
+    public void testEquals() {
+        final TestData.Immutable data = new TestData.Immutable(1, 2, "name");
+        assertEquals(data, data);
+        assertEquals(data, new TestData.Immutable(1, 2, new String("name")));
+        assertEquals(data.hashCode(), new TestData.Immutable(1, 2, "name").hashCode());
+        assertFalse(data.equals(new TestData.Immutable(1, 3, "name")));
+        assertFalse(data.equals(new TestData.Immutable(1, 2, "other")));
+        assertFalse(data.equals(null));
+        // Equal values, but not the same class
+        assertFalse(data.equals(new CopyOnWriteTestData.Immutable(SlotStore.of(1, 2, "name"))));
+        assertFalse(data.equals(data.asMutable()));
+    }
+
+    @Test
+    public void testCachedHashCode() {
+        final TestData.Immutable data = new TestData.Immutable(1, 2, "name");
+        final int hash = data.hashCode();
+        assertEquals(hash, data.hashCode());
+        assertEquals(hash, new TestData.Immutable(1, 2, "name").hashCode());
+    }
+
+    @Test
+    public void testEqualsWithCachedHashCode() {
+        final TestData.Immutable data = new TestData.Immutable(1, 2, "name");
+        final TestData.Immutable equal = new TestData.Immutable(1, 2, "name");
+        final TestData.Immutable other = new TestData.Immutable(1, 3, "name");
+        // Only one of the hashes is cached
+        data.hashCode();
+        assertEquals(data, equal);
+        assertEquals(equal, data);
+        // Both of the hashes are cached
+        equal.hashCode();
+        other.hashCode();
+        assertEquals(data, equal);
+        assertFalse(data.equals(other));
+        assertFalse(other.equals(data));
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.NAME;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ImmutableDataCacheTest {
+
+    private static final ImmutableDataCache<CopyOnWriteTestData.Immutable> CACHE = CopyOnWriteTestData.Immutable.CACHE;
+
+    @Before
+    public void clearCache() {
+        CACHE.clear();
+    }
+
+    @Test
+    public void testHit() {
+        final AtomicInteger created = new AtomicInteger();
+        final CopyOnWriteTestData.Immutable first = CACHE.intern(new Object[] {1, 2, "name"}, values -> {
+            created.incrementAndGet();
+            return new CopyOnWriteTestData.Immutable(SlotStore.of(values));
+        });
+        final CopyOnWriteTestData.Immutable second = CACHE.intern(new Object[] {1, 2, "name"}, values -> {
+            created.incrementAndGet();
+            return new CopyOnWriteTestData.Immutable(SlotStore.of(values));
+        });
+        assertSame(first, second);
+        assertEquals(1, created.get());
+        assertSame(first, CopyOnWriteTestData.Immutable.of(1, 2, "name"));
+        assertSame(first, CACHE.intern(new CopyOnWriteTestData.Immutable(SlotStore.of(1, 2, "name"))));
+    }
+
+    @Test
+    public void testMiss() {
+        final CopyOnWriteTestData.Immutable first = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        final CopyOnWriteTestData.Immutable second = CopyOnWriteTestData.Immutable.of(1, 2, "other");
+        assertNotSame(first, second);
+        assertEquals("other", second.getOrNull(NAME));
+        final CopyOnWriteTestData.Immutable uncached = new CopyOnWriteTestData.Immutable(SlotStore.of(3, 4, "new"));
+        assertSame(uncached, CACHE.intern(uncached));
+        assertEquals(3, CACHE.size());
+    }
+
+    @Test
+    public void testKeyIsCopied() {
+        final Object[] values = {1, 2, "name"};
+        final CopyOnWriteTestData.Immutable first = CACHE.intern(values, v -> new CopyOnWriteTestData.Immutable(SlotStore.of(v)));
+        values[0] = 5;
+        assertSame(first, CopyOnWriteTestData.Immutable.of(1, 2, "name"));
+    }
+
+    @Test
+    public void testWeakEviction() {
+        final WeakReference<CopyOnWriteTestData.Immutable> reference = new WeakReference<>(CopyOnWriteTestData.Immutable.of(7, 8, "weak"));
+        for (int i = 0; i < 100 && reference.get() != null; i++) {
+            System.gc();
+        }
+        assertNull("The interned instance wasn't collected", reference.get());
+        // A new instance is created once the old one was collected
+        final AtomicInteger created = new AtomicInteger();
+        CACHE.intern(new Object[] {7, 8, "weak"}, values -> {
+            created.incrementAndGet();
+            return new CopyOnWriteTestData.Immutable(SlotStore.of(values));
+        });
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    public void testMaximumSize() {
+        final ImmutableDataCache<CopyOnWriteTestData.Immutable> cache = ImmutableDataCache.create(2);
+        // Kept strongly reachable, so only the maximum size evicts them
+        final CopyOnWriteTestData.Immutable[] strong = new CopyOnWriteTestData.Immutable[10];
+        for (int i = 0; i < strong.length; i++) {
+            strong[i] = cache.intern(new CopyOnWriteTestData.Immutable(SlotStore.of(i, i, "")));
+        }
+        assertTrue(cache.size() <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveSize() {
+        ImmutableDataCache.create(0);
+    }
+
+    @Test
+    public void testWithIsInterned() {
+        TestValues.install();
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        final CopyOnWriteTestData.Immutable changed = data.with(A, 3).get();
+        assertSame(changed, data.with(A, 3).get());
+        assertSame(changed, CopyOnWriteTestData.Immutable.of(3, 2, "name"));
+        assertSame(data, changed.with(A, 1).get());
+    }
+
+    @Test
+    public void testAsImmutableIsInterned() {
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        assertSame(data, new CopyOnWriteTestData(1, 2, "name").asImmutable());
+        final CopyOnWriteTestData mutable = data.asMutable();
+        mutable.set(A, 3);
+        assertSame(CopyOnWriteTestData.Immutable.of(3, 2, "name"), mutable.asImmutable());
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static com.gabizou.data.TestKeys.UNSUPPORTED;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.service.persistence.InvalidDataException;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class LazyDataTest {
+
+    private static final DataCodec<TestData> CODEC = DataCodec.of(new TestData().getSchema());
+    // Written around the data, so the data is only a part of the buffer
+    private static final int PADDING = 5;
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    // Encodes the data in the middle of a larger buffer, leaving the position
+    // at the start of the data and the limit at its end
+    private static <H> ByteBuffer encode(DataCodec<H> codec, H holder) {
+        final int size = codec.sizeOf(holder);
+        final ByteBuffer buffer = ByteBuffer.allocate(size + 2 * PADDING);
+        Arrays.fill(buffer.array(), (byte) -1);
+        buffer.position(PADDING);
+        codec.encode(holder, buffer);
+        buffer.position(PADDING);
+        buffer.limit(PADDING + size);
+        return buffer;
+    }
+
+    @Test
+    public void testGet() throws Exception {
+        final ByteBuffer buffer = encode(CODEC, new TestData(1, 2, "name"));
+        final LazyData<TestData> data = LazyData.of(CODEC, buffer);
+        assertEquals("name", data.get(NAME).get());
+        assertEquals(1, (int) data.get(A).get());
+        assertEquals(2, (int) data.get(B).get());
+        assertEquals(1, (int) data.get(A).get());
+        assertFalse(data.get(UNSUPPORTED).isPresent());
+        // The buffer is only read through the slice
+        assertEquals(PADDING, buffer.position());
+    }
+
+    @Test
+    public void testDecode() throws Exception {
+        final TestData source = new TestData(1, 2, "name");
+        final LazyData<TestData> data = LazyData.of(CODEC, encode(CODEC, source));
+        data.get(A);
+        final TestData decoded = data.decode(new TestData());
+        assertEquals(source, decoded);
+        // Decoding twice reads the same data again
+        assertEquals(source, data.decode(new TestData()));
+    }
+
+    @Test
+    public void testWriteTo() {
+        final TestData source = new TestData(1, 2, "name");
+        final ByteBuffer buffer = encode(CODEC, source);
+        final LazyData<TestData> data = LazyData.of(CODEC, buffer);
+        assertEquals(CODEC.sizeOf(source), data.size());
+
+        final ByteBuffer copy = ByteBuffer.allocate(data.size());
+        data.writeTo(copy);
+        assertEquals(data.size(), copy.position());
+        assertArrayEquals(Arrays.copyOfRange(buffer.array(), PADDING, PADDING + data.size()), copy.array());
+    }
+
+    @Test
+    public void testNothingDecodedUntilRead() {
+        // Not even a fingerprint, so any decoding would fail
+        final LazyData<TestData> data = LazyData.of(CODEC, ByteBuffer.allocate(2));
+        assertEquals(2, data.size());
+        try {
+            assertFalse(data.get(UNSUPPORTED).isPresent());
+        } catch (InvalidDataException e) {
+            fail();
+        }
+        try {
+            data.get(A);
+            fail();
+        } catch (InvalidDataException expected) {
+        }
+    }
+
+    @Test
+    public void testOtherSchemaRejected() {
+        final DataCodec<CopyOnWriteTestData> otherCodec = DataCodec.of(new CopyOnWriteTestData().getSchema());
+        final ByteBuffer buffer = encode(otherCodec, new CopyOnWriteTestData(1, 2, "name"));
+        final LazyData<TestData> data = LazyData.of(CODEC, buffer);
+        try {
+            data.get(A);
+            fail();
+        } catch (InvalidDataException expected) {
+        }
+        try {
+            data.decode(new TestData());
+            fail();
+        } catch (InvalidDataException expected) {
+        }
+    }
+
+}
@@ -0,0 +1,115 @@
+package com.gabizou.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.manipulator.ImmutableDataManipulator;
+
+public class ManipulatorContainerTest {
+
+    // Offered under the class it extends
+    private static final class SubTestData extends TestData {
+    }
+
+    // Never offered to any container
+    private static final class UnusedTestData extends TestData {
+    }
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @Test
+    public void testOffer() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        assertTrue(container.isEmpty());
+        final TestData data = new TestData(1, 2, "name");
+        final ConcurrentTestData concurrent = new ConcurrentTestData();
+        assertFalse(container.offer(TestData.class, data).isPresent());
+        assertFalse(container.offer(ConcurrentTestData.class, concurrent).isPresent());
+        assertEquals(2, container.size());
+        assertSame(data, container.getOrNull(TestData.class));
+        assertSame(concurrent, container.get(ConcurrentTestData.class).get());
+        assertTrue(container.contains(TestData.class));
+        assertFalse(container.contains(CopyOnWriteTestData.class));
+    }
+
+    @Test
+    public void testReplace() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        final TestData first = new TestData(1, 2, "first");
+        final TestData second = new TestData(3, 4, "second");
+        container.offer(TestData.class, first);
+        assertSame(first, container.offer(TestData.class, second).get());
+        assertEquals(1, container.size());
+        assertSame(second, container.getOrNull(TestData.class));
+    }
+
+    @Test
+    public void testRemove() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        final TestData data = new TestData();
+        container.offer(TestData.class, data);
+        container.offer(CopyOnWriteTestData.class, new CopyOnWriteTestData());
+        assertSame(data, container.remove(TestData.class).get());
+        assertEquals(1, container.size());
+        assertNull(container.getOrNull(TestData.class));
+        assertFalse(container.remove(TestData.class).isPresent());
+        assertEquals(1, container.size());
+        container.clear();
+        assertTrue(container.isEmpty());
+        assertFalse(container.contains(CopyOnWriteTestData.class));
+    }
+
+    @Test
+    public void testLookupDoesNotAssignId() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        assertNull(container.getOrNull(UnusedTestData.class));
+        assertFalse(container.remove(UnusedTestData.class).isPresent());
+        container.offer(TestData.class, new TestData());
+        final int next = ManipulatorContainer.getId(SubTestData.class);
+        assertTrue(next > ManipulatorContainer.getId(TestData.class));
+        assertEquals(next, ManipulatorContainer.getId(SubTestData.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfferOtherClass() {
+        new ManipulatorContainer().offer((Class) ConcurrentTestData.class, new TestData());
+    }
+
+    @Test
+    public void testAsImmutable() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        final TestData data = new TestData(1, 2, "name");
+        final CopyOnWriteTestData copyOnWrite = new CopyOnWriteTestData(3, 4, "other");
+        container.offer(TestData.class, data);
+        container.offer(CopyOnWriteTestData.class, copyOnWrite);
+        final ImmutableList<ImmutableDataManipulator<?, ?>> immutable = container.asImmutable();
+        assertEquals(2, immutable.size());
+        assertTrue(immutable.contains(data.asImmutable()));
+        assertTrue(immutable.contains(copyOnWrite.asImmutable()));
+    }
+
+    @Test
+    public void testToContainer() {
+        final ManipulatorContainer container = new ManipulatorContainer();
+        container.offer(TestData.class, new SubTestData());
+        container.offer(ConcurrentTestData.class, new ConcurrentTestData());
+        final DataContainer serialized = container.toContainer();
+        // Nested by package, under the class each was offered under
+        assertTrue(serialized.getView(DataQuery.of("com", "gabizou", "data", "TestData")).isPresent());
+        assertTrue(serialized.getView(DataQuery.of("com", "gabizou", "data", "ConcurrentTestData")).isPresent());
+        assertFalse(serialized.contains(DataQuery.of('.', SubTestData.class.getName())));
+    }
+
+}
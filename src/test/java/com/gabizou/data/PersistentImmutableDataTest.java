@@ -0,0 +1,88 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static com.gabizou.data.TestKeys.UNSUPPORTED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class PersistentImmutableDataTest {
+
+    @BeforeClass
+    public static void installValues() {
+        TestValues.install();
+    }
+
+    @Before
+    public void clearCache() {
+        CopyOnWriteTestData.Immutable.CACHE.clear();
+    }
+
+    @Test
+    public void testWith() {
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        final CopyOnWriteTestData.Immutable changed = data.with(A, 3).get();
+        assertNotSame(data, changed);
+        assertEquals(1, (int) data.getOrNull(A));
+        assertEquals(3, (int) changed.getOrNull(A));
+        assertEquals(2, (int) changed.getOrNull(B));
+        // The unchanged values are shared, not copied
+        assertSame(data.getOrNull(NAME), changed.getOrNull(NAME));
+    }
+
+    @Test
+    public void testChainedWith() {
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        final CopyOnWriteTestData.Immutable changed = data.with(A, 3).get().with(B, 4).get().with(NAME, "changed").get();
+        assertEquals(3, (int) changed.getOrNull(A));
+        assertEquals(4, (int) changed.getOrNull(B));
+        assertEquals("changed", changed.getOrNull(NAME));
+        assertEquals(1, (int) data.getOrNull(A));
+        assertEquals(2, (int) data.getOrNull(B));
+        assertEquals("name", data.getOrNull(NAME));
+    }
+
+    @Test
+    public void testWithInterns() {
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        assertSame(CopyOnWriteTestData.Immutable.of(3, 2, "name"), data.with(A, 3).get());
+        // An equal value that isn't the same instance changes the store, but
+        // is interned back to the same manipulator
+        assertSame(data, data.with(NAME, new String("name")).get());
+    }
+
+    @Test
+    public void testWithSameValue() {
+        final CopyOnWriteTestData.Immutable data = new CopyOnWriteTestData.Immutable(SlotStore.of(1, 2, "name"));
+        assertSame(data, data.with(A, data.getOrNull(A)).get());
+    }
+
+    @Test
+    public void testWithUnsupported() {
+        assertFalse(CopyOnWriteTestData.Immutable.of(1, 2, "name").with(UNSUPPORTED, 1).isPresent());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testWithNull() {
+        CopyOnWriteTestData.Immutable.of(1, 2, "name").with(NAME, null);
+    }
+
+    @Test
+    public void testCopy() {
+        final CopyOnWriteTestData.Immutable data = CopyOnWriteTestData.Immutable.of(1, 2, "name");
+        assertSame(data, data.copy());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongStoreSize() {
+        new CopyOnWriteTestData.Immutable(SlotStore.of(1, 2));
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.gabizou.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+
+public class SlotStoreTest {
+
+    // Within a single array, one past it, and one past a full second level
+    private static final int[] SIZES = {1, 8, 9, 64, 65};
+
+    private static SlotStore store(int size) {
+        final Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = i;
+        }
+        return SlotStore.of(values);
+    }
+
+    @Test
+    public void testGet() {
+        for (int size : SIZES) {
+            final SlotStore store = store(size);
+            assertEquals(size, store.size());
+            for (int slot = 0; slot < size; slot++) {
+                assertEquals(slot, store.get(slot));
+            }
+        }
+    }
+
+    @Test
+    public void testWithLeavesOriginal() {
+        for (int size : SIZES) {
+            final SlotStore store = store(size);
+            for (int slot = 0; slot < size; slot++) {
+                final SlotStore changed = store.with(slot, "changed");
+                assertEquals(size, changed.size());
+                for (int other = 0; other < size; other++) {
+                    assertEquals(other == slot ? "changed" : other, changed.get(other));
+                    assertEquals(other, store.get(other));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWithSameValue() {
+        final SlotStore store = store(65);
+        assertSame(store, store.with(64, store.get(64)));
+    }
+
+    // The arrays of the store aren't exposed, so they are read reflectively
+    private static Object[] root(SlotStore store) throws ReflectiveOperationException {
+        final Field root = SlotStore.class.getDeclaredField("root");
+        root.setAccessible(true);
+        return (Object[]) root.get(store);
+    }
+
+    @Test
+    public void testWithSharesStructure() throws ReflectiveOperationException {
+        // Two levels of arrays below the root, the second child holding slot 64
+        final SlotStore store = store(65);
+        final Object[] root = root(store);
+        final Object[] changedRoot = root(store.with(1, "changed"));
+        assertNotSame(root, changedRoot);
+        assertSame(root[1], changedRoot[1]);
+
+        // Only the array holding slot 1 is copied below the first child
+        final Object[] child = (Object[]) root[0];
+        final Object[] changedChild = (Object[]) changedRoot[0];
+        assertNotSame(child, changedChild);
+        assertNotSame(child[0], changedChild[0]);
+        for (int i = 1; i < child.length; i++) {
+            assertSame(child[i], changedChild[i]);
+        }
+    }
+
+    @Test
+    public void testSetOnCopy() {
+        for (int size : SIZES) {
+            final SlotStore store = store(size);
+            final SlotStore copy = store.copy();
+            for (int slot = 0; slot < size; slot++) {
+                copy.set(slot, -slot - 1);
+            }
+            for (int slot = 0; slot < size; slot++) {
+                assertEquals(-slot - 1, copy.get(slot));
+                assertEquals(slot, store.get(slot));
+            }
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testWithOutOfBounds() {
+        store(9).with(9, "value");
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.gabizou.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class SnapshotStoreTest {
+
+    private static final int MAX_RECORD_SIZE = 32;
+    private static final int RECORDS_PER_SEGMENT = 4;
+    // The segment header, and the holder id, length and checksum of a record
+    private static final int HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 16;
+
+    private static final DataCodec<Holder> CODEC = DataCodec.of(DataSchema.mutable(Holder.class)
+        .intField(TestKeys.A, holder -> holder.number, (holder, value) -> holder.number = value)
+        .field(TestKeys.NAME, holder -> holder.name, (holder, value) -> holder.name = value)
+        .build());
+
+    static final class Holder {
+
+        int number;
+        String name = "";
+
+        Holder() {
+        }
+
+        Holder(int number, String name) {
+            this.number = number;
+            this.name = name;
+        }
+    }
+
+    private Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        this.directory = Files.createTempDirectory("snapshots");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private SnapshotStore<Holder> open() throws IOException {
+        return SnapshotStore.open(this.directory, CODEC, MAX_RECORD_SIZE, RECORDS_PER_SEGMENT);
+    }
+
+    private Path segment(int segment) {
+        return this.directory.resolve("segment-" + segment + ".dat");
+    }
+
+    private static void assertSnapshot(SnapshotStore<Holder> store, long holderId, int number, String name) {
+        assertTrue(store.contains(holderId));
+        final Holder holder = store.get(holderId).get().decode(new Holder());
+        assertEquals(number, holder.number);
+        assertEquals(name, holder.name);
+    }
+
+    @Test
+    public void testPutAndReopen() throws IOException {
+        try (SnapshotStore<Holder> store = open()) {
+            store.put(1, new Holder(10, "one"));
+            store.put(2, new Holder(-20, "two"));
+            store.put(3, new Holder(30, ""));
+            assertEquals(3, store.size());
+            assertSnapshot(store, 2, -20, "two");
+        }
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(3, store.size());
+            assertSnapshot(store, 1, 10, "one");
+            assertSnapshot(store, 2, -20, "two");
+            assertSnapshot(store, 3, 30, "");
+            assertFalse(store.contains(4));
+            assertFalse(store.get(4).isPresent());
+        }
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        try (SnapshotStore<Holder> store = open()) {
+            store.put(1, new Holder(1, "old"));
+            store.put(2, new Holder(2, "other"));
+            store.put(1, new Holder(3, "new"));
+            assertEquals(2, store.size());
+            assertSnapshot(store, 1, 3, "new");
+        }
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(2, store.size());
+            assertSnapshot(store, 1, 3, "new");
+        }
+    }
+
+    @Test
+    public void testRollover() throws IOException {
+        final int count = RECORDS_PER_SEGMENT * 2 + 1;
+        try (SnapshotStore<Holder> store = open()) {
+            for (int i = 0; i < count; i++) {
+                store.put(i, new Holder(i, "holder" + i));
+            }
+        }
+        assertTrue(Files.exists(segment(2)));
+        assertFalse(Files.exists(segment(3)));
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(count, store.size());
+            for (int i = 0; i < count; i++) {
+                assertSnapshot(store, i, i, "holder" + i);
+            }
+            // Continues in the last segment
+            store.put(count, new Holder(count, "last"));
+            assertSnapshot(store, count, count, "last");
+        }
+        assertFalse(Files.exists(segment(3)));
+    }
+
+    @Test
+    public void testOversizedRecord() throws IOException {
+        final StringBuilder name = new StringBuilder();
+        for (int i = 0; i < MAX_RECORD_SIZE; i++) {
+            name.append('x');
+        }
+        try (SnapshotStore<Holder> store = open()) {
+            store.put(1, new Holder(1, "one"));
+            try {
+                store.put(2, new Holder(2, name.toString()));
+                fail("Stored a snapshot larger than the maximum record size");
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            assertEquals(1, store.size());
+            assertFalse(store.contains(2));
+            // The failed record is reused
+            store.put(3, new Holder(3, "three"));
+        }
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(2, store.size());
+            assertFalse(store.contains(2));
+            assertSnapshot(store, 3, 3, "three");
+        }
+    }
+
+    @Test
+    public void testCorruptRecordEndsTheStore() throws IOException {
+        try (SnapshotStore<Holder> store = open()) {
+            for (int i = 0; i < RECORDS_PER_SEGMENT + 2; i++) {
+                store.put(i, new Holder(i, "holder" + i));
+            }
+        }
+        // Flips a byte of the data of the second record
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final long position = HEADER_SIZE + (RECORD_HEADER_SIZE + MAX_RECORD_SIZE) + RECORD_HEADER_SIZE + 1;
+            final ByteBuffer data = ByteBuffer.allocate(1);
+            channel.read(data, position);
+            data.put(0, (byte) (data.get(0) ^ 0xFF)).rewind();
+            channel.write(data, position);
+        }
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(1, store.size());
+            assertSnapshot(store, 0, 0, "holder0");
+            assertFalse(Files.exists(segment(1)));
+            store.put(10, new Holder(10, "ten"));
+        }
+        // The records after the new one stay dropped
+        try (SnapshotStore<Holder> store = open()) {
+            assertEquals(2, store.size());
+            assertSnapshot(store, 10, 10, "ten");
+            assertFalse(store.contains(2));
+        }
+    }
+
+    @Test
+    public void testOtherLayout() throws IOException {
+        try (SnapshotStore<Holder> store = open()) {
+            store.put(1, new Holder(1, "one"));
+        }
+        final long size = Files.size(segment(0));
+        try {
+            SnapshotStore.open(this.directory, CODEC, MAX_RECORD_SIZE * 2, RECORDS_PER_SEGMENT).close();
+            fail("Opened a segment with another record size");
+        } catch (IOException e) {
+            // Expected
+        }
+        // The segment isn't grown to the other layout
+        assertEquals(size, Files.size(segment(0)));
+    }
+
+    @Test
+    public void testTruncatedSegment() throws IOException {
+        try (SnapshotStore<Holder> store = open()) {
+            store.put(1, new Holder(1, "one"));
+        }
+        final long size = Files.size(segment(0)) - 1;
+        try (FileChannel channel = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+        }
+        try {
+            open().close();
+            fail("Opened a truncated segment");
+        } catch (IOException e) {
+            // Expected
+        }
+        assertEquals(size, Files.size(segment(0)));
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.gabizou.data;
+
+import static com.gabizou.data.TestKeys.A;
+import static com.gabizou.data.TestKeys.B;
+import static com.gabizou.data.TestKeys.NAME;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.DataContainer;
+import org.spongepowered.api.data.DataHolder;
+import org.spongepowered.api.data.MemoryDataContainer;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.merge.MergeFunction;
+import org.spongepowered.api.data.value.BaseValue;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+/**
+ * An {@link AbstractData} keeping its values in fields, with two integer
+ * keys and a string key. The value of {@link TestKeys#B} can't be negative,
+ * its setter throws instead, so the tests can make a setter fail.
+ */
+public class TestData extends AbstractData<TestData, TestData.Immutable> {
+
+    private static final DataSchema<TestData, Value<?>> SCHEMA = DataSchema.mutable(TestData.class)
+        .intField(A, TestData::getA, TestData::writeA)
+        .intField(B, TestData::getB, TestData::writeB)
+        .field(NAME, TestData::getName, TestData::writeName)
+        .value(A, data -> DataValues.getBuilder().createValue(A, data.a, 0))
+        .value(B, data -> DataValues.getBuilder().createValue(B, data.b, 0))
+        .value(NAME, data -> DataValues.getBuilder().createValue(NAME, data.name, ""))
+        .build();
+
+    private int a;
+    private int b;
+    private String name;
+
+    public TestData() {
+        this(0, 0, "");
+    }
+
+    public TestData(int a, int b, String name) {
+        super(SCHEMA);
+        this.a = a;
+        this.b = b;
+        this.name = checkNotNull(name);
+    }
+
+    public int getA() {
+        return this.a;
+    }
+
+    public void setA(int a) {
+        this.a = a;
+        markChanged(A);
+    }
+
+    private void writeA(int a) {
+        this.a = a;
+    }
+
+    public int getB() {
+        return this.b;
+    }
+
+    private void writeB(int b) {
+        checkArgument(b >= 0, "B can't be negative, but was: %s", b);
+        this.b = b;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    private void writeName(String name) {
+        this.name = checkNotNull(name);
+    }
+
+    @Override
+    public Optional<TestData> fill(DataHolder dataHolder, MergeFunction overlap) {
+        return Optional.absent();
+    }
+
+    @Override
+    public Optional<TestData> from(DataContainer container) {
+        return Optional.absent();
+    }
+
+    @Override
+    public TestData copy() {
+        return new TestData(this.a, this.b, this.name);
+    }
+
+    @Override
+    public Immutable asImmutable() {
+        return new Immutable(this.a, this.b, this.name);
+    }
+
+    @Override
+    public int compareTo(TestData o) {
+        return Integer.compare(this.a, o.a);
+    }
+
+    @Override
+    public DataContainer toContainer() {
+        return new MemoryDataContainer();
+    }
+
+    public static class Immutable extends ImmutableAbstractData<Immutable, TestData> {
+
+        private static final DataSchema<Immutable, ImmutableValue<?>> SCHEMA = DataSchema.immutable(Immutable.class)
+            .intField(A, data -> data.a)
+            .intField(B, data -> data.b)
+            .field(NAME, data -> data.name)
+            .value(A, data -> DataValues.getBuilder().createValue(A, data.a, 0).asImmutable())
+            .value(B, data -> DataValues.getBuilder().createValue(B, data.b, 0).asImmutable())
+            .value(NAME, data -> DataValues.getBuilder().createValue(NAME, data.name, "").asImmutable())
+            .build();
+
+        private final int a;
+        private final int b;
+        private final String name;
+
+        public Immutable(int a, int b, String name) {
+            super(SCHEMA);
+            checkArgument(b >= 0, "B can't be negative, but was: %s", b);
+            this.a = a;
+            this.b = b;
+            this.name = checkNotNull(name);
+        }
+
+        @Override
+        public <E> Optional<Immutable> with(Key<? extends BaseValue<E>> key, E value) {
+            if (key.equals(A)) {
+                return Optional.of(new Immutable((Integer) value, this.b, this.name));
+            } else if (key.equals(B)) {
+                return Optional.of(new Immutable(this.a, (Integer) value, this.name));
+            } else if (key.equals(NAME)) {
+                return Optional.of(new Immutable(this.a, this.b, (String) value));
+            }
+            return Optional.absent();
+        }
+
+        @Override
+        public Immutable copy() {
+            return this;
+        }
+
+        @Override
+        public TestData asMutable() {
+            return new TestData(this.a, this.b, this.name);
+        }
+
+        @Override
+        public int compareTo(Immutable o) {
+            return Integer.compare(this.a, o.a);
+        }
+
+        @Override
+        public DataContainer toContainer() {
+            return new MemoryDataContainer();
+        }
+    }
+
+}
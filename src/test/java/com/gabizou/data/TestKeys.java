@@ -0,0 +1,29 @@
+package com.gabizou.data;
+
+import org.spongepowered.api.data.DataQuery;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.key.KeyFactory;
+import org.spongepowered.api.data.value.mutable.Value;
+
+/**
+ * The keys of the test manipulators of this package.
+ */
+@SuppressWarnings("unchecked")
+public final class TestKeys {
+
+    public static final Key<Value<Integer>> A = key(Integer.class, "a");
+    public static final Key<Value<Integer>> B = key(Integer.class, "b");
+    public static final Key<Value<Integer>> C = key(Integer.class, "c");
+    public static final Key<Value<Integer>> D = key(Integer.class, "d");
+    public static final Key<Value<String>> NAME = key(String.class, "name");
+    // Not supported by any of the test manipulators
+    public static final Key<Value<Integer>> UNSUPPORTED = key(Integer.class, "unsupported");
+
+    public static <E> Key<Value<E>> key(Class<E> type, String name) {
+        return KeyFactory.makeSingleKey(type, (Class<Value<E>>) (Class) Value.class, DataQuery.of(name));
+    }
+
+    private TestKeys() {
+    }
+
+}
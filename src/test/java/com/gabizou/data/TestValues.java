@@ -0,0 +1,111 @@
+package com.gabizou.data;
+
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import org.spongepowered.api.data.key.Key;
+import org.spongepowered.api.data.value.ValueBuilder;
+import org.spongepowered.api.data.value.immutable.ImmutableValue;
+import org.spongepowered.api.data.value.mutable.Value;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * A {@link ValueBuilder} for the tests, as the values are otherwise created
+ * by the game. The values are proxies which are equal when their keys,
+ * elements and mutability are.
+ */
+public final class TestValues {
+
+    private static final ValueBuilder BUILDER = proxy(ValueBuilder.class, (proxy, method, args) -> {
+        if (method.getName().equals("createValue")) {
+            return value((Key<?>) args[0], args[1], args.length > 2 ? args[2] : args[1], true);
+        }
+        return method.invoke(new Object(), args);
+    });
+
+    /**
+     * Provides the builder to {@link DataValues}, so the manipulators can
+     * create their values.
+     */
+    public static void install() {
+        DataValues.setBuilder(BUILDER);
+    }
+
+    private static Object value(Key<?> key, Object element, Object defaultValue, boolean mutable) {
+        final ValueHandler handler = new ValueHandler(key, element, defaultValue, mutable);
+        return mutable ? proxy(Value.class, handler) : proxy(ImmutableValue.class, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(TestValues.class.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+
+    private TestValues() {
+    }
+
+    private static final class ValueHandler implements InvocationHandler {
+
+        private final Key<?> key;
+        private Object element;
+        private final Object defaultValue;
+        private final boolean mutable;
+
+        ValueHandler(Key<?> key, Object element, Object defaultValue, boolean mutable) {
+            this.key = key;
+            this.element = element;
+            this.defaultValue = defaultValue;
+            this.mutable = mutable;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+                case "get":
+                    return this.element;
+                case "getDirect":
+                    return Optional.of(this.element);
+                case "exists":
+                    return true;
+                case "getDefault":
+                    return this.defaultValue;
+                case "getKey":
+                    return this.key;
+                case "set":
+                    this.element = args[0];
+                    return proxy;
+                case "with":
+                    return value(this.key, args[0], this.defaultValue, false);
+                case "transform":
+                    final Object transformed = ((Function<Object, Object>) args[0]).apply(this.element);
+                    if (this.mutable) {
+                        this.element = transformed;
+                        return proxy;
+                    }
+                    return value(this.key, transformed, this.defaultValue, false);
+                case "asImmutable":
+                    return value(this.key, this.element, this.defaultValue, false);
+                case "asMutable":
+                    return value(this.key, this.element, this.defaultValue, true);
+                case "equals":
+                    if (args[0] == null || !Proxy.isProxyClass(args[0].getClass())) {
+                        return false;
+                    }
+                    final InvocationHandler other = Proxy.getInvocationHandler(args[0]);
+                    return other instanceof ValueHandler && ((ValueHandler) other).mutable == this.mutable
+                           && ((ValueHandler) other).key == this.key && Objects.equal(((ValueHandler) other).element, this.element);
+                case "hashCode":
+                    return Objects.hashCode(this.key, this.element, this.mutable);
+                case "toString":
+                    return (this.mutable ? "Value{" : "ImmutableValue{") + this.key.getQuery() + "=" + this.element + "}";
+                default:
+                    throw new UnsupportedOperationException(method.toString());
+            }
+        }
+    }
+
+}
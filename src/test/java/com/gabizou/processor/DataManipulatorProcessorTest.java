@@ -0,0 +1,73 @@
+package com.gabizou.processor;
+
+import static com.google.testing.compile.CompilationSubject.assertThat;
+import static com.google.testing.compile.Compiler.javac;
+
+import com.google.testing.compile.Compilation;
+import com.google.testing.compile.JavaFileObjects;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.MalformedURLException;
+
+import javax.tools.JavaFileObject;
+
+public class DataManipulatorProcessorTest {
+
+    // The annotated manipulators of the test sources, relative to the project directory
+    private static final String ANNOTATION_SOURCES = "src/test/java/com/gabizou/annotation/";
+
+    private static JavaFileObject source(String name) throws MalformedURLException {
+        return JavaFileObjects.forResource(new File(ANNOTATION_SOURCES + name + ".java").toURI().toURL());
+    }
+
+    @Test
+    public void testGeneratesManipulators() throws MalformedURLException {
+        final Compilation compilation = javac()
+            .withProcessors(new DataManipulatorProcessor())
+            .compile(source("AnnonTest"), source("ImmutableAnnonTest"));
+        assertThat(compilation).succeeded();
+        assertThat(compilation).generatedSourceFile("com.gabizou.annotation.AnnonTestImpl");
+        assertThat(compilation).generatedSourceFile("com.gabizou.annotation.AnnonTestBuilder");
+        assertThat(compilation).generatedSourceFile("com.gabizou.annotation.ImmutableAnnonTestImpl");
+        assertThat(compilation).generatedSourceFile("com.gabizou.annotation.ImmutableAnnonTestBuilder");
+    }
+
+    @Test
+    public void testRejectsValueKeyWithParameters() {
+        final JavaFileObject source = JavaFileObjects.forSourceLines("com.gabizou.annotation.BrokenTest",
+            "package com.gabizou.annotation;",
+            "",
+            "import com.gabizou.DemoKeys;",
+            "import org.spongepowered.api.data.manipulator.DataManipulator;",
+            "import org.spongepowered.api.data.value.mutable.Value;",
+            "",
+            "@MutableData",
+            "public abstract class BrokenTest implements DataManipulator<BrokenTest, ImmutableAnnonTest> {",
+            "",
+            "    @ValueKey(@KeyReference(container = DemoKeys.class, keyName = \"demobool\"))",
+            "    public abstract Value<Boolean> demoBool(int index);",
+            "",
+            "}");
+        final Compilation compilation = javac()
+            .withProcessors(new DataManipulatorProcessor())
+            .compile(source);
+        assertThat(compilation).failed();
+        assertThat(compilation).hadErrorContaining("@ValueKey methods must be abstract and take no parameters").inFile(source);
+    }
+
+    @Test
+    public void testRejectsConcreteManipulator() {
+        final JavaFileObject source = JavaFileObjects.forSourceLines("com.gabizou.annotation.ConcreteTest",
+            "package com.gabizou.annotation;",
+            "",
+            "@ImmutableData",
+            "public class ConcreteTest {",
+            "}");
+        final Compilation compilation = javac()
+            .withProcessors(new DataManipulatorProcessor())
+            .compile(source);
+        assertThat(compilation).hadErrorContaining("ConcreteTest must be abstract to be generated").inFile(source);
+    }
+
+}